@@ -0,0 +1,58 @@
+package com.jadventure.game.repository;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jadventure.game.items.Item;
+
+/**
+ * Draws the random items put into a location when the player walks in.
+ * The game's items can be joined by more generated ones of higher levels,
+ * to see how drawing scales with the size of the repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemRepositoryBenchmark {
+    @Param({"0", "1000"})
+    public int extraItems;
+
+    private ItemRepository itemRepo;
+
+    @Setup
+    public void setUp() {
+        itemRepo = ItemRepository.createRepo();
+        String[] types = {"f", "w", "a", "p"};
+        for (int i = 0; i < extraItems; i++) {
+            String id = types[i % types.length] + "extra" + i;
+            itemRepo.addItem(new Item(id, "extra", id, "Generated for the benchmark", 2 + i % 20,
+                    new TreeMap<String, Integer>()));
+        }
+        itemRepo.getRandomWeapon(1);
+    }
+
+    @Benchmark
+    public Item randomWeapon() {
+        return itemRepo.getRandomWeapon(1);
+    }
+
+    @Benchmark
+    public Item randomPotion() {
+        return itemRepo.getRandomPotion(1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.jadventure.game;
+
+/**
+ * A session whose game runs on a thread of its own, which waits for every
+ * line of input the player types.
+ */
+public abstract class BlockingSession extends Session {
+    /**
+     * Waits for the player's next line of input.
+     */
+    public abstract String take();
+
+    /**
+     * Plays the game from the given flow on the calling thread until no
+     * flow is left or the session closes. The session is bound to the
+     * thread meanwhile, so everything the game offers reaches its player.
+     */
+    public void play(Flow first) {
+        QueueProvider.bind(this);
+        FlowStack flows = getFlows();
+        try {
+            flows.push(first);
+            while (flows.prompt()) {
+                flows.input(take());
+            }
+            exit();
+        } catch (SessionClosedException sce) {
+            flows.close(sce);
+            exit();
+        } finally {
+            QueueProvider.unbind();
+        }
+    }
+}
@@ -1,71 +1,297 @@
 package com.jadventure.game;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.net.Socket;
-import java.util.Scanner;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
+import com.jadventure.game.events.TextEvent;
+import com.jadventure.game.protocol.Frame;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+import com.jadventure.game.protocol.ProtocolException;
+
+/**
+ * The client side of the client / server mode.
+ *
+ * Frames from the server are read and printed on the calling thread while
+ * a second thread sends every line of input as soon as it's read. Input
+ * doesn't wait for the server's prompt, so commands piped in from a
+ * script are sent ahead and queued by the server. When the input ends
+ * the client half-closes the socket, which the server answers like
+ * "exit", and keeps printing until the server says goodbye.
+ *
+ * Unless told otherwise the client asks the server to compress its output.
+ * It may also ask for the output as JSON lines, which it prints as they are.
+ *
+ * If the connection is lost before the game is over, the client connects
+ * again and resumes its session with the token the server gave it. The
+ * server replays the output the client missed.
+ */
 public class Client {
+    private static final int RECONNECT_ATTEMPTS = 5;
+    private static final long RECONNECT_DELAY = 500;
 
-    DataInputStream in;
-    DataOutputStream out;
+    private final String serverName;
+    private final int port;
+    private final boolean compression;
+    private final boolean json;
+    private final BufferedReader input;
+    private final PrintStream output;
+    /** Guards the socket and out, which change when the client reconnects */
+    private final Object sending = new Object();
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+    private boolean inputEnded = false;
+    /** The lines of input not yet flushed to the server */
+    private final List<String> unsent = new ArrayList<>();
+    /** The token of the session to resume, null if the server can't resume */
+    private String token;
+    /** Number of OUTPUT frames received from the session */
+    private long received = 0;
 
     public Client(String serverName, int port) {
-        Socket client = null;
+        this(serverName, port, true);
+    }
+
+    public Client(String serverName, int port, boolean compression) {
+        this(serverName, port, compression, false);
+    }
+
+    public Client(String serverName, int port, boolean compression, boolean json) {
+        this(serverName, port, System.in, System.out, compression, json);
+    }
+
+    public Client(String serverName, int port, InputStream input, PrintStream output, boolean compression) {
+        this(serverName, port, input, output, compression, false);
+    }
+
+    public Client(String serverName, int port, InputStream input, PrintStream output,
+            boolean compression, boolean json) {
+        this.serverName = serverName;
+        this.port = port;
+        this.compression = compression;
+        this.json = json;
+        this.input = new BufferedReader(new InputStreamReader(input, Charset.defaultCharset()));
+        this.output = output;
         try {
-            client = new Socket(serverName, port);
-            
-            in = new DataInputStream(client.getInputStream());
-            out = new DataOutputStream(client.getOutputStream());
-
-            while(true) {
-                String serverMessage = in.readUTF();
-                if (serverMessage.endsWith("END")) {
-                    serverMessage = serverMessage.substring(0, serverMessage.length() - 3);
-                    if (serverMessage.equals("QUERY")) {
-                        getInput();
-                    } else if (serverMessage.equals("EXIT")) {
-                        break;
-                    } else {
-                        System.out.println(serverMessage);
+            connect(false);
+            Thread sender = new Thread(new Runnable() {
+                public void run() {
+                    sendInput();
+                }
+            }, "jadventure-client-input");
+            sender.setDaemon(true);
+            sender.start();
+            play();
+        } catch(IOException e) {
+            e.printStackTrace();
+        } finally {
+            synchronized (sending) {
+                closeSocket();
+            }
+        }
+    }
+
+    /**
+     * Connects to the server and offers the features the client supports.
+     * When resuming, asks for the lost session and sends the input that
+     * couldn't be sent before.
+     */
+    private void connect(boolean resume) throws IOException {
+        synchronized (sending) {
+            closeSocket();
+            socket = new Socket(serverName, port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            FrameCodec codec = new FrameCodec();
+            String features = (compression ? "deflate,resume" : "resume") + (json ? ",json" : "");
+            codec.write(out, FrameType.HELLO, 0, features, false);
+            if (resume) {
+                codec.write(out, FrameType.RESUME, 0, token + " " + received, false);
+            }
+            for (String line : unsent) {
+                codec.write(out, FrameType.INPUT, 0, line, false);
+            }
+            unsent.clear();
+            out.flush();
+            if (inputEnded) {
+                socket.shutdownOutput();
+            }
+        }
+    }
+
+    private void closeSocket() {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Prints the server's output until the game is over, resuming the
+     * session whenever the connection is lost.
+     */
+    private void play() throws IOException {
+        boolean resuming = false;
+        while (true) {
+            try {
+                if (readFrames(resuming)) {
+                    return;
+                }
+            } catch (ProtocolException e) {
+                throw e;
+            } catch (IOException e) {
+                // lost like any other connection
+            }
+            if (token == null || !reconnect()) {
+                return;
+            }
+            resuming = true;
+        }
+    }
+
+    private boolean reconnect() {
+        notice("Connection lost, reconnecting...");
+        for (int attempt = 0; attempt < RECONNECT_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(attempt * RECONNECT_DELAY);
+                connect(true);
+                return true;
+            } catch (IOException e) {
+                // the server may not be reachable yet
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        notice("Unable to reconnect to the server.");
+        return false;
+    }
+
+    /**
+     * Prints the server's output until it ends the game or goes away.
+     * While resuming, output is held back until the server says whether
+     * the session is resumed: if it is, the old session's output follows,
+     * if not, the held back output of a new session is printed.
+     * Returns true once the game is over, false if the connection was lost.
+     */
+    private boolean readFrames(boolean resuming) throws IOException {
+        FrameCodec codec = new FrameCodec();
+        List<String> heldBack = new ArrayList<>();
+        String newToken = null;
+        Frame frame;
+        try {
+            while ((frame = codec.read(in)) != null) {
+                if (frame.getType() == FrameType.EXIT) {
+                    output.flush();
+                    return true;
+                } else if (frame.getType() == FrameType.HELLO) {
+                    for (String feature : frame.getPayload().split(",")) {
+                        if (feature.equals("deflate")) {
+                            codec.enableDecompression();
+                        } else if (feature.startsWith("resume=")) {
+                            newToken = feature.substring("resume=".length());
+                        }
                     }
-                } else {
-                    String message = "";
-                    while(!serverMessage.endsWith("END")) {
-                        message += serverMessage;
-                        serverMessage = in.readUTF();
+                    if (!resuming) {
+                        token = newToken;
                     }
-                    message = serverMessage.substring(0, serverMessage.length() - 3);
-                    if (message.equals("QUERY")) {
-                        getInput();
-                    } else if (serverMessage.equals("EXIT")) {
-                        break;
+                } else if (frame.getType() == FrameType.RESUME && resuming) {
+                    resuming = false;
+                    if (frame.getPayload().isEmpty()) {
+                        notice("Unable to resume the game.");
+                        token = newToken;
+                        received = 0;
+                        for (String line : heldBack) {
+                            print(line);
+                        }
                     } else {
-                        System.out.println(serverMessage);
+                        received = Long.parseLong(frame.getPayload());
                     }
+                    heldBack.clear();
+                } else if (frame.getType() == FrameType.OUTPUT) {
+                    if (resuming) {
+                        heldBack.add(frame.getPayload());
+                    } else {
+                        print(frame.getPayload());
+                    }
+                } else if (frame.getType() == FrameType.PROMPT) {
+                    output.flush();
                 }
             }
-        } catch(IOException e) {
-            e.printStackTrace();
+            output.flush();
+            return false;
         } finally {
-        	try {
-				client.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+            codec.end();
         }
     }
 
-    public void getInput() {
-         Scanner input;
-         try {
-             input = new Scanner(System.in);
-             String userInput = input.nextLine();
-             out.writeUTF(userInput);
-         } catch (IOException e) {
-             e.printStackTrace(); 
-         } 
+    private void print(String line) {
+        output.println(line);
+        received++;
+    }
+
+    /**
+     * Prints a message of the client's own, as a text event in JSON output.
+     */
+    private void notice(String message) {
+        output.println(json ? new TextEvent(message).toJson() : message);
     }
-}
 
+    /**
+     * Sends every line of input to the server. Lines that are already
+     * waiting are sent together, the socket is only flushed once the
+     * input has nothing more at hand. A line is kept until the flush after
+     * it has succeeded, so the lines still buffered when the connection
+     * is lost are sent again once the client has reconnected.
+     */
+    private void sendInput() {
+        FrameCodec codec = new FrameCodec();
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                boolean more = input.ready();
+                synchronized (sending) {
+                    unsent.add(line);
+                    try {
+                        codec.write(out, FrameType.INPUT, 0, line, false);
+                        if (!more) {
+                            out.flush();
+                            unsent.clear();
+                        }
+                    } catch (IOException e) {
+                        // sent again once the client has reconnected
+                    }
+                }
+            }
+            synchronized (sending) {
+                inputEnded = true;
+                try {
+                    out.flush();
+                    unsent.clear();
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    // done again once the client has reconnected
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
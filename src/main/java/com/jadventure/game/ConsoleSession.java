@@ -0,0 +1,67 @@
+package com.jadventure.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+/**
+ * Session of the stand-alone game, reading from and writing to the console.
+ */
+public class ConsoleSession extends BlockingSession {
+    private final InputStream in;
+    private final PrintStream out;
+    private BufferedReader reader;
+    private InputStream readerSource;
+
+    /**
+     * Creates a session on System.in and System.out. The streams are looked
+     * up on every call, so replacing them with System.setIn() or
+     * System.setOut() still works.
+     */
+    public ConsoleSession() {
+        this(null, null);
+    }
+
+    public ConsoleSession(InputStream in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    protected void write(CharSequence text) {
+        PrintStream stream = (out != null) ? out : System.out;
+        stream.append(text).println();
+    }
+
+    @Override
+    public void flush() {
+        PrintStream stream = (out != null) ? out : System.out;
+        stream.flush();
+    }
+
+    /**
+     * Reads the next line. All lines come from one buffered reader, so
+     * input piped in ahead of time isn't lost between two calls.
+     */
+    @Override
+    public String take() {
+        flush();
+        InputStream source = (in != null) ? in : System.in;
+        if (reader == null || readerSource != source) {
+            reader = new BufferedReader(new InputStreamReader(source, Charset.defaultCharset()));
+            readerSource = source;
+        }
+        try {
+            String message = reader.readLine();
+            if (message != null) {
+                return message;
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        return endOfInput();
+    }
+}
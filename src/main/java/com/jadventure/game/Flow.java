@@ -0,0 +1,101 @@
+package com.jadventure.game;
+
+/**
+ * One step of a player's game that waits for input: a menu, the game
+ * prompt, a battle, a trade or a conversation.
+ *
+ * A flow doesn't take its input itself. It is pushed on the FlowStack of
+ * its session, shows its prompt whenever the game waits for the player and
+ * is handed every line of input while it is on top of the stack. A flow
+ * that needs another one (a battle started by a command) pushes it and is
+ * resumed once that has finished, so whatever state a session is in is
+ * kept in a few objects instead of a blocked thread's stack.
+ */
+public abstract class Flow {
+    private FlowStack stack;
+
+    /**
+     * Called once when the flow is pushed. It may already push another
+     * flow or finish.
+     */
+    protected void start() {
+    }
+
+    /**
+     * Shows the player what the flow is waiting for. Called every time the
+     * game waits for input with this flow on top.
+     */
+    protected void prompt() {
+    }
+
+    /**
+     * Plays one line of the player's input.
+     */
+    protected abstract void handle(String input) throws DeathException;
+
+    /**
+     * Called when a flow pushed by this one has finished.
+     */
+    protected void resume(Flow child) throws DeathException {
+    }
+
+    /**
+     * Called while a DeathException unwinds the stack. A flow returning
+     * true has dealt with it and stays, the others are dropped.
+     */
+    protected boolean died(DeathException e) {
+        return false;
+    }
+
+    /**
+     * Called when the session closed while the flow was on the stack.
+     */
+    protected void closed(SessionClosedException e) {
+    }
+
+    /**
+     * Called when the flow leaves the stack, however that happened.
+     */
+    protected void ended() {
+    }
+
+    /**
+     * Pushes another flow on top of this one, it gets the input from now on.
+     */
+    protected final void push(Flow flow) {
+        stack().push(flow);
+    }
+
+    /**
+     * Takes this flow off the stack, the flow below it is resumed.
+     */
+    protected final void finish() {
+        stack().finish(this);
+    }
+
+    /**
+     * Takes this flow off the stack and pushes another one in its place,
+     * the flow below is only resumed once that one has finished.
+     */
+    protected final void replace(Flow flow) {
+        stack().replace(this, flow);
+    }
+
+    /**
+     * Returns true while this flow is the one getting the input.
+     */
+    protected final boolean isCurrent() {
+        return stack != null && stack.current() == this;
+    }
+
+    void setStack(FlowStack stack) {
+        this.stack = stack;
+    }
+
+    private FlowStack stack() {
+        if (stack == null) {
+            throw new IllegalStateException(this + " isn't on a stack");
+        }
+        return stack;
+    }
+}
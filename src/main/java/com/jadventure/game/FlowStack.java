@@ -0,0 +1,113 @@
+package com.jadventure.game;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The flows of one session, the one on top gets the player's input.
+ *
+ * They are fed one line of input at a time with input(), and asked for
+ * the next one with prompt(). A BlockingSession does so on its own thread,
+ * the GameEngine for every command it is given.
+ */
+public class FlowStack {
+    private final Session session;
+    private final Deque<Flow> flows = new ArrayDeque<>();
+    /** A flow that finished while handling the last input, its parent hasn't been told yet */
+    private Flow finished;
+
+    public FlowStack(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Lets the flow on top show its prompt. Returns false if no flow is
+     * left, the game is over then.
+     */
+    public boolean prompt() {
+        Flow top = flows.peek();
+        if (top == null) {
+            return false;
+        }
+        top.prompt();
+        return true;
+    }
+
+    /**
+     * Hands one line of input to the flow on top.
+     */
+    public void input(String input) {
+        Flow top = flows.peek();
+        if (top == null) {
+            throw new IllegalStateException("No flow is waiting for input in " + session);
+        }
+        try {
+            top.handle(input);
+            while (finished != null && !flows.isEmpty()) {
+                Flow child = finished;
+                finished = null;
+                flows.peek().resume(child);
+            }
+        } catch (DeathException e) {
+            unwind(e);
+        }
+        finished = null;
+    }
+
+    /**
+     * Tells every flow that the session has closed and drops them.
+     */
+    public void close(SessionClosedException e) {
+        while (!flows.isEmpty()) {
+            Flow top = flows.pop();
+            top.closed(e);
+            top.ended();
+        }
+    }
+
+    public void push(Flow flow) {
+        flows.push(flow);
+        flow.setStack(this);
+        flow.start();
+    }
+
+    /**
+     * Returns the flow getting the input, null if there is none.
+     */
+    public Flow current() {
+        return flows.peek();
+    }
+
+    public boolean isEmpty() {
+        return flows.isEmpty();
+    }
+
+    void finish(Flow flow) {
+        pop(flow);
+        finished = flow;
+    }
+
+    void replace(Flow flow, Flow next) {
+        pop(flow);
+        push(next);
+    }
+
+    private void pop(Flow flow) {
+        if (flows.peek() != flow) {
+            throw new IllegalStateException(flow + " isn't the current flow of " + session);
+        }
+        flows.pop();
+        flow.ended();
+    }
+
+    private void unwind(DeathException e) {
+        while (!flows.isEmpty()) {
+            Flow top = flows.peek();
+            if (top.died(e)) {
+                return;
+            }
+            flows.pop();
+            top.ended();
+        }
+    }
+}
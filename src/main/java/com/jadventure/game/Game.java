@@ -1,80 +1,144 @@
 package com.jadventure.game;
 
 import com.jadventure.game.entities.Player;
+import com.jadventure.game.events.PromptEvent;
 import com.jadventure.game.monsters.Monster;
 import com.jadventure.game.monsters.MonsterFactory;
 import com.jadventure.game.repository.LocationRepository;
 import com.jadventure.game.prompts.CommandParser;
+import com.jadventure.game.prompts.Macros;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class contains the main loop that takes the input and
  * does the according actions.
  */
-public class Game {
+public class Game extends Flow {
     public ArrayList<Monster> monsterList = new ArrayList<Monster>();
-    public MonsterFactory monsterFactory = new MonsterFactory(); 
+    public MonsterFactory monsterFactory;
     public CommandParser parser;
     public Monster monster;
     Player player = null;
+    private final Session session;
+    private final GameContext context;
+    private final String playerType;
+    /** A new game waits for the name of the player's character first */
+    private boolean naming = false;
 
-    public Game(Player player, String playerType) throws DeathException {
-          this.parser = new CommandParser(player);
+    public Game(Session session, GameContext context, Player player, String playerType) {
+          this.session = session;
+          this.context = context;
+          this.monsterFactory = new MonsterFactory(context.getItemRepository());
+          this.parser = new CommandParser(context);
           this.player = player;
-          switch (playerType) {
-              case "new":
-                  newGameStart(player);
-                  break;
-              case "old":
-                  QueueProvider.offer("Welcome back, " + player.getName() + "!");
-                  QueueProvider.offer("");
-                  player.getLocation().print();
-                  gamePrompt(player);
-                  break;
-              default:
-                  QueueProvider.offer("Invalid player type");
-                  break;
-          }
+          this.playerType = playerType;
+          context.setPlayer(player);
     }
-   
+
+    @Override
+    protected void start() {
+        session.setPlayer(player);
+        switch (playerType) {
+            case "new":
+                session.offer(player.getIntro());
+                naming = true;
+                break;
+            case "old":
+                session.offer("Welcome back, " + player.getName() + "!");
+                session.offer("");
+                player.getLocation().print();
+                break;
+            default:
+                session.offer("Invalid player type");
+                finish();
+                break;
+        }
+    }
+
+    @Override
+    protected void prompt() {
+        if (!naming) {
+            session.emit(PromptEvent.GAME);
+        }
+    }
+
+    /**
+     * This is the main loop for the player-game interaction. It checks if
+     * the input is a recognised command.
+     *
+     * The game goes on as long as the player didn't type an exit command.
+     */
+    @Override
+    protected void handle(String input) throws DeathException {
+        if (naming) {
+            naming = false;
+            newGameStart(input);
+        } else {
+            play(Macros.expand(input, player.getMacros()));
+        }
+    }
+
+    /**
+     * Plays the commands of one line in turn. The rest are dropped once a
+     * command starts a battle, a conversation or another menu, as they
+     * were meant for the game prompt. Dying ends them as well.
+     */
+    private void play(List<String> commands) throws DeathException {
+        for (int i = 0; i < commands.size(); i++) {
+            if (!parser.parse(player, commands.get(i))) {
+                finish();
+                return;
+            }
+            if (!isCurrent()) {
+                int dropped = commands.size() - i - 1;
+                if (dropped > 0) {
+                    session.offer("(" + dropped + " more command" + (dropped > 1 ? "s" : "") + " dropped)");
+                }
+                return;
+            }
+        }
+    }
+
     /**
      * Starts a new game.
-     * It prints the introduction text first and asks for the name of the player's
-     * character and welcomes him / her. After that, it goes to the normal game prompt.
+     * The introduction text has been shown, the input is the name of the
+     * player's character who is welcomed. After that, it goes to the normal
+     * game prompt.
      */
-    public void newGameStart(Player player) throws DeathException {
-        QueueProvider.offer(player.getIntro());
-        String userInput = QueueProvider.take();
-        player.setName(userInput);
-        LocationRepository locationRepo = GameBeans.getLocationRepository(player.getName());
+    private void newGameStart(String name) {
+        player.setName(name);
+        LocationRepository locationRepo = context.loadLocations(player.getName());
+        this.player.setLocationRepository(locationRepo);
         this.player.setLocation(locationRepo.getInitialLocation());
         player.save();
-        QueueProvider.offer("Welcome to Silliya, " + player.getName() + ".");
+        session.offer("Welcome to Silliya, " + player.getName() + ".");
         player.getLocation().print();
-        gamePrompt(player);
+    }
+
+    @Override
+    protected boolean died(DeathException e) {
+        if (e.getLocalisedMessage().equals("replay")) {
+            finish();
+            return true;
+        }
+        return false;
     }
 
     /**
-     * This is the main loop for the player-game interaction. It gets input from the
-     * command line and checks if it is a recognised command.
-     *
-     * This keeps looping as long as the player didn't type an exit command.
+     * If the session is closed under the player, for example after being
+     * idle for too long, the game is saved.
      */
-    public void gamePrompt(Player player) throws DeathException {
-        boolean continuePrompt = true;
-        try {
-            while (continuePrompt) {
-                QueueProvider.offer("\nPrompt:");
-                String command = QueueProvider.take().toLowerCase();
-                continuePrompt = parser.parse(player, command);
-            }
-        } catch (DeathException e) {
-            if (e.getLocalisedMessage().equals("replay")) {
-                return;
-            } else {
-                throw e;
-            }
+    @Override
+    protected void closed(SessionClosedException e) {
+        if (!naming && !e.isGameSaved()) {
+            player.save();
         }
     }
+
+    @Override
+    protected void ended() {
+        session.setPlayer(null);
+    }
 }
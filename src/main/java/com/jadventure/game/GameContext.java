@@ -0,0 +1,74 @@
+package com.jadventure.game;
+
+import com.jadventure.game.conversation.ConversationManager;
+import com.jadventure.game.entities.Player;
+import com.jadventure.game.repository.ItemRepository;
+import com.jadventure.game.repository.LocationRepository;
+import com.jadventure.game.repository.NpcRepository;
+
+/**
+ * Holds everything a single game works with.
+ *
+ * The items are only ever read, so one ItemRepository is loaded and shared
+ * by the contexts of all sessions. The player, the world and the npcs in it
+ * are changed while playing and belong to one context, so any number of
+ * games can run in the same JVM without seeing each other's state.
+ */
+public class GameContext {
+    private final ItemRepository itemRepository;
+    private NpcRepository npcRepository;
+    private LocationRepository locationRepository;
+    private ConversationManager conversationManager;
+    private Player player;
+
+    public GameContext(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    public ItemRepository getItemRepository() {
+        return itemRepository;
+    }
+
+    /**
+     * Returns the npcs of the world being played.
+     */
+    public NpcRepository getNpcRepository() {
+        if (npcRepository == null) {
+            npcRepository = NpcRepository.createRepo(itemRepository);
+        }
+        return npcRepository;
+    }
+
+    /**
+     * Returns the world being played, or null if no game was started or
+     * loaded yet.
+     */
+    public LocationRepository getLocationRepository() {
+        return locationRepository;
+    }
+
+    /**
+     * Loads the world of the given profile, with npcs of its own, and makes
+     * it the world being played.
+     */
+    public LocationRepository loadLocations(String profileName) {
+        npcRepository = NpcRepository.createRepo(itemRepository);
+        locationRepository = new LocationRepository(profileName, itemRepository, npcRepository);
+        return locationRepository;
+    }
+
+    public ConversationManager getConversationManager() {
+        if (conversationManager == null) {
+            conversationManager = new ConversationManager(getNpcRepository());
+        }
+        return conversationManager;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public void setPlayer(Player player) {
+        this.player = player;
+    }
+}
@@ -6,6 +6,7 @@ package com.jadventure.game;
  * <li>stand-alone<p>Single computer, Single player (default mode)</p></li> 
  * <li>client server<p>Single or Multiple computer(s), Multiple players possible</p></li>
  * </ul>
+ * The load mode plays a server with bots to measure it.
  */
 public enum GameModeType {
     /** Stand alone architecture */
@@ -13,5 +14,7 @@ public enum GameModeType {
     /** The Client part of the Client / Server architecture */
     CLIENT,
     /** The Server part of the Client / Server architecture */
-    SERVER
+    SERVER,
+    /** Bots playing a Server, see LoadGenerator */
+    LOAD
 }
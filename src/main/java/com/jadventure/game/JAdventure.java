@@ -1,10 +1,13 @@
 package com.jadventure.game;
 
 import com.jadventure.game.menus.MainMenu;
+import com.jadventure.game.repository.ItemRepository;
+import com.jadventure.game.server.GameServer;
+import com.jadventure.game.server.ServerConfig;
 
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,43 +26,48 @@ public class JAdventure {
         GameModeType mode = getGameMode(args);
         logger.debug("Starting in mode " + mode.name());
         String serverName = "localhost";
-        int port = 4044;
-        if (mode == GameModeType.SERVER) {
-            port = Integer.parseInt(args[1]);
-        } else if (mode == GameModeType.CLIENT) {
+        int port = ServerConfig.DEFAULT_PORT;
+        if (mode == GameModeType.CLIENT) {
             serverName = args[2];
             port = Integer.parseInt(args[1]);
         }
         if (GameModeType.CLIENT == mode) {
-            new Client(serverName, port);
+            List<String> options = Arrays.asList(args);
+            new Client(serverName, port, !options.contains("--no-compression"), options.contains("--json"));
         } else if (GameModeType.SERVER == mode) {
-            while (true) {
-            	ServerSocket listener = null;
-                try {
-                    listener = new ServerSocket(port);
-                    while (true) {
-                        Socket server = listener.accept();
-                        Runnable r = new MainMenu(server, mode);
-                        new Thread(r).start();
-                    }
-                } catch (IOException c) {
-                    c.printStackTrace();
-                } finally {
-                	try {
-						listener.close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-                }
+            try {
+                final GameServer server = new GameServer(ServerConfig.fromArgs(args));
+                server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown, "jadventure-shutdown"));
+                server.run();
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Unable to run the server", e);
+                System.exit(-1);
+            }
+        } else if (GameModeType.LOAD == mode) {
+            try {
+                LoadGenerator.fromArgs(args).run();
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Unable to generate load", e);
+                System.exit(-1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (args.length > 0 && args[0].startsWith("--script")) {
+            try {
+                ScriptRunner.fromArgs(args).run();
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Unable to play the scripts", e);
+                System.exit(-1);
             }
         } else {
-            QueueProvider.startMessenger(GameModeType.STAND_ALONE);
-            new MainMenu();
+            ConsoleSession session = new ConsoleSession();
+            session.play(new MainMenu(session, new GameContext(ItemRepository.createRepo())));
         }
     }
 
     private static GameModeType getGameMode(String[] args) {
-        if (args == null || args.length == 0 || "".equals(args[0].trim())) {
+        if (args == null || args.length == 0 || "".equals(args[0].trim()) || args[0].startsWith("--")) {
             return GameModeType.STAND_ALONE;
         }
 
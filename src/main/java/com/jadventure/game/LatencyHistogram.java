@@ -0,0 +1,97 @@
+package com.jadventure.game;
+
+/**
+ * Counts latencies in buckets that are about 3% wide, from a microsecond
+ * to over an hour, so percentiles can be taken without keeping every
+ * value. Not thread safe, every thread records into its own histogram
+ * and they are merged when the counting is done.
+ */
+public class LatencyHistogram {
+    /** Bits of a value that select the bucket within a power of two */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    /**
+     * Records one latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts[indexOf(micros)]++;
+        count++;
+        sum += micros;
+        max = Math.max(max, micros);
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the largest latency recorded, in microseconds.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean latency, in microseconds.
+     */
+    public double getMean() {
+        return (count == 0) ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the latency, in microseconds, that the given percentage of
+     * the recorded latencies doesn't exceed. The answer is the upper end
+     * of the bucket the percentile falls into, but never more than the
+     * largest latency recorded.
+     */
+    public long getPercentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestValueIn(i));
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,521 @@
+package com.jadventure.game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.jadventure.game.protocol.Frame;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+import com.jadventure.game.server.ServerConfig;
+
+/**
+ * Measures a running game server by playing it with bots, the load
+ * generating counterpart of the Client:
+ *
+ *     java -jar jadventure-XX.jar load 4044 [localhost] [--bots=N] [--duration=S] ...
+ *
+ * Every bot connects on its own, creates a character and plays until the
+ * duration is over or it has sent --commands commands. At the game's
+ * prompt it picks a command from the weighted --mix, or the next line of
+ * a recorded --script. Menus in between, like the ones of a battle, are
+ * answered so the bot gets back to the game.
+ *
+ * The time from sending a line of input to the server's next prompt is
+ * recorded per command. At the end the percentiles, the throughput and
+ * the errors are printed.
+ */
+public class LoadGenerator {
+    private static final String DEFAULT_MIX = "go:40,lookaround:20,attack:15,talk:10,save:5";
+    private static final String[] DIRECTIONS = {"n", "s", "e", "w"};
+
+    private String host = "localhost";
+    private int port = ServerConfig.DEFAULT_PORT;
+    private int bots = 10;
+    /** Seconds to play for, 0 to play until every bot has sent its commands */
+    private int duration = 30;
+    /** Commands every bot sends at most, 0 for no limit */
+    private int commands = 0;
+    /** Milliseconds a bot waits between two commands */
+    private int thinkTime = 0;
+    /** Seconds a bot waits for the server's prompt before giving up */
+    private int timeout = 10;
+    private boolean compression = true;
+    private long seed = System.nanoTime();
+    private final Map<String, Integer> mix = new LinkedHashMap<>();
+    private List<String> script = null;
+    private PrintStream output = System.out;
+
+    public LoadGenerator() {
+        setMix(DEFAULT_MIX);
+    }
+
+    public static LoadGenerator fromArgs(String[] args) throws IOException {
+        LoadGenerator generator = new LoadGenerator();
+        if (args.length > 1 && !args[1].startsWith("--")) {
+            generator.setPort(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2 && !args[2].startsWith("--")) {
+            generator.setHost(args[2]);
+        }
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                continue;
+            }
+            int split = arg.indexOf('=');
+            String name = (split < 0) ? arg.substring(2) : arg.substring(2, split);
+            String value = (split < 0) ? "true" : arg.substring(split + 1);
+            generator.setOption(name, value);
+        }
+        return generator;
+    }
+
+    protected void setOption(String name, String value) throws IOException {
+        switch (name) {
+            case "bots":
+                setBots(Integer.parseInt(value));
+                break;
+            case "duration":
+                setDuration(Integer.parseInt(value));
+                break;
+            case "commands":
+                setCommands(Integer.parseInt(value));
+                break;
+            case "think":
+                setThinkTime(Integer.parseInt(value));
+                break;
+            case "timeout":
+                setTimeout(Integer.parseInt(value));
+                break;
+            case "compression":
+                setCompression(Boolean.parseBoolean(value));
+                break;
+            case "seed":
+                setSeed(Long.parseLong(value));
+                break;
+            case "mix":
+                setMix(value);
+                break;
+            case "script":
+                setScript(Files.readAllLines(Paths.get(value), StandardCharsets.UTF_8));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown load option '--" + name + "'");
+        }
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setBots(int bots) {
+        if (bots < 1) {
+            throw new IllegalArgumentException("At least one bot is needed");
+        }
+        this.bots = bots;
+    }
+
+    public void setDuration(int duration) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("The duration can't be negative");
+        }
+        this.duration = duration;
+    }
+
+    public void setCommands(int commands) {
+        if (commands < 0) {
+            throw new IllegalArgumentException("The number of commands can't be negative");
+        }
+        this.commands = commands;
+    }
+
+    public void setThinkTime(int thinkTime) {
+        this.thinkTime = thinkTime;
+    }
+
+    public void setTimeout(int timeout) {
+        if (timeout < 1) {
+            throw new IllegalArgumentException("The timeout must be at least a second");
+        }
+        this.timeout = timeout;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the commands bots choose from and their weights, given as
+     * <code>command:weight,...</code>.
+     */
+    public void setMix(String weights) {
+        mix.clear();
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.split(":");
+            int weight = (parts.length > 1) ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(parts[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The command mix is empty");
+        }
+    }
+
+    /**
+     * Makes the bots play the given commands, over and over, instead of
+     * choosing from the mix.
+     */
+    public void setScript(List<String> script) {
+        List<String> commands = new ArrayList<>();
+        for (String line : script) {
+            if (!line.trim().isEmpty()) {
+                commands.add(line.trim());
+            }
+        }
+        if (commands.isEmpty()) {
+            throw new IllegalArgumentException("The script has no commands");
+        }
+        this.script = commands;
+    }
+
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Plays the server with all bots until they're done, prints the
+     * results and returns them.
+     */
+    public Results run() throws InterruptedException {
+        if (duration == 0 && commands == 0) {
+            throw new IllegalArgumentException("Either a duration or a number of commands is needed");
+        }
+        long start = System.nanoTime();
+        long deadline = (duration == 0) ? Long.MAX_VALUE : start + TimeUnit.SECONDS.toNanos(duration);
+        List<Bot> players = new ArrayList<>();
+        Random seeds = new Random(seed);
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("jadventure-bot-", 1).factory());
+        for (int i = 1; i <= bots; i++) {
+            Bot bot = new Bot("LoadBot" + i, new Random(seeds.nextLong()), deadline);
+            players.add(bot);
+            executor.execute(bot);
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        Results results = new Results(bots, System.nanoTime() - start);
+        for (Bot bot : players) {
+            results.add(bot);
+        }
+        results.print(output);
+        return results;
+    }
+
+    /**
+     * What the bots measured, added up.
+     */
+    public static class Results {
+        private final int bots;
+        private final long nanos;
+        private final Map<String, LatencyHistogram> latencies = new TreeMap<>();
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final Map<String, Integer> errors = new TreeMap<>();
+
+        Results(int bots, long nanos) {
+            this.bots = bots;
+            this.nanos = nanos;
+        }
+
+        void add(Bot bot) {
+            for (Map.Entry<String, LatencyHistogram> entry : bot.latencies.entrySet()) {
+                latencies.computeIfAbsent(entry.getKey(), k -> new LatencyHistogram()).merge(entry.getValue());
+                total.merge(entry.getValue());
+            }
+            for (Map.Entry<String, Integer> entry : bot.errors.entrySet()) {
+                errors.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+
+        /**
+         * Returns the latencies of the given command, null if it wasn't sent.
+         */
+        public LatencyHistogram getLatencies(String command) {
+            return latencies.get(command);
+        }
+
+        public LatencyHistogram getTotal() {
+            return total;
+        }
+
+        public int getErrors() {
+            int count = 0;
+            for (int errorCount : errors.values()) {
+                count += errorCount;
+            }
+            return count;
+        }
+
+        /**
+         * Returns the number of commands answered per second.
+         */
+        public double getThroughput() {
+            return total.getCount() / (nanos / 1e9);
+        }
+
+        public void print(PrintStream output) {
+            output.println(String.format("%-12s %8s %9s %9s %9s %9s", "command", "count",
+                    "p50 ms", "p99 ms", "p999 ms", "max ms"));
+            for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+                printLine(output, entry.getKey(), entry.getValue());
+            }
+            printLine(output, "all", total);
+            output.println(String.format("%.1f commands/s from %d bots in %.1f s", getThroughput(), bots, nanos / 1e9));
+            output.println(getErrors() + " errors" + (errors.isEmpty() ? "" : " " + errors));
+        }
+
+        private static void printLine(PrintStream output, String command, LatencyHistogram histogram) {
+            output.println(String.format("%-12s %8d %9.2f %9.2f %9.2f %9.2f", command, histogram.getCount(),
+                    histogram.getPercentile(50) / 1000.0, histogram.getPercentile(99) / 1000.0,
+                    histogram.getPercentile(99.9) / 1000.0, histogram.getMax() / 1000.0));
+        }
+    }
+
+    /**
+     * One simulated player. Runs a game after the other on a connection of
+     * its own until it's done, an error ends a game early.
+     */
+    class Bot implements Runnable {
+        private static final long ERROR_PAUSE = 100;
+
+        private final String name;
+        private final Random random;
+        private final long deadline;
+        private final FrameCodec codec = new FrameCodec();
+        private final Map<String, LatencyHistogram> latencies = new TreeMap<>();
+        private final Map<String, Integer> errors = new TreeMap<>();
+        /** NPCs and monsters the bot has last been told about */
+        private final List<String> targets = new ArrayList<>();
+        private int sent = 0;
+        private int scriptLine = 0;
+        private boolean naming = false;
+        /** What the latency of the last answer is recorded under */
+        private String label;
+
+        Bot(String name, Random random, long deadline) {
+            this.name = name;
+            this.random = random;
+            this.deadline = deadline;
+        }
+
+        private boolean isDone() {
+            return (commands > 0 && sent >= commands) || System.nanoTime() >= deadline;
+        }
+
+        public void run() {
+            try {
+                while (!isDone()) {
+                    try {
+                        play();
+                    } catch (SocketTimeoutException ste) {
+                        error("timeout");
+                    } catch (EOFException eofe) {
+                        error("disconnected");
+                    } catch (IOException ioe) {
+                        error(ioe.getClass().getSimpleName());
+                    }
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void error(String kind) throws InterruptedException {
+            errors.merge(kind, 1, Integer::sum);
+            Thread.sleep(ERROR_PAUSE);
+        }
+
+        /**
+         * Plays one connection's game, returns once the bot is done or the
+         * server has ended the game.
+         */
+        private void play() throws IOException, InterruptedException {
+            naming = false;
+            try (Socket socket = new Socket(host, port)) {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(timeout));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                FrameCodec reader = new FrameCodec();
+                try {
+                    codec.write(out, FrameType.HELLO, 0, compression ? "deflate" : "");
+                    List<String> lines = new ArrayList<>();
+                    if (!readTurn(reader, in, lines)) {
+                        error("disconnected");
+                        return;
+                    }
+                    while (!isDone()) {
+                        if (thinkTime > 0) {
+                            Thread.sleep(thinkTime);
+                        }
+                        String command = answer(lines);
+                        lines.clear();
+                        long sentAt = System.nanoTime();
+                        codec.write(out, FrameType.INPUT, 0, command);
+                        boolean prompted = readTurn(reader, in, lines);
+                        long latency = System.nanoTime() - sentAt;
+                        sent++;
+                        latencies.computeIfAbsent(label, k -> new LatencyHistogram()).record(latency);
+                        if (!prompted) {
+                            return;
+                        }
+                    }
+                    socket.shutdownOutput();
+                    while (readTurn(reader, in, lines)) {
+                        // the game is left like at the end of the input
+                    }
+                } finally {
+                    reader.end();
+                }
+            }
+        }
+
+        /**
+         * Reads the server's output up to its next prompt. Returns false if
+         * the game ended instead.
+         */
+        private boolean readTurn(FrameCodec reader, DataInputStream in, List<String> lines) throws IOException {
+            Frame frame;
+            while ((frame = reader.read(in)) != null) {
+                switch (frame.getType()) {
+                    case PROMPT:
+                        return true;
+                    case EXIT:
+                        return false;
+                    case HELLO:
+                        if (Arrays.asList(frame.getPayload().split(",")).contains("deflate")) {
+                            reader.enableDecompression();
+                        }
+                        break;
+                    case OUTPUT:
+                        lines.addAll(Arrays.asList(frame.getPayload().split("\n")));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            throw new EOFException("Connection closed by the server");
+        }
+
+        /**
+         * Chooses what to type after the given output, like a player would.
+         * The latencies of game commands are recorded under the command,
+         * the ones of battles under "battle" and everything else under "menu".
+         */
+        private String answer(List<String> lines) {
+            rememberTargets(lines);
+            label = "menu";
+            if (naming) {
+                naming = false;
+                return name;
+            } else if (lines.contains("Prompt:")) {
+                return nextCommand();
+            } else if (lines.contains("[1] Start - Starts a new Game")) {
+                return "start";
+            } else if (lines.contains("Choose a class to get started with:")) {
+                naming = true;
+                return "recruit";
+            } else if (lines.contains("You died... Start again? (y/n)")) {
+                return "y";
+            } else if (lines.contains("What is your choice?")) {
+                label = "battle";
+                return "attack";
+            }
+            for (String line : lines) {
+                if (line.startsWith("[1] ")) {
+                    return "1";
+                }
+            }
+            return nextCommand();
+        }
+
+        private void rememberTargets(List<String> lines) {
+            boolean listing = false;
+            for (String line : lines) {
+                if (line.equals("NPCs:") || line.equals("Monsters around you:")) {
+                    targets.clear();
+                    listing = true;
+                } else if (!listing || line.startsWith("-")) {
+                    continue;
+                } else if (line.trim().isEmpty()) {
+                    listing = false;
+                } else {
+                    targets.add(line.trim());
+                }
+            }
+        }
+
+        private String nextCommand() {
+            if (script != null) {
+                String command = script.get(scriptLine++ % script.size());
+                label = command.split(" ")[0];
+                return command;
+            }
+            int total = 0;
+            for (int weight : mix.values()) {
+                total += weight;
+            }
+            int pick = random.nextInt(total);
+            String command = null;
+            for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+                command = entry.getKey();
+                pick -= entry.getValue();
+                if (pick < 0) {
+                    break;
+                }
+            }
+            label = command;
+            switch (command) {
+                case "go":
+                    return "go " + DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+                case "attack":
+                case "talk":
+                    if (targets.isEmpty()) {
+                        label = "monster";
+                        return "monster";
+                    }
+                    return command + " " + targets.get(random.nextInt(targets.size()));
+                default:
+                    return command;
+            }
+        }
+    }
+}
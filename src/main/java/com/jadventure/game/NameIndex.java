@@ -0,0 +1,297 @@
+package com.jadventure.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Finds the things in one place, the backpack or the NPCs at a location,
+ * by the name the player typed. It is kept up to date as things come and
+ * go instead of being rebuilt for every lookup.
+ *
+ * A name is found, ignoring case, in this order:
+ * <ol>
+ * <li>the whole name, "wooden shield"</li>
+ * <li>the start of the name or of one of its words, "wood" or "shi",
+ * as long as only one name starts that way</li>
+ * <li>a name one typo away, or two for names of seven letters or more,
+ * "troll" for "trool" or "shield" for "shied", if only one is closest</li>
+ * </ol>
+ * The typos are looked up in a BK-tree, which only compares the name with
+ * a few of the names in it.
+ */
+public class NameIndex<T> {
+    /** Everything in the index by its lowercased name */
+    private final TreeMap<String, List<T>> byName = new TreeMap<>();
+    /** The names by every word they have and the rest of the name after it */
+    private final TreeMap<String, Set<String>> byWord = new TreeMap<>();
+    /** Every name ever added, the names no longer in byName are left in it */
+    private Node tree;
+    private int treeSize;
+
+    public void add(String name, T value) {
+        String key = fold(name);
+        List<T> values = byName.get(key);
+        if (values == null) {
+            values = new ArrayList<>(1);
+            byName.put(key, values);
+            for (String words : wordStarts(key)) {
+                byWord.computeIfAbsent(words, k -> new HashSet<>()).add(key);
+            }
+            addToTree(key);
+        }
+        values.add(value);
+    }
+
+    /**
+     * Removes the value added with the name, the same object if it is
+     * there or else one equal to it.
+     */
+    public void remove(String name, T value) {
+        String key = fold(name);
+        List<T> values = byName.get(key);
+        if (values == null) {
+            return;
+        }
+        int index = -1;
+        for (int i = 0; i < values.size() && index < 0; i++) {
+            if (values.get(i) == value) {
+                index = i;
+            }
+        }
+        if (index < 0) {
+            index = values.indexOf(value);
+        }
+        if (index < 0) {
+            return;
+        }
+        values.remove(index);
+        if (values.isEmpty()) {
+            byName.remove(key);
+            for (String words : wordStarts(key)) {
+                Set<String> names = byWord.get(words);
+                names.remove(key);
+                if (names.isEmpty()) {
+                    byWord.remove(words);
+                }
+            }
+            if (treeSize > 2 * byName.size() + 16) {
+                rebuildTree();
+            }
+        }
+    }
+
+    public void clear() {
+        byName.clear();
+        byWord.clear();
+        tree = null;
+        treeSize = 0;
+    }
+
+    public boolean isEmpty() {
+        return byName.isEmpty();
+    }
+
+    /**
+     * Returns everything going by the name the player typed, an empty list
+     * if nothing does or if it could be more than one thing. The list is
+     * only valid until the index changes.
+     */
+    public List<T> find(String typed) {
+        String key = fold(typed);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> values = byName.get(key);
+        if (values != null) {
+            return Collections.unmodifiableList(values);
+        }
+        String name = findPrefix(key);
+        if (name == null) {
+            name = findClosest(key);
+        }
+        return (name != null) ? Collections.unmodifiableList(byName.get(name)) : Collections.<T>emptyList();
+    }
+
+    private String findPrefix(String key) {
+        SortedMap<String, Set<String>> starting = byWord.subMap(key, key + Character.MAX_VALUE);
+        String found = null;
+        for (Set<String> names : starting.values()) {
+            for (String name : names) {
+                if (found == null) {
+                    found = name;
+                } else if (!found.equals(name)) {
+                    return null;
+                }
+            }
+        }
+        return found;
+    }
+
+    private String findClosest(String key) {
+        int limit = maxDistance(key.length());
+        if (limit == 0 || tree == null) {
+            return null;
+        }
+        Closest closest = new Closest(limit);
+        tree.search(key, closest);
+        return closest.ambiguous ? null : closest.name;
+    }
+
+    /**
+     * Returns how many typos a name of the length may have.
+     */
+    private static int maxDistance(int length) {
+        if (length < 4) {
+            return 0;
+        }
+        return (length < 7) ? 1 : 2;
+    }
+
+    private void addToTree(String key) {
+        if (tree == null) {
+            tree = new Node(key);
+            treeSize = 1;
+        } else if (tree.add(key)) {
+            treeSize++;
+        }
+    }
+
+    private void rebuildTree() {
+        tree = null;
+        treeSize = 0;
+        for (String key : byName.keySet()) {
+            addToTree(key);
+        }
+    }
+
+    private static String fold(String name) {
+        return name.trim().toLowerCase();
+    }
+
+    /**
+     * Returns the name from the start of every word on: "wooden shield"
+     * and "shield".
+     */
+    private static List<String> wordStarts(String key) {
+        List<String> starts = new ArrayList<>(2);
+        starts.add(key);
+        for (int i = 1; i < key.length(); i++) {
+            if (key.charAt(i - 1) == ' ' && key.charAt(i) != ' ') {
+                starts.add(key.substring(i));
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the number of letters to add, remove or change to make one
+     * name the other, or limit + 1 once it is more than limit.
+     */
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    /**
+     * The live names closest to the one searched for.
+     */
+    private final class Closest {
+        int distance;
+        String name;
+        boolean ambiguous;
+
+        Closest(int limit) {
+            this.distance = limit;
+        }
+
+        void offer(String candidate, int candidateDistance) {
+            if (!byName.containsKey(candidate) || candidateDistance > distance) {
+                return;
+            }
+            if (name == null || candidateDistance < distance) {
+                name = candidate;
+                distance = candidateDistance;
+                ambiguous = false;
+            } else if (!name.equals(candidate)) {
+                ambiguous = true;
+            }
+        }
+    }
+
+    /**
+     * A node of the BK-tree. Its children are kept by their distance to
+     * it, so a search only visits the children whose distance can be
+     * within the limit of the name searched for.
+     */
+    private static final class Node {
+        private final String name;
+        private Map<Integer, Node> children;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        boolean add(String key) {
+            Node node = this;
+            while (true) {
+                int d = distance(key, node.name, Integer.MAX_VALUE - 1);
+                if (d == 0) {
+                    return false;
+                }
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+                Node child = node.children.get(d);
+                if (child == null) {
+                    node.children.put(d, new Node(key));
+                    return true;
+                }
+                node = child;
+            }
+        }
+
+        void search(String key, NameIndex<?>.Closest closest) {
+            int d = distance(key, name, Integer.MAX_VALUE - 1);
+            if (d <= closest.distance) {
+                closest.offer(name, d);
+            }
+            if (children == null) {
+                return;
+            }
+            for (Map.Entry<Integer, Node> child : children.entrySet()) {
+                if (Math.abs(child.getKey() - d) <= closest.distance) {
+                    child.getValue().search(key, closest);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.jadventure.game;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jadventure.game.menus.MainMenu;
+import com.jadventure.game.repository.ItemRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plays recorded transcripts without a terminal, one after the other and
+ * as fast as the game runs. A transcript is the input a player would type,
+ * one command per line, starting at the main menu:
+ *
+ *     java -jar jadventure-XX.jar --script playthrough.txt [--script ...] [--quiet] [--json]
+ *
+ * When a transcript ends before the game does the game is left as if the
+ * player typed "exit". With --quiet the game's output is thrown away, with
+ * --json it is printed as JSON lines.
+ */
+public class ScriptRunner {
+    private static Logger logger = LoggerFactory.getLogger(ScriptRunner.class);
+
+    private final List<File> scripts = new ArrayList<>();
+    private PrintStream output = System.out;
+    private boolean json = false;
+
+    public static ScriptRunner fromArgs(String[] args) {
+        ScriptRunner runner = new ScriptRunner();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--script") && i + 1 < args.length) {
+                runner.addScript(new File(args[++i]));
+            } else if (args[i].startsWith("--script=")) {
+                runner.addScript(new File(args[i].substring("--script=".length())));
+            } else if (args[i].equals("--quiet")) {
+                runner.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+            } else if (args[i].equals("--json")) {
+                runner.setJsonOutput(true);
+            } else {
+                throw new IllegalArgumentException("Unknown script option '" + args[i] + "'");
+            }
+        }
+        if (runner.scripts.isEmpty()) {
+            throw new IllegalArgumentException("No script given, use --script <file>");
+        }
+        return runner;
+    }
+
+    public void addScript(File script) {
+        scripts.add(script);
+    }
+
+    public void setOutput(PrintStream output) {
+        this.output = output;
+    }
+
+    public void setJsonOutput(boolean json) {
+        this.json = json;
+    }
+
+    /**
+     * Plays every script and returns how many were played.
+     */
+    public int run() throws IOException {
+        long start = System.nanoTime();
+        int played = 0;
+        ItemRepository itemRepository = ItemRepository.createRepo();
+        for (File script : scripts) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(script))) {
+                ConsoleSession session = new ConsoleSession(in, output);
+                session.setJsonOutput(json);
+                session.play(new MainMenu(session, new GameContext(itemRepository)));
+            }
+            played++;
+        }
+        output.flush();
+        long millis = (System.nanoTime() - start) / 1000000;
+        logger.info("Played " + played + " scripts in " + millis + " ms");
+        return played;
+    }
+}
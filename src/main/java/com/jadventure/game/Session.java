@@ -0,0 +1,128 @@
+package com.jadventure.game;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.jadventure.game.entities.Player;
+import com.jadventure.game.events.OutputEvent;
+import com.jadventure.game.events.TextEvent;
+
+/**
+ * The input and output of one player's game.
+ *
+ * A session is created once per player (one per connection in server mode)
+ * and owns whatever streams and buffers it needs to talk to that player.
+ * It is bound to the thread running the game with QueueProvider.bind(),
+ * so QueueProvider.offer() reaches the right player. Where the player is
+ * in the game is kept by the flows on its FlowStack, which are handed the
+ * input by a BlockingSession's own thread or by the GameEngine.
+ *
+ * The output is shown as text, or sent as JSON lines, one OutputEvent per
+ * line, to a client that asked for it.
+ */
+public abstract class Session {
+    private boolean inputEnded = false;
+    private volatile Player player;
+    private final FlowStack flows = new FlowStack(this);
+    private volatile boolean jsonOutput = false;
+    /** The text of emitted events is rendered into this buffer, it is reused */
+    private final StringBuilder text = new StringBuilder();
+    /** Not the buffer's monitor, write() may wait for a slow client on a virtual thread */
+    private final ReentrantLock textLock = new ReentrantLock();
+
+    /**
+     * Sends one message to the player, as a "text" event in JSON output.
+     */
+    public void offer(String message) {
+        write(jsonOutput ? new TextEvent(message).toJson() : message);
+    }
+
+    /**
+     * Sends a typed event to the player, as its text or as a JSON line.
+     * The text is rendered into a buffer the session reuses, an event sent
+     * as JSON is never rendered.
+     */
+    public void emit(OutputEvent event) {
+        if (jsonOutput) {
+            write(event.toJson());
+            return;
+        }
+        textLock.lock();
+        try {
+            text.setLength(0);
+            if (event.appendText(text)) {
+                write(text);
+            }
+        } finally {
+            textLock.unlock();
+        }
+    }
+
+    /**
+     * Sends output as it is, a line or several separated by newlines. The
+     * text may be a buffer that is reused once write() returns.
+     */
+    protected abstract void write(CharSequence text);
+
+    public boolean isJsonOutput() {
+        return jsonOutput;
+    }
+
+    /**
+     * Makes the session send its output as JSON lines instead of text.
+     */
+    public void setJsonOutput(boolean jsonOutput) {
+        this.jsonOutput = jsonOutput;
+    }
+
+    /**
+     * What the flows are handed once the player's input has ended. The first
+     * time that is "exit", which leaves the game and the menus knowing it.
+     * After that the session is over and a SessionClosedException is
+     * thrown, so a menu without an exit can't keep asking forever.
+     */
+    protected String endOfInput() {
+        if (inputEnded) {
+            throw new SessionClosedException("No more input for " + this);
+        }
+        inputEnded = true;
+        return "exit";
+    }
+
+    /**
+     * Returns the player of the game currently running in this session,
+     * null while the player is still in the main menu.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    public void setPlayer(Player player) {
+        this.player = player;
+    }
+
+    /**
+     * Returns the menus, prompts and battles the player is in.
+     */
+    public FlowStack getFlows() {
+        return flows;
+    }
+
+    /**
+     * Sends everything offered so far to the player right away instead of
+     * waiting for the next prompt. Does nothing by default.
+     */
+    public void flush() {
+    }
+
+    /**
+     * Tells the player that the game is over. Does nothing by default.
+     */
+    public void exit() {
+    }
+
+    /**
+     * Releases the streams of this session. Does nothing by default.
+     */
+    public void close() {
+    }
+}
@@ -0,0 +1,27 @@
+package com.jadventure.game;
+
+/**
+ * Thrown when the player's input has ended and the game keeps asking for
+ * more. The flows of the session are closed with it, by
+ * BlockingSession.play() or the GameEngine.
+ */
+public class SessionClosedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final boolean gameSaved;
+
+    public SessionClosedException(String message) {
+        this(message, false);
+    }
+
+    public SessionClosedException(String message, boolean gameSaved) {
+        super(message);
+        this.gameSaved = gameSaved;
+    }
+
+    /**
+     * Returns true if the game was already saved when the session closed.
+     */
+    public boolean isGameSaved() {
+        return gameSaved;
+    }
+}
@@ -1,59 +1,108 @@
 package com.jadventure.game;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.jadventure.game.entities.Entity;
 import com.jadventure.game.entities.NPC;
 import com.jadventure.game.entities.Player;
 import com.jadventure.game.items.Item;
+import com.jadventure.game.menus.Menu;
 import com.jadventure.game.menus.MenuItem;
 import com.jadventure.game.menus.Menus;
 import com.jadventure.game.repository.ItemRepository;
 
-public class Trading {
+/**
+ * Buying from and selling to an NPC. The trade goes on until the player
+ * chooses to exit.
+ */
+public class Trading extends Menus {
+    private enum State { MENU, BUYING, SELLING }
+
+    /** The trade menus so far by NPC name and what can be traded */
+    private static final Map<String, Menu> MENUS = new ConcurrentHashMap<>();
+
     NPC npc;
     Player player;
-    ItemRepository itemRepo = GameBeans.getItemRepository();
+    ItemRepository itemRepo;
+    private State state = State.MENU;
 
     public Trading(NPC npc, Player player) {
         this.npc = npc;
         this.player = player;
+        this.itemRepo = player.getItemRepository();
     }
 
+    /**
+     * Starts trading once the current input has been played.
+     */
     public void trade(boolean buy, boolean sell) {
+        String key = npc.getName() + (buy ? "|buy" : "") + (sell ? "|sell" : "");
+        menu = MENUS.computeIfAbsent(key, k -> buildMenu(npc.getName(), buy, sell));
+        QueueProvider.push(this);
+    }
+
+    private static Menu buildMenu(String npcName, boolean buy, boolean sell) {
         List<MenuItem> tradeList = new ArrayList<>();
-        String buyCommand = "Buy from " + npc.getName();
-        String sellCommand = "Sell to " + npc.getName();
         if (buy) {
-            tradeList.add(new MenuItem(buyCommand, null));
+            tradeList.add(new MenuItem("Buy from " + npcName, null));
         }
         if (sell) {
-            tradeList.add(new MenuItem(sellCommand, null));
+            tradeList.add(new MenuItem("Sell to " + npcName, null));
         }
         tradeList.add(new MenuItem("Exit", null));
-        Menus tradeMenu = new Menus();
-        MenuItem response = tradeMenu.displayMenu(tradeList);
+        return new Menu(tradeList);
+    }
+
+    @Override
+    protected void prompt() {
+        // buying and selling asked for the item already
+        if (state == State.MENU) {
+            super.prompt();
+        }
+    }
+
+    @Override
+    protected void handle(String input) throws DeathException {
+        switch (state) {
+            case BUYING:
+                state = State.MENU;
+                playerBuy(input);
+                break;
+            case SELLING:
+                state = State.MENU;
+                playerSell(input);
+                break;
+            default:
+                super.handle(input);
+                break;
+        }
+    }
+
+    @Override
+    protected void selected(MenuItem response) {
         String command = response.getCommand();
-        if (command.equals(buyCommand) && buy) {
-            playerBuy();
-        } else if (command.equals(sellCommand) && sell) {
-            playerSell();
+        if (command.startsWith("Buy from ")) {
+            showNpcItems();
+            state = State.BUYING;
+        } else if (command.startsWith("Sell to ")) {
+            showPlayerItems();
+            state = State.SELLING;
         } else if (command.equals("Exit")) {
-            return;
+            finish();
         }
-        trade(buy, sell);
     }
-    
-    public void playerBuy() {
+
+    private void showNpcItems() {
         QueueProvider.offer(npc.getName() + "'s items:\t" + npc.getName()  + "'s gold:" + npc.getGold() + "\n");
-        QueueProvider.offer(npc.getStorage().displayWithValue(0, 0));
+        QueueProvider.emit(npc.getStorage().displayWithValue(0, 0));
 
         QueueProvider.offer("You have " + player.getGold() + " gold coins.\nWhat do you want to buy?");
-        String itemName = QueueProvider.take();
+    }
 
+    public void playerBuy(String itemName) {
         if ("exit".equals(itemName) || "back".equals(itemName)) {
             return;
         }
@@ -72,13 +121,14 @@ public class Trading {
         }
     }
 
-    public void playerSell() {
+    private void showPlayerItems() {
         QueueProvider.offer(player.getName() + "'s items:\t" + npc.getName()  + "'s gold:" + npc.getGold() + "\n");
-        QueueProvider.offer(player.getStorage().displayWithValue(player.getLuck(), player.getIntelligence()));
+        QueueProvider.emit(player.getStorage().displayWithValue(player.getLuck(), player.getIntelligence()));
         
         QueueProvider.offer("You have " + player.getGold() + " gold coins.\nWhat do you want to sell?");
-        String itemName = QueueProvider.take();
- 
+    }
+
+    public void playerSell(String itemName) {
         if ("exit".equals(itemName) || "back".equals(itemName)) {
             return;
         }
@@ -98,24 +148,11 @@ public class Trading {
     }
 
     private Item tradeItem(Entity seller, Entity buyer, String itemName) {
-        List<Item> itemList = seller.getStorage().getItems();
-        Map<String, String> itemIds = new HashMap<>();
-        Map<String, Integer> itemValues = new HashMap<>();
-        Map<String, Item> itemIdtoItem = new HashMap<>();
-
-        for (Item item : itemList) {
-            String name = item.getName();
-            String id = item.getId();
-            int value = item.getProperties().get("value");
-            itemIds.put(name, id);
-            itemValues.put(id, value);
-            itemIdtoItem.put(id, item);
-        }
+        List<Item> items = seller.getStorage().search(itemName);
+        if (!items.isEmpty()) {
+            Item item = items.get(0);
+            int itemValue = item.getProperties().get("value");
 
-        if (itemIds.containsKey(itemName)) {
-            int itemValue = itemValues.get(itemIds.get(itemName));
-            Item item = itemIdtoItem.get(itemIds.get(itemName));
-            
             if(seller instanceof Player){
                 itemValue = (int)((0.5+0.02*(seller.getIntelligence()+seller.getLuck()))*itemValue);
             }
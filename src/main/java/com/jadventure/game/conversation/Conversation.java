@@ -0,0 +1,106 @@
+package com.jadventure.game.conversation;
+
+import com.jadventure.game.Flow;
+import com.jadventure.game.QueueProvider;
+import com.jadventure.game.Trading;
+import com.jadventure.game.entities.NPC;
+import com.jadventure.game.entities.Player;
+import com.jadventure.game.menus.MenuItem;
+import com.jadventure.game.menus.Menus;
+
+import java.util.List;
+
+/**
+ * A conversation with an NPC, from its starting line until a line the
+ * player can't answer.
+ *
+ * The NPC says a line and the player chooses one of the answers, whose
+ * action is played before the answers to it are offered. The action of
+ * the starting line is played once the player has answered it. An action
+ * starting a battle or a trade holds the conversation until it is over.
+ */
+class Conversation extends Menus {
+    private final NPC npc;
+    private final Player player;
+    private final List<Line> lines;
+    /** The starting line, until its action has been played */
+    private Line opening;
+    /** The line the player is answering */
+    private Line current;
+    /** What the conversation goes on with once the battle or trade is over */
+    private Runnable next;
+
+    Conversation(NPC npc, Player player, Line start, List<Line> lines) {
+        this.npc = npc;
+        this.player = player;
+        this.opening = start;
+        this.lines = lines;
+    }
+
+    @Override
+    protected void start() {
+        QueueProvider.offer(opening.getText());
+        offerResponses(opening);
+        if (menu == null) {
+            act(opening, this::finish);
+        }
+    }
+
+    @Override
+    protected void selected(MenuItem m) {
+        final Line response = current.getResponse(m, lines);
+        if (opening != null) {
+            Line first = opening;
+            opening = null;
+            act(first, () -> say(response));
+        } else {
+            say(response);
+        }
+    }
+
+    @Override
+    protected void resume(Flow child) {
+        Runnable then = next;
+        next = null;
+        if (then != null) {
+            then.run();
+        }
+    }
+
+    private void say(Line line) {
+        QueueProvider.offer(line.getText());
+        act(line, () -> {
+            offerResponses(line);
+            if (menu == null) {
+                finish();
+            }
+        });
+    }
+
+    private void offerResponses(Line line) {
+        current = line;
+        menu = line.getResponseMenu(npc, player, lines);
+    }
+
+    /**
+     * Plays the action of the line, then goes on with the conversation,
+     * right away or once the battle or trade it started is over.
+     */
+    private void act(Line line, Runnable then) {
+        switch (line.getAction()) {
+            case ATTACK:
+                QueueProvider.offer("\n" + npc.getName() + " is now attacking you!\n");
+                player.attack(npc.getName());
+                break;
+            case TRADE:
+                Trading t = new Trading(npc, player);
+                t.trade(true, true);
+                break;
+        }
+        if (isCurrent()) {
+            then.run();
+        } else {
+            next = then;
+        }
+    }
+}
@@ -1,13 +1,10 @@
 package com.jadventure.game.conversation;
 
-import com.jadventure.game.GameBeans;
 import com.jadventure.game.entities.NPC;
 import com.jadventure.game.entities.Player;
 import com.jadventure.game.items.Item;
 import com.jadventure.game.repository.ItemRepository;
 import com.jadventure.game.QueueProvider;
-import com.jadventure.game.DeathException;
-import com.jadventure.game.Trading;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -27,8 +24,7 @@ import java.util.Map;
 import java.util.Set;
 
 public class ConversationManager {
-    private static NpcRepository npcRepository;
-    private static ConversationManager instance = null;
+    private final NpcRepository npcRepository;
     private Map<NPC, List<Line>> lines = new HashMap<NPC, List<Line>>();
     private static final Map<String, ActionType> ACTION_TYPE_MAP = new HashMap<>();
     private static final Map<String, ConditionType> CONDITION_TYPE_MAP = new HashMap<>();
@@ -55,13 +51,6 @@ public class ConversationManager {
         load();
     }
 
-    public static ConversationManager getInstance() {
-        if (instance == null) {
-            instance = new ConversationManager(NpcRepository.createRepo());
-        }
-        return instance;
-    }
-
     private void load() {
         String fileName = "json/original_data/npcs.json";
         JsonParser parser = new JsonParser();
@@ -87,12 +76,12 @@ public class ConversationManager {
         List<Line> start = new ArrayList<>();
         int i = 0;
         for (JsonElement entry : conversation) {
-            start.add(getLine(i++, conversation));
+            start.add(getLine(npc, i++, conversation));
         }
         lines.put(npc, start);
     }
 
-    private Line getLine(int index, JsonArray conversation) {
+    private Line getLine(NPC npc, int index, JsonArray conversation) {
         JsonObject line = conversation.get(index).getAsJsonObject();
         List<Integer> responses = new ArrayList<>();
         if (line.get("response") != null) {
@@ -106,17 +95,20 @@ public class ConversationManager {
         ConditionType condition = CONDITION_TYPE_MAP.get(con[0]);
         String conditionParameter = (con.length == 1) ? "" : con[1];
         ActionType action = ACTION_TYPE_MAP.get(line.get("action").getAsString());
-        return new Line(index, playerPrompt, text, condition, conditionParameter, responses, action);
+        return new Line(npc.getId(), index, playerPrompt, text, condition, conditionParameter, responses, action);
     }
 
-    public void startConversation(NPC npc, Player player) throws DeathException {
+    /**
+     * Starts talking to the NPC once the current command has been played.
+     */
+    public void startConversation(NPC npc, Player player) {
         List<Line> conversation = findConversationLines(npc);
 
         if (conversation != null) {
             Line start = findStartingLine(conversation, npc, player);
 
             if (start != null) {
-                processLine(start, npc, player, conversation);
+                QueueProvider.push(new Conversation(npc, player, start, conversation));
             }
         }
     }
@@ -139,31 +131,6 @@ public class ConversationManager {
         return null;
     }
 
-    private void processLine(Line line, NPC npc, Player player, List<Line> conversation) throws DeathException {
-        QueueProvider.offer(line.getText());
-        Line response = line.display(npc, player, conversation);
-        triggerAction(line, npc, player);
-
-        while (response != null) {
-            QueueProvider.offer(response.getText());
-            triggerAction(response, npc, player);
-            response = response.display(npc, player, conversation);
-        }
-    }
-
-    private void triggerAction(Line line, NPC npc, Player player) throws DeathException {
-        switch (line.getAction()) {
-            case ATTACK:
-                QueueProvider.offer("\n" + npc.getName() + " is now attacking you!\n");
-                player.attack(npc.getName());
-                break;
-            case TRADE:
-                Trading t = new Trading(npc, player);
-                t.trade(true, true);
-                break;
-        }     
-    }
-
     public static boolean matchesConditions(NPC npc, Player player, Line line) {
         switch(line.getCondition()) {
             case ALLY:
@@ -174,7 +141,7 @@ public class ConversationManager {
                 int requiredLevel = Integer.parseInt(line.getConditionParameter());
                 return player.getLevel() >= requiredLevel;
             case ITEM:
-                ItemRepository itemRepo = GameBeans.getItemRepository();
+                ItemRepository itemRepo = player.getItemRepository();
                 Item requiredItem = itemRepo.getItem(line.getConditionParameter());
                 return player.hasItem(requiredItem);
             case CHAR_TYPE:
@@ -3,13 +3,23 @@ package com.jadventure.game.conversation;
 
 import com.jadventure.game.entities.NPC;
 import com.jadventure.game.entities.Player;
-import com.jadventure.game.menus.Menus;
+import com.jadventure.game.menus.Menu;
 import com.jadventure.game.menus.MenuItem;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Line {
+    /**
+     * The compiled answers of the lines of every conversation, by NPC and
+     * line id. Every game loads its own lines, the menus are shared.
+     */
+    private static final Map<String, Responses> RESPONSES = new ConcurrentHashMap<>();
+
+    /** The id of the NPC whose conversation this line is part of, null if it's not shared */
+    private final String conversation;
     private int id;
     private String playerPrompt;
     private String text;
@@ -17,9 +27,20 @@ public class Line {
     private String conditionParameter;
     private List<Integer> responses;
     private ActionType action;
+    private volatile Responses compiled;
 
     public Line(int id, String playerPrompt, String text, ConditionType condition, 
             String conditionParameter, List<Integer> responses, ActionType action) {
+        this(null, id, playerPrompt, text, condition, conditionParameter, responses, action);
+    }
+
+    /**
+     * @param conversation the id of the NPC the line belongs to, the lines
+     *        of the same NPC and id share their compiled menus
+     */
+    public Line(String conversation, int id, String playerPrompt, String text, ConditionType condition,
+            String conditionParameter, List<Integer> responses, ActionType action) {
+        this.conversation = conversation;
         this.id = id;
         this.playerPrompt = playerPrompt;
         this.text = text;
@@ -53,25 +74,90 @@ public class Line {
         return action;
     }
 
-    public Line display(NPC npc, Player player, List<Line> lines) {
-        if (responses.size() == 0) {
+    /**
+     * Returns the menu of the answers the player may give to this line,
+     * null if there are none. The menu of every combination of answers
+     * is compiled once, the conditions of the answers only choose which.
+     */
+    public Menu getResponseMenu(NPC npc, Player player, List<Line> lines) {
+        if (responses.size() > Long.SIZE) {
+            return compileResponseMenu(npc, player, lines);
+        }
+        long matching = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            if (ConversationManager.matchesConditions(npc, player, lines.get(responses.get(i)))) {
+                matching |= 1L << i;
+            }
+        }
+        if (matching == 0) {
             return null;
         }
+        Responses compiled = compiled();
+        Menu menu = compiled.menus.get(matching);
+        if (menu == null) {
+            menu = compileResponseMenu(npc, player, lines);
+            compiled.menus.put(matching, menu);
+        }
+        return menu;
+    }
+
+    private Menu compileResponseMenu(NPC npc, Player player, List<Line> lines) {
         List<MenuItem> responseList = new ArrayList<>();
-        for (Integer responseNum : responses) { 
-            Line response = lines.get(responseNum);
+        for (int i = 0; i < responses.size(); i++) {
+            Line response = lines.get(responses.get(i));
             if (ConversationManager.matchesConditions(npc, player, response)) {
-                responseList.add(new MenuItem(response.getPlayerPrompt(), null));
+                responseList.add(compiled().item(i, response));
             }
         }
-        Menus responseMenu = new Menus();
-        MenuItem response = responseMenu.displayMenu(responseList);
-        for (int responseNum : responses) {
-            Line possibleResponse = lines.get(responseNum);
-            if (possibleResponse.getPlayerPrompt().equals(response.getCommand())) {
-                return possibleResponse;
+        return responseList.isEmpty() ? null : new Menu(responseList);
+    }
+
+    private Responses compiled() {
+        Responses shared = compiled;
+        if (shared == null) {
+            int count = responses.size();
+            shared = (conversation == null) ? new Responses(count)
+                    : RESPONSES.computeIfAbsent(conversation + "#" + id, k -> new Responses(count));
+            compiled = shared;
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the answer the player chose from the menu of this line.
+     */
+    public Line getResponse(MenuItem item, List<Line> lines) {
+        int i = compiled().indexOf(item);
+        return (i < 0) ? null : lines.get(responses.get(i));
+    }
+
+    /**
+     * The menu items of the answers to one line and the menus compiled
+     * from them.
+     */
+    private static final class Responses {
+        /** The menus by which of the answers may be given, one bit each */
+        private final Map<Long, Menu> menus = new ConcurrentHashMap<>();
+        private final MenuItem[] items;
+
+        Responses(int count) {
+            this.items = new MenuItem[count];
+        }
+
+        synchronized MenuItem item(int i, Line response) {
+            if (items[i] == null) {
+                items[i] = new MenuItem(response.getPlayerPrompt(), null);
+            }
+            return items[i];
+        }
+
+        synchronized int indexOf(MenuItem item) {
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == item) {
+                    return i;
+                }
             }
+            return -1;
         }
-        return null;
     }
 }
@@ -0,0 +1,168 @@
+package com.jadventure.game.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import com.jadventure.game.Flow;
+import com.jadventure.game.FlowStack;
+import com.jadventure.game.QueueProvider;
+import com.jadventure.game.Session;
+import com.jadventure.game.SessionClosedException;
+import com.jadventure.game.events.OutputEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Session of a game run by the GameEngine.
+ *
+ * The session doesn't own a thread. Every command is played by handing it
+ * to the flows of the session on one of the engine's threads, after the
+ * command before it. The output is collected as events while the command
+ * is played, and the future of the command is completed with them once the
+ * flows wait for the next command or have all ended.
+ */
+class EngineSession extends Session {
+    private static Logger logger = LoggerFactory.getLogger(EngineSession.class);
+
+    private final String id;
+    private final Executor executor;
+    private final Runnable onExit;
+    private final CompletableFuture<List<GameEvent>> opening = new CompletableFuture<>();
+    private List<GameEvent> events = new ArrayList<>();
+    /** Completed with the events of the command being played */
+    private CompletableFuture<List<GameEvent>> turn;
+    /** Completed once the last command queued has been played */
+    private CompletableFuture<Void> queued = CompletableFuture.completedFuture(null);
+    private boolean inputClosed = false;
+    private boolean exited = false;
+
+    EngineSession(String id, Executor executor, Runnable onExit) {
+        this.id = id;
+        this.executor = executor;
+        this.onExit = onExit;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /**
+     * Starts the game with the flow given, its output up to the first
+     * prompt completes the opening.
+     */
+    synchronized void open(final Supplier<Flow> first) {
+        queue(opening, () -> getFlows().push(first.get()));
+    }
+
+    /**
+     * Returns the output the game started with, up to its first prompt.
+     */
+    CompletableFuture<List<GameEvent>> getOpening() {
+        return opening;
+    }
+
+    /**
+     * Queues a command for the game. A null command ends the input, the
+     * game then sees "exit", and a flow still left after that is closed.
+     */
+    synchronized CompletableFuture<List<GameEvent>> submit(final String command) {
+        CompletableFuture<List<GameEvent>> future = new CompletableFuture<>();
+        if (exited || inputClosed) {
+            future.completeExceptionally(new IllegalStateException("Session " + id + " has ended"));
+            return future;
+        }
+        inputClosed = (command == null);
+        queue(future, () -> play(command));
+        return future;
+    }
+
+    synchronized CompletableFuture<Void> getQueued() {
+        return queued;
+    }
+
+    private void queue(final CompletableFuture<List<GameEvent>> future, final Runnable step) {
+        queued = queued.thenRunAsync(() -> turn(future, step), executor);
+    }
+
+    private void play(String command) {
+        FlowStack flows = getFlows();
+        if (command != null) {
+            flows.input(command);
+            return;
+        }
+        flows.input(endOfInput());
+        if (!flows.isEmpty()) {
+            flows.close(new SessionClosedException("No more input for " + this));
+        }
+    }
+
+    private void turn(CompletableFuture<List<GameEvent>> future, Runnable step) {
+        synchronized (this) {
+            if (exited) {
+                future.completeExceptionally(new IllegalStateException("Session " + id + " has ended"));
+                return;
+            }
+            turn = future;
+        }
+        QueueProvider.bind(this);
+        try {
+            step.run();
+            if (getFlows().prompt()) {
+                synchronized (this) {
+                    events.add(new GameEvent(GameEvent.Type.PROMPT, ""));
+                    endTurn();
+                }
+                return;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Game of " + this + " failed", e);
+        } finally {
+            QueueProvider.unbind();
+        }
+        exit();
+    }
+
+    @Override
+    protected synchronized void write(CharSequence text) {
+        events.add(new GameEvent(GameEvent.Type.OUTPUT, text.toString()));
+    }
+
+    /**
+     * Keeps the typed event with the output, its text is only built if
+     * it is asked for.
+     */
+    @Override
+    public synchronized void emit(OutputEvent event) {
+        events.add(new GameEvent(event));
+    }
+
+    @Override
+    public void exit() {
+        synchronized (this) {
+            if (exited) {
+                return;
+            }
+            exited = true;
+            events.add(new GameEvent(GameEvent.Type.EXIT, ""));
+            endTurn();
+        }
+        onExit.run();
+    }
+
+    private void endTurn() {
+        if (turn != null) {
+            turn.complete(events);
+        }
+        events = new ArrayList<>();
+        turn = null;
+    }
+
+    @Override
+    public String toString() {
+        return "engine session " + id;
+    }
+}
@@ -0,0 +1,153 @@
+package com.jadventure.game.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jadventure.game.Game;
+import com.jadventure.game.GameContext;
+import com.jadventure.game.entities.Player;
+import com.jadventure.game.menus.MainMenu;
+import com.jadventure.game.repository.ItemRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs games in-process, for front-ends and bots that bring their own
+ * input and output instead of a console or a socket.
+ *
+ * <pre>
+ * GameEngine engine = new GameEngine();
+ * String id = engine.createSession();
+ * engine.getOpening(id).join();          // the main menu
+ * engine.submit(id, "start").join();     // the classes to choose from
+ * engine.closeSession(id).join();
+ * </pre>
+ *
+ * Every session plays in a GameContext of its own. It holds no thread
+ * while it waits for a command, a command is played on one of the engine's
+ * virtual threads by handing it to the flows of the session. Commands may
+ * be submitted before the output of the previous one has arrived, they
+ * are played in order.
+ */
+public class GameEngine implements AutoCloseable {
+    private static Logger logger = LoggerFactory.getLogger(GameEngine.class);
+
+    private final ItemRepository itemRepository = ItemRepository.createRepo();
+    private final ExecutorService games = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("jadventure-engine-", 1).factory());
+    private final Map<String, EngineSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(0);
+
+    /**
+     * Starts a new session at the main menu and returns its id.
+     */
+    public String createSession() {
+        final EngineSession session = newSession();
+        final GameContext context = new GameContext(itemRepository);
+        session.open(() -> new MainMenu(session, context));
+        return session.getId();
+    }
+
+    /**
+     * Starts a session playing the saved game of the given profile and
+     * returns its id. The session ends when the player exits the game.
+     */
+    public String loadSession(final String profileName) {
+        if (!Player.profileExists(profileName)) {
+            throw new IllegalArgumentException("No profile named '" + profileName + "'");
+        }
+        final EngineSession session = newSession();
+        final GameContext context = new GameContext(itemRepository);
+        session.open(() -> new Game(session, context, Player.load(context, profileName), "old"));
+        return session.getId();
+    }
+
+    private EngineSession newSession() {
+        final String id = String.valueOf(nextId.incrementAndGet());
+        EngineSession session = new EngineSession(id, games, () -> sessions.remove(id));
+        sessions.put(id, session);
+        logger.debug("Started " + session);
+        return session;
+    }
+
+    /**
+     * Returns the output of the session up to the point it first waits
+     * for a command.
+     */
+    public CompletableFuture<List<GameEvent>> getOpening(String sessionId) {
+        return find(sessionId).getOpening();
+    }
+
+    /**
+     * Plays a command. The future is completed with the output of the
+     * command once the game waits for the next one, the last event being
+     * a PROMPT, or an EXIT if the command ended the game.
+     */
+    public CompletableFuture<List<GameEvent>> submit(String sessionId, String command) {
+        if (command == null) {
+            throw new IllegalArgumentException("No command given");
+        }
+        return find(sessionId).submit(command);
+    }
+
+    /**
+     * Ends the input of the session. The game sees the player exit, and
+     * the future is completed with what it said on its way out. Nothing is
+     * saved that the player didn't save.
+     */
+    public CompletableFuture<List<GameEvent>> closeSession(String sessionId) {
+        return find(sessionId).submit(null);
+    }
+
+    /**
+     * Returns the number of sessions whose game hasn't ended yet.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private EngineSession find(String sessionId) {
+        EngineSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown session '" + sessionId + "'");
+        }
+        return session;
+    }
+
+    /**
+     * Closes all sessions and waits a little for their games to end.
+     */
+    public void close() {
+        List<CompletableFuture<?>> closing = new ArrayList<>();
+        for (EngineSession session : sessions.values()) {
+            session.submit(null);
+            closing.add(session.getQueued());
+        }
+        try {
+            CompletableFuture.allOf(closing.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Not all sessions have been closed", e);
+        }
+        games.shutdown();
+        try {
+            if (!games.awaitTermination(5, TimeUnit.SECONDS)) {
+                games.shutdownNow();
+            }
+        } catch (InterruptedException ie) {
+            games.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.jadventure.game.engine;
+
+import com.jadventure.game.events.OutputEvent;
+
+/**
+ * One piece of output of a game run by the GameEngine.
+ */
+public final class GameEvent {
+    public enum Type {
+        /** A message for the player */
+        OUTPUT,
+        /** The game waits for the next command */
+        PROMPT,
+        /** The game is over, the session has ended */
+        EXIT
+    }
+
+    private final Type type;
+    private String text;
+    private final OutputEvent event;
+
+    public GameEvent(Type type, String text) {
+        this.type = type;
+        this.text = text;
+        this.event = null;
+    }
+
+    /**
+     * Creates an OUTPUT event for a typed event of the game.
+     */
+    public GameEvent(OutputEvent event) {
+        this.type = Type.OUTPUT;
+        this.event = event;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the message of an OUTPUT event, an empty string otherwise.
+     * A typed event that shows nothing as text has an empty message.
+     */
+    public synchronized String getText() {
+        if (text == null) {
+            String eventText = event.toText();
+            text = (eventText != null) ? eventText : "";
+        }
+        return text;
+    }
+
+    /**
+     * Returns the typed event of an OUTPUT event, null for plain text and
+     * the other types.
+     */
+    public OutputEvent getEvent() {
+        return event;
+    }
+
+    @Override
+    public String toString() {
+        return (type == Type.OUTPUT) ? getText() : "<" + type + ">";
+    }
+}
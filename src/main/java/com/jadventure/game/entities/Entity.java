@@ -1,23 +1,21 @@
 package com.jadventure.game.entities;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import com.jadventure.game.GameBeans;
+import com.jadventure.game.NameIndex;
 import com.jadventure.game.QueueProvider;
 import com.jadventure.game.items.Item;
 import com.jadventure.game.items.ItemStack;
 import com.jadventure.game.items.Storage;
-import com.jadventure.game.repository.ItemRepository;
 
 /**
  * superclass for all entities (includes player, monsters...)
  */
 public abstract class Entity {
-    // @Resource
-    protected ItemRepository itemRepo = GameBeans.getItemRepository();
-
     // All entities can attack, have health, have names
     private int healthMax;
     private int health;
@@ -36,6 +34,8 @@ public abstract class Entity {
     private int armour;
     private String weapon = HANDS;
     private Map<EquipmentLocation, Item> equipment;
+    /** The equipped items by name, for findEquipment() */
+    private final NameIndex<Item> equipmentNames = new NameIndex<>();
     protected Storage storage;
 
     private static final String HANDS = "hands";
@@ -55,7 +55,7 @@ public abstract class Entity {
         else {
             this.storage = new Storage(300);
         }
-        this.equipment = equipment;
+        setEquipment(equipment);
     }
 
 
@@ -143,6 +143,30 @@ public abstract class Entity {
 
     public void setEquipment(Map<EquipmentLocation, Item> equipment) {
         this.equipment = equipment;
+        equipmentNames.clear();
+        for (Item item : equipment.values()) {
+            if (item != null) {
+                equipmentNames.add(item.getName(), item);
+            }
+        }
+    }
+
+    /**
+     * Returns the equipped items going by the name the player typed, see
+     * NameIndex.
+     */
+    public List<Item> findEquipment(String name) {
+        return new ArrayList<>(equipmentNames.find(name));
+    }
+
+    private void putEquipment(EquipmentLocation place, Item item) {
+        Item old = equipment.put(place, item);
+        if (old != null) {
+            equipmentNames.remove(old.getName(), old);
+        }
+        if (item != null) {
+            equipmentNames.add(item.getName(), item);
+        }
     }
 
     public int getStrength() {
@@ -211,7 +235,7 @@ public abstract class Entity {
         if (bothArms != null && (place == EquipmentLocation.LEFT_ARM || place == EquipmentLocation.RIGHT_ARM)) {
             unequipItem(bothArms);
         }
-        equipment.put(place, item);
+        putEquipment(place, item);
         removeItemFromStorage(item);
         Map<String, String> result = new HashMap<>();
         switch (item.getId().charAt(0)) {
@@ -272,10 +296,10 @@ public abstract class Entity {
     public Map<String, String> unequipItem(Item item) {
         for (EquipmentLocation key : equipment.keySet()) {
             if (item.equals(equipment.get(key))) {
-                equipment.put(key, null);
+                putEquipment(key, null);
             }
         }
-        if (!item.equals(itemRepo.getItem(HANDS))) {
+        if (!HANDS.equals(item.getId())) {
             addItemToStorage(item);
         }
         Map<String, String> result = new HashMap<String, String>();
@@ -302,7 +326,6 @@ public abstract class Entity {
             QueueProvider.offer("--Empty--");
         } else {
             int i = 0;
-            Item hands = itemRepo.getItem(HANDS);
             Map<EquipmentLocation, String> locations = new HashMap<>();
             locations.put(EquipmentLocation.HEAD, "Head");
             locations.put(EquipmentLocation.CHEST, "Chest");
@@ -315,7 +338,7 @@ public abstract class Entity {
             locations.put(EquipmentLocation.LEGS, "Legs");
             locations.put(EquipmentLocation.FEET, "Feet");
             for (Map.Entry<EquipmentLocation, Item> item : equipment.entrySet()) {
-                if (item.getKey() != null && !hands.equals(item.getValue()) && item.getValue() != null) {
+                if (item.getKey() != null && item.getValue() != null && !HANDS.equals(item.getValue().getId())) {
                     QueueProvider.offer(locations.get(item.getKey()) + " - " + item.getValue().getName());
                 } else {
                     i++;
@@ -7,6 +7,7 @@ import java.util.Random;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.jadventure.game.repository.ItemRepository;
 
 
 /**
@@ -32,7 +33,7 @@ public class NPC extends Entity {
         this.id = entityID;
     }
 
-    public void setItems(JsonObject json, int itemLimit, int i) {
+    public void setItems(ItemRepository itemRepo, JsonObject json, int itemLimit, int i) {
         JsonArray items = json.get("items").getAsJsonArray();
         JsonArray itemTypes = json.get("tradingEmphasis").getAsJsonArray();
         boolean cont;
@@ -64,7 +65,7 @@ public class NPC extends Entity {
             }
         }
         if (i != itemLimit) {
-            setItems(json, itemLimit, i);
+            setItems(itemRepo, json, itemLimit, i);
         }
     }
 
@@ -13,12 +13,11 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
-import java.util.Set;
+import java.util.TreeMap;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
@@ -28,9 +27,10 @@ import com.google.gson.JsonParser;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.reflect.TypeToken;
-import com.jadventure.game.DeathException;
-import com.jadventure.game.GameBeans;
+import com.jadventure.game.GameContext;
 import com.jadventure.game.QueueProvider;
+import com.jadventure.game.events.MessageEvent;
+import com.jadventure.game.events.Messages;
 import com.jadventure.game.items.Item;
 import com.jadventure.game.items.ItemStack;
 import com.jadventure.game.items.Storage;
@@ -49,19 +49,37 @@ import com.jadventure.game.repository.LocationRepository;
  * with variables not unique to the player, place it in the entity class.
  */
 public class Player extends Entity {
-    // @Resource
-    protected static ItemRepository itemRepo = GameBeans.getItemRepository();
-    protected static LocationRepository locationRepo = GameBeans.getLocationRepository();
+    private ItemRepository itemRepo;
+    /** The world the player is in, written along with the player on save */
+    private LocationRepository locationRepo;
     private ILocation location;
     private int xp;
     /** Player type */
     private String type;
-    private static HashMap<String, Integer>characterLevels = new HashMap<String, Integer>();
+    private HashMap<String, Integer> characterLevels = new HashMap<String, Integer>();
+    /** The player's macros by name, saved with the profile */
+    private TreeMap<String, String> macros = new TreeMap<>();
 
     public Player() {
     }
 
-    protected static void setUpCharacterLevels() {
+    public ItemRepository getItemRepository() {
+        return itemRepo;
+    }
+
+    public void setItemRepository(ItemRepository itemRepo) {
+        this.itemRepo = itemRepo;
+    }
+
+    public LocationRepository getLocationRepository() {
+        return locationRepo;
+    }
+
+    public void setLocationRepository(LocationRepository locationRepo) {
+        this.locationRepo = locationRepo;
+    }
+
+    protected void setUpCharacterLevels() {
         characterLevels.put("Sewer Rat", 5);
         characterLevels.put("Recruit", 3);
         characterLevels.put("Syndicate Member", 4);
@@ -76,6 +94,17 @@ public class Player extends Entity {
         this.characterLevels = newCharacterLevels;
     }
 
+    /**
+     * Returns the player's macros, the commands each name stands for.
+     */
+    public TreeMap<String, String> getMacros() {
+        return macros;
+    }
+
+    public void setMacros(TreeMap<String, String> macros) {
+        this.macros = macros;
+    }
+
     public String getCurrentCharacterType() {
         return this.type;
     }
@@ -102,8 +131,13 @@ public class Player extends Entity {
         return file.exists();
     }
 
-    public static Player load(String name) {
-        player = new Player();
+    /**
+     * Loads the named profile, along with its world, into the given context.
+     */
+    public static Player load(GameContext context, String name) {
+        ItemRepository itemRepo = context.getItemRepository();
+        Player player = new Player();
+        player.setItemRepository(itemRepo);
         JsonParser parser = new JsonParser();
         String fileName = getProfileFileName(name);
         try {
@@ -124,6 +158,10 @@ public class Player extends Entity {
             player.setCurrentCharacterType(json.get("type").getAsString());
             HashMap<String, Integer> charLevels = new Gson().fromJson(json.get("types"), new TypeToken<HashMap<String, Integer>>(){}.getType());
             player.setCharacterLevels(charLevels);
+            if (json.has("macros")) {
+                TreeMap<String, String> macros = new Gson().fromJson(json.get("macros"), new TypeToken<TreeMap<String, String>>(){}.getType());
+                player.setMacros(macros);
+            }
             if (json.has("equipment")) {
                 Map<String, EquipmentLocation> locations = new HashMap<>();
                 locations.put("head", EquipmentLocation.HEAD);
@@ -159,10 +197,10 @@ public class Player extends Entity {
                 player.setStorage(new Storage(maxWeight, itemList));
             }
             Coordinate coordinate = new Coordinate(json.get("location").getAsString());
-            locationRepo = GameBeans.getLocationRepository(player.getName());
-            player.setLocation(locationRepo.getLocation(coordinate));
+            player.setLocationRepository(context.loadLocations(player.getName()));
+            player.setLocation(player.getLocationRepository().getLocation(coordinate));
             reader.close();
-            setUpCharacterLevels();
+            player.setUpCharacterLevels();
         } catch (FileNotFoundException ex) {
             QueueProvider.offer( "Unable to open file '" + fileName + "'.");
         } catch (IOException ex) {
@@ -172,11 +210,14 @@ public class Player extends Entity {
         return player;
     }
 
-    // This is known as the singleton pattern. It allows for only 1 instance of a player.
-    private static Player player;
-    
-    public static Player getInstance(String playerClass){
-        player = new Player();
+    /**
+     * Creates a new player of the given class. The player has no world yet,
+     * one is loaded when the game starts.
+     */
+    public static Player getInstance(GameContext context, String playerClass){
+        ItemRepository itemRepo = context.getItemRepository();
+        Player player = new Player();
+        player.setItemRepository(itemRepo);
         JsonParser parser = new JsonParser();
         String fileName = "json/original_data/npcs.json";
         try {
@@ -217,7 +258,7 @@ public class Player extends Entity {
                 QueueProvider.offer("Not a valid class");
             }
             reader.close();
-            setUpCharacterLevels();
+            player.setUpCharacterLevels();
         } catch (FileNotFoundException ex) {
             QueueProvider.offer( "Unable to open file '" + fileName + "'.");
         } catch (IOException ex) {
@@ -246,20 +287,9 @@ public class Player extends Entity {
         if (weaponName.equals(null)) {
             weaponName = "hands";
         }
-        String message = "\nPlayer name: " + getName();
-              message += "\nType: " + type;
-              message += "\nCurrent weapon: " + weaponName;
-              message += "\nGold: " + getGold();
-              message += "\nHealth/Max: " + getHealth() + "/" + getHealthMax();
-              message += "\nDamage/Armour: " + getDamage() + "/" + getArmour();
-              message += "\nStrength: " + getStrength();
-              message += "\nIntelligence: " + getIntelligence();
-              message += "\nDexterity: " + getDexterity();
-              message += "\nLuck: " + getLuck();
-              message += "\nStealth: " + getStealth();
-              message += "\nXP: " + getXP();
-              message += "\n" + getName() + "'s level: " + getLevel();
-        QueueProvider.offer(message);
+        QueueProvider.emit(new MessageEvent("stats", Messages.STATS, getName(), type, weaponName,
+                getGold(), getHealth(), getHealthMax(), getDamage(), getArmour(), getStrength(),
+                getIntelligence(), getDexterity(), getLuck(), getStealth(), getXP(), getLevel()));
     }
 
     public void printBackPack() {
@@ -311,6 +341,9 @@ public class Player extends Entity {
         jsonObject.add("equipment", equipmentJsonObj);
         JsonElement typesJsonObj = gson.toJsonTree(getCharacterLevels());
         jsonObject.add("types", typesJsonObj);
+        if (!macros.isEmpty()) {
+            jsonObject.add("macros", gson.toJsonTree(macros));
+        }
         Coordinate coordinate = getLocation().getCoordinate();
         String coordinateLocation = coordinate.x+","+coordinate.y+","+coordinate.z;
         jsonObject.addProperty("location", coordinateLocation);
@@ -321,8 +354,9 @@ public class Player extends Entity {
             Writer writer = new FileWriter(fileName);
             gson.toJson(jsonObject, writer);
             writer.close();
-            locationRepo = GameBeans.getLocationRepository(getName());
-            locationRepo.writeLocations();
+            if (locationRepo != null) {
+                locationRepo.writeLocations();
+            }
             QueueProvider.offer("\nYour game data was saved.");
         } catch (IOException ex) {
             QueueProvider.offer("\nUnable to save to file '" + fileName + "'.");
@@ -355,7 +389,7 @@ public class Player extends Entity {
     }
 
     public void pickUpItem(String itemName) {
-        List<Item> items = searchItem(itemName, getLocation().getItems());
+        List<Item> items = getLocation().findItems(itemName);
         if (! items.isEmpty()) {
             Item item = items.get(0);
             addItemToStorage(item);
@@ -367,7 +401,7 @@ public class Player extends Entity {
     public void dropItem(String itemName) {
         List<Item> itemMap = searchItem(itemName, getStorage());
         if (itemMap.isEmpty()) {
-            itemMap = searchEquipment(itemName, getEquipment());
+            itemMap = findEquipment(itemName);
         }
         if (!itemMap.isEmpty()) {
             Item item = itemMap.get(0);
@@ -375,7 +409,7 @@ public class Player extends Entity {
             Item weapon = itemRepo.getItem(getWeapon());
             String wName = weapon.getName();
 
-            if (itemName.equals(wName)) {
+            if (item.getName().equals(wName)) {
                 dequipItem(wName);
             }
             removeItemFromStorage(itemToDrop);
@@ -401,7 +435,7 @@ public class Player extends Entity {
     }
 
     public void dequipItem(String itemName) {
-         List<Item> items = searchEquipment(itemName, getEquipment());
+         List<Item> items = findEquipment(itemName);
          if (!items.isEmpty()) {
             Item item = items.get(0);
             Map<String, String> change = unequipItem(item);
@@ -411,52 +445,34 @@ public class Player extends Entity {
     }
 
     private void printStatChange(Map<String, String> stats) {
-         Set<Entry<String, String>> set = stats.entrySet();
-         Iterator<Entry<String, String>> iter = set.iterator();
-         while (iter.hasNext()) {
-              Entry<String, String> me = iter.next();
-              double value = Double.parseDouble((String) me.getValue());
-              switch ((String) me.getKey()) {
-                  case "damage": {
-                          if (value >= 0.0) {
-                              QueueProvider.offer(me.getKey() + ": " + this.getDamage() + " (+" + me.getValue() + ")");
-                          } else {
-                              QueueProvider.offer(me.getKey() + ": " + this.getDamage() + " (" + me.getValue() + ")");
-                          }
-                          break;
-                    }
-                    case "health": {
-                          if (value >= 0) {
-                              QueueProvider.offer(me.getKey() + ": " + this.getHealth() + " (+" + me.getValue() + ")");
-                          } else {
-                              QueueProvider.offer(me.getKey() + ": " + this.getHealth() + " (" + me.getValue() + ")");
-                          }
-                          break;
-                    }
-                    case "armour": {
-                          if (value >= 0) {
-                              QueueProvider.offer(me.getKey() + ": " + this.getArmour() + " (+" + me.getValue() + ")");
-                          } else {
-                              QueueProvider.offer(me.getKey() + ": " + this.getArmour() + " (" + me.getValue() + ")");
-                          }
-                          break;
-                    }
-                    case "maxHealth": {
-                          if (value  >= 0) {
-                              QueueProvider.offer(me.getKey() + ": " + this.getHealthMax() + " (+" + me.getValue() + ")");
-                          } else {
-                              QueueProvider.offer(me.getKey() + ": " + this.getHealthMax() + " (" + me.getValue() + ")");
-                          }
-                          break;
-                    }
-              }
-         }
+        for (Entry<String, String> me : stats.entrySet()) {
+            double value = Double.parseDouble(me.getValue());
+            Object current;
+            switch (me.getKey()) {
+                case "damage":
+                    current = this.getDamage();
+                    break;
+                case "health":
+                    current = this.getHealth();
+                    break;
+                case "armour":
+                    current = this.getArmour();
+                    break;
+                case "maxHealth":
+                    current = this.getHealthMax();
+                    break;
+                default:
+                    continue;
+            }
+            QueueProvider.emit(new MessageEvent("modifier", Messages.MODIFIER, me.getKey(), current,
+                    (value >= 0) ? "+" : "", me.getValue()));
+        }
     }
 
     public void inspectItem(String itemName) {
         List<Item> itemMap = searchItem(itemName, getStorage());
         if (itemMap.isEmpty()) {
-            itemMap = searchItem(itemName, getLocation().getItems());
+            itemMap = getLocation().findItems(itemName);
         }
         if (!itemMap.isEmpty()) {
             Item item = itemMap.get(0);
@@ -478,26 +494,26 @@ public class Player extends Entity {
     	return getLocation().getLocationType();
     }
 
-    public void attack(String opponentName) throws DeathException {
+    /**
+     * Starts a battle against the opponent, it begins once the current
+     * command has been played.
+     */
+    public void attack(String opponentName) {
         Monster monsterOpponent = null;
         NPC npcOpponent = null;
-        List<Monster> monsters = getLocation().getMonsters();
-        List<NPC> npcs = getLocation().getNpcs();
-        for (int i = 0; i < monsters.size(); i++) {
-             if (monsters.get(i).monsterType.equalsIgnoreCase(opponentName)) {
-                 monsterOpponent = monsters.get(i);
-             }
+        List<Monster> monsters = getLocation().findMonsters(opponentName);
+        List<NPC> npcs = getLocation().findNpcs(opponentName);
+        if (!monsters.isEmpty()) {
+            monsterOpponent = monsters.get(monsters.size() - 1);
         }
-        for (int i=0; i < npcs.size(); i++) {
-            if (npcs.get(i).getName().equalsIgnoreCase(opponentName)) {
-                npcOpponent = npcs.get(i);
-            }
+        if (!npcs.isEmpty()) {
+            npcOpponent = npcs.get(npcs.size() - 1);
         }
         if (monsterOpponent != null) {
             monsterOpponent.setName(monsterOpponent.monsterType);
-            new BattleMenu(monsterOpponent, this);
+            QueueProvider.push(new BattleMenu(monsterOpponent, this));
         } else if (npcOpponent != null) {
-            new BattleMenu(npcOpponent, this);
+            QueueProvider.push(new BattleMenu(npcOpponent, this));
         } else {
              QueueProvider.offer("Opponent not found");
         }
@@ -505,7 +521,7 @@ public class Player extends Entity {
 
     public boolean hasItem(Item item) {
         List<Item> searchEquipment = searchEquipment(item.getName(), getEquipment());
-        List<Item> searchStorage = searchItem(item.getName(), getStorage());
+        List<Item> searchStorage = searchItem(item.getName(), getStorage().getItems());
         return !(searchEquipment.size() == 0 && searchStorage.size() == 0);
     }
 }
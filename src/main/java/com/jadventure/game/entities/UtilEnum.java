@@ -3,7 +3,7 @@ package com.jadventure.game.entities;
 public enum UtilEnum {
     HEALTH("health"),
     HEALTH_MAX("healthMax"),
-    ARMOR("armor"),
+    ARMOR("armour"),
     DAMAGE("damage"),
     LEVEL("level"),
     INTELLIGENCE("intelligence"),
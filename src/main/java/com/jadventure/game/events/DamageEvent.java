@@ -0,0 +1,70 @@
+package com.jadventure.game.events;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A blow in a battle and the health the defender has left.
+ */
+public class DamageEvent extends OutputEvent implements Template.Arguments {
+    private final String attacker;
+    private final String defender;
+    private final int damage;
+    private final int health;
+    private final boolean byPlayer;
+
+    public DamageEvent(String attacker, String defender, int damage, int health, boolean byPlayer) {
+        super("damage");
+        this.attacker = attacker;
+        this.defender = defender;
+        this.damage = damage;
+        this.health = health;
+        this.byPlayer = byPlayer;
+    }
+
+    public int getDamage() {
+        return damage;
+    }
+
+    public int getHealth() {
+        return health;
+    }
+
+    /**
+     * Returns true if the player dealt the damage.
+     */
+    public boolean isByPlayer() {
+        return byPlayer;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        (byPlayer ? Messages.DAMAGE_DEALT : Messages.DAMAGE_TAKEN).render(out, this);
+        return true;
+    }
+
+    @Override
+    public void appendArgument(String name, StringBuilder out) {
+        switch (name) {
+            case "damage":
+                out.append(damage);
+                break;
+            case "health":
+                out.append(health);
+                break;
+            case "defender":
+                out.append(defender);
+                break;
+            default:
+                out.append(attacker);
+        }
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        json.addProperty("attacker", attacker);
+        json.addProperty("defender", defender);
+        json.addProperty("damage", damage);
+        json.addProperty("health", health);
+        json.addProperty("byPlayer", byPlayer);
+    }
+}
@@ -0,0 +1,44 @@
+package com.jadventure.game.events;
+
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.jadventure.game.navigation.Direction;
+
+/**
+ * The ways out of the player's location, with what the player sees in
+ * each direction.
+ */
+public class ExitsEvent extends OutputEvent {
+    private final Map<Direction, String> exits;
+
+    public ExitsEvent(Map<Direction, String> exits) {
+        super("exits");
+        this.exits = exits;
+    }
+
+    public Map<Direction, String> getExits() {
+        return exits;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        for (Map.Entry<Direction, String> exit : exits.entrySet()) {
+            Messages.EXIT.render(out, exit.getKey().getDescription(), exit.getValue());
+        }
+        return true;
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        JsonArray array = new JsonArray();
+        for (Map.Entry<Direction, String> exit : exits.entrySet()) {
+            JsonObject object = new JsonObject();
+            object.addProperty("direction", exit.getKey().name().toLowerCase());
+            object.addProperty("description", exit.getValue());
+            array.add(object);
+        }
+        json.add("exits", array);
+    }
+}
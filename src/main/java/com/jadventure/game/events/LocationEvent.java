@@ -0,0 +1,55 @@
+package com.jadventure.game.events;
+
+import com.google.gson.JsonObject;
+import com.jadventure.game.navigation.Coordinate;
+
+/**
+ * The location the player is at. Its items, NPCs and exits follow as
+ * events of their own.
+ */
+public class LocationEvent extends OutputEvent implements Template.Arguments {
+    private final Coordinate coordinate;
+    private final String title;
+    private final String description;
+
+    public LocationEvent(Coordinate coordinate, String title, String description) {
+        super("location");
+        this.coordinate = coordinate;
+        this.title = title;
+        this.description = description;
+    }
+
+    public Coordinate getCoordinate() {
+        return coordinate;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        Messages.LOCATION.render(out, this);
+        return true;
+    }
+
+    @Override
+    public void appendArgument(String name, StringBuilder out) {
+        out.append(name.equals("title") ? title : description);
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        if (coordinate != null) {
+            json.addProperty("x", coordinate.getX());
+            json.addProperty("y", coordinate.getY());
+            json.addProperty("z", coordinate.getZ());
+        }
+        json.addProperty("title", title);
+        json.addProperty("description", description);
+    }
+}
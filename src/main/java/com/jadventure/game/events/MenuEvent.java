@@ -0,0 +1,63 @@
+package com.jadventure.game.events;
+
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.jadventure.game.menus.MenuItem;
+
+/**
+ * The options of a menu the player chooses from, by number or command.
+ * A Menu builds its event once, with its text and JSON.
+ */
+public class MenuEvent extends OutputEvent {
+    private final List<MenuItem> options;
+    private final String text;
+    private final String json;
+
+    public MenuEvent(List<MenuItem> options, String text) {
+        super("menu");
+        this.options = options;
+        this.text = text;
+        this.json = super.toJson();
+    }
+
+    public List<MenuItem> getOptions() {
+        return options;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        if (text == null) {
+            return false;
+        }
+        out.append(text);
+        return true;
+    }
+
+    @Override
+    public String toText() {
+        return text;
+    }
+
+    @Override
+    public String toJson() {
+        return json;
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        JsonArray array = new JsonArray();
+        int i = 1;
+        for (MenuItem option : options) {
+            JsonObject object = new JsonObject();
+            object.addProperty("n", i++);
+            object.addProperty("command", option.getCommand());
+            if (option.getDescription() != null) {
+                object.addProperty("description", option.getDescription());
+            }
+            array.add(object);
+        }
+        json.add("options", array);
+    }
+}
@@ -0,0 +1,51 @@
+package com.jadventure.game.events;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A message of the catalogue with its values. The text is the rendered
+ * template, the JSON has one property per argument of the template.
+ */
+public class MessageEvent extends OutputEvent {
+    private final Template template;
+    private final Object[] values;
+
+    /**
+     * Creates the event, the values are in the order of the template's
+     * getNames().
+     */
+    public MessageEvent(String type, Template template, Object... values) {
+        super(type);
+        if (values.length != template.getArgumentCount()) {
+            throw new IllegalArgumentException(template + " takes " + template.getArgumentCount()
+                    + " arguments, not " + values.length);
+        }
+        this.template = template;
+        this.values = values;
+    }
+
+    public Template getTemplate() {
+        return template;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        template.render(out, values);
+        return true;
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        int i = 0;
+        for (String name : template.getNames()) {
+            Object value = values[i++];
+            if (value instanceof Number) {
+                json.addProperty(name, (Number) value);
+            } else if (value instanceof Boolean) {
+                json.addProperty(name, (Boolean) value);
+            } else {
+                json.addProperty(name, String.valueOf(value));
+            }
+        }
+    }
+}
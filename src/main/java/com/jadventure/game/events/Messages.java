@@ -0,0 +1,36 @@
+package com.jadventure.game.events;
+
+/**
+ * The catalogue of the game's templated messages. They are compiled when
+ * the class is loaded, and the names of their arguments are the keys of
+ * the JSON the same messages are sent as.
+ */
+public final class Messages {
+    public static final Template LOCATION = Template.compile("\n{title}:\n    {description}");
+    public static final Template EXIT = Template.compile("\n{direction}: \n    {description}");
+    public static final Template DAMAGE_DEALT = Template.compile(
+            "{damage} damage dealt!\nThe {defender}'s health is {health}");
+    public static final Template DAMAGE_TAKEN = Template.compile(
+            "{damage} damage dealt!\nYour health is {health}");
+    public static final Template LEVEL_UP = Template.compile("You've are now level {level}!");
+    public static final Template STATS = Template.compile(
+            "\nPlayer name: {name}"
+            + "\nType: {type}"
+            + "\nCurrent weapon: {weapon}"
+            + "\nGold: {gold}"
+            + "\nHealth/Max: {health}/{healthMax}"
+            + "\nDamage/Armour: {damage}/{armour}"
+            + "\nStrength: {strength}"
+            + "\nIntelligence: {intelligence}"
+            + "\nDexterity: {dexterity}"
+            + "\nLuck: {luck}"
+            + "\nStealth: {stealth}"
+            + "\nXP: {xp}"
+            + "\n{name}'s level: {level}");
+    public static final Template MODIFIER = Template.compile("{stat}: {value} ({sign}{change})");
+    public static final Template WARE = Template.compile(
+            "- {name} : {amount} at {value} gold coins each\n");
+
+    private Messages() {
+    }
+}
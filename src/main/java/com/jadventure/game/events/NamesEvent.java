@@ -0,0 +1,56 @@
+package com.jadventure.game.events;
+
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * The names of the items or the NPCs at the player's location.
+ */
+public class NamesEvent extends OutputEvent {
+    private final String heading;
+    private final String indent;
+    private final List<String> names;
+
+    private NamesEvent(String type, String heading, String indent, List<String> names) {
+        super(type);
+        this.heading = heading;
+        this.indent = indent;
+        this.names = names;
+    }
+
+    public static NamesEvent items(List<String> names) {
+        return new NamesEvent("items", "Items:", "    ", names);
+    }
+
+    public static NamesEvent npcs(List<String> names) {
+        return new NamesEvent("npcs", "NPCs:", "   ", names);
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        if (names.isEmpty()) {
+            return false;
+        }
+        out.append(heading);
+        for (String name : names) {
+            out.append('\n').append(indent).append(name);
+        }
+        return true;
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        JsonArray array = new JsonArray();
+        for (String name : names) {
+            array.add(new JsonPrimitive(name));
+        }
+        json.add(getType(), array);
+    }
+}
@@ -0,0 +1,57 @@
+package com.jadventure.game.events;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A typed piece of the game's output. A session shows it to a player as
+ * text, or sends it to an automated client as one line of JSON, so the
+ * client doesn't have to parse the text. The text of an event is only
+ * rendered for sessions that show it, straight into their output.
+ *
+ * Every JSON line has a "type" naming the kind of event.
+ */
+public abstract class OutputEvent {
+    private final String type;
+
+    protected OutputEvent(String type) {
+        this.type = type;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Appends the event as the player reads it. Returns false if it shows
+     * nothing, nothing is appended then.
+     */
+    public abstract boolean appendText(StringBuilder out);
+
+    /**
+     * Returns the event as the player reads it, null if it shows nothing.
+     */
+    public String toText() {
+        StringBuilder out = new StringBuilder();
+        return appendText(out) ? out.toString() : null;
+    }
+
+    /**
+     * Returns the event as one line of JSON.
+     */
+    public String toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", type);
+        addProperties(json);
+        return json.toString();
+    }
+
+    /**
+     * Adds the properties of the event besides its type.
+     */
+    protected abstract void addProperties(JsonObject json);
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
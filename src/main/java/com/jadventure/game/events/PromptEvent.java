@@ -0,0 +1,38 @@
+package com.jadventure.game.events;
+
+import com.google.gson.JsonObject;
+
+/**
+ * The game prompt, the player may type a command.
+ */
+public class PromptEvent extends OutputEvent {
+    public static final PromptEvent GAME = new PromptEvent();
+    private static final String TEXT = "\nPrompt:";
+
+    private final String json;
+
+    private PromptEvent() {
+        super("prompt");
+        this.json = super.toJson();
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        out.append(TEXT);
+        return true;
+    }
+
+    @Override
+    public String toText() {
+        return TEXT;
+    }
+
+    @Override
+    public String toJson() {
+        return json;
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.jadventure.game.events;
+
+import com.google.gson.JsonObject;
+
+/**
+ * One of the player's stats has changed, for example the XP after a
+ * battle. Only a new level is shown as text, the rest is told by the
+ * messages around it.
+ */
+public class StatChangeEvent extends OutputEvent {
+    private final String stat;
+    private final int oldValue;
+    private final int newValue;
+
+    public StatChangeEvent(String stat, int oldValue, int newValue) {
+        super("stat");
+        this.stat = stat;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public String getStat() {
+        return stat;
+    }
+
+    public int getOldValue() {
+        return oldValue;
+    }
+
+    public int getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        if (stat.equals("level") && newValue > oldValue) {
+            Messages.LEVEL_UP.render(out, newValue);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        json.addProperty("stat", stat);
+        json.addProperty("old", oldValue);
+        json.addProperty("new", newValue);
+    }
+}
@@ -0,0 +1,138 @@
+package com.jadventure.game.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A message with named arguments, like "{damage} damage dealt!", compiled
+ * once into its literal parts and argument slots. Rendering appends the
+ * parts and the arguments to a StringBuilder, nothing else is built.
+ *
+ * An argument may be used more than once, getNames() lists every name
+ * once in the order they first appear.
+ */
+public final class Template {
+    /**
+     * Appends the value of a named argument, typed events pass themselves.
+     */
+    public interface Arguments {
+        void appendArgument(String name, StringBuilder out);
+    }
+
+    private final String pattern;
+    /** One more literal than there are slots, the first comes before slot 0 */
+    private final String[] literals;
+    /** The index into names of every slot */
+    private final int[] slots;
+    private final String[] names;
+
+    private Template(String pattern, String[] literals, int[] slots, String[] names) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.slots = slots;
+        this.names = names;
+    }
+
+    public static Template compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = pattern.indexOf('{', start)) >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed argument in '" + pattern + "'");
+            }
+            String name = pattern.substring(open + 1, close);
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Argument without a name in '" + pattern + "'");
+            }
+            int index = names.indexOf(name);
+            if (index < 0) {
+                index = names.size();
+                names.add(name.intern());
+            }
+            literals.add(pattern.substring(start, open));
+            slots.add(index);
+            start = close + 1;
+        }
+        literals.add(pattern.substring(start));
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new Template(pattern, literals.toArray(new String[0]), slotArray,
+                names.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the names of the arguments in the order they first appear.
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public int getArgumentCount() {
+        return names.length;
+    }
+
+    /**
+     * Appends the message, the arguments name their own values.
+     */
+    public void render(StringBuilder out, Arguments arguments) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            arguments.appendArgument(names[slots[i]], out);
+        }
+        out.append(literals[slots.length]);
+    }
+
+    /**
+     * Appends the message with the values in the order of getNames().
+     */
+    public void render(StringBuilder out, Object... values) {
+        if (values.length != names.length) {
+            throw new IllegalArgumentException(pattern + " takes " + names.length
+                    + " arguments, not " + values.length);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            appendValue(out, values[slots[i]]);
+        }
+        out.append(literals[slots.length]);
+    }
+
+    /**
+     * Returns the message as a String, for callers that need one.
+     */
+    public String format(Object... values) {
+        StringBuilder out = new StringBuilder();
+        render(out, values);
+        return out.toString();
+    }
+
+    /**
+     * Appends a value without building a String for numbers.
+     */
+    static void appendValue(StringBuilder out, Object value) {
+        if (value instanceof Integer) {
+            out.append(((Integer) value).intValue());
+        } else if (value instanceof Long) {
+            out.append(((Long) value).longValue());
+        } else if (value instanceof Double) {
+            out.append(((Double) value).doubleValue());
+        } else if (value instanceof CharSequence) {
+            out.append((CharSequence) value);
+        } else {
+            out.append(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,35 @@
+package com.jadventure.game.events;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A message there is no typed event for yet.
+ */
+public class TextEvent extends OutputEvent {
+    private final String text;
+
+    public TextEvent(String text) {
+        super("text");
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public boolean appendText(StringBuilder out) {
+        out.append(text);
+        return true;
+    }
+
+    @Override
+    public String toText() {
+        return text;
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        json.addProperty("text", text);
+    }
+}
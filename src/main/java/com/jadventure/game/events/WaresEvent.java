@@ -0,0 +1,68 @@
+package com.jadventure.game.events;
+
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.jadventure.game.items.ItemStack;
+
+/**
+ * The items a trader has to offer and what each of them costs.
+ */
+public class WaresEvent extends OutputEvent implements Template.Arguments {
+    private final List<ItemStack> stacks;
+    private final int[] values;
+    /** The stack whose line is being rendered */
+    private int current;
+
+    /**
+     * Creates the event, values holds the price of one item of every stack.
+     */
+    public WaresEvent(List<ItemStack> stacks, int[] values) {
+        super("wares");
+        this.stacks = stacks;
+        this.values = values;
+    }
+
+    @Override
+    public synchronized boolean appendText(StringBuilder out) {
+        if (stacks.isEmpty()) {
+            out.append("--Empty--");
+            return true;
+        }
+        for (current = 0; current < stacks.size(); current++) {
+            Messages.WARE.render(out, this);
+        }
+        return true;
+    }
+
+    @Override
+    public void appendArgument(String name, StringBuilder out) {
+        ItemStack stack = stacks.get(current);
+        switch (name) {
+            case "name":
+                out.append(stack.getItem().getName());
+                break;
+            case "amount":
+                out.append(stack.getAmount());
+                break;
+            default:
+                out.append(values[current]);
+        }
+    }
+
+    @Override
+    protected void addProperties(JsonObject json) {
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < stacks.size(); i++) {
+            ItemStack stack = stacks.get(i);
+            JsonObject object = new JsonObject();
+            object.addProperty("id", stack.getItem().getId());
+            object.addProperty("name", stack.getItem().getName());
+            object.addProperty("amount", stack.getAmount());
+            object.addProperty("value", values[i]);
+            array.add(object);
+        }
+        json.add("wares", array);
+    }
+}
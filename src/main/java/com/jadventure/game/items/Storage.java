@@ -3,7 +3,9 @@ package com.jadventure.game.items;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.jadventure.game.NameIndex;
 import com.jadventure.game.QueueProvider;
+import com.jadventure.game.events.WaresEvent;
 
 /**
  * Defines an interface for any type of storage in this game.
@@ -12,6 +14,8 @@ public class Storage {
     public final static double WEIGHT_UNLIMITED = -1;
     private double maxWeight;
 	private List<ItemStack> itemStacks = null;
+    /** The items of the stacks by name, for search() */
+    private final NameIndex<Item> names = new NameIndex<>();
 
     public Storage() {
         this(WEIGHT_UNLIMITED);
@@ -22,6 +26,9 @@ public class Storage {
     public Storage(double maxWeight, List<ItemStack> items) {
         this.maxWeight = maxWeight;
         this.itemStacks = items;
+        for (ItemStack itemStack : items) {
+            names.add(itemStack.getItem().getName(), itemStack.getItem());
+        }
     }
 
 	public double getMaxWeight() {
@@ -77,6 +84,7 @@ public class Storage {
                 this.itemStacks.add(new ItemStack(sameType.getAmount()+1, sameType.getItem()));
             } else {
                 this.itemStacks.add(itemStack);
+                names.add(itemStack.getItem().getName(), itemStack.getItem());
             }
         }
     }
@@ -105,6 +113,7 @@ public class Storage {
             ItemStack sameType = getSameType(itemStack);
             if (sameType.getAmount() - amount <= 0) {
                 itemStacks.remove(sameType);
+                names.remove(sameType.getItem().getName(), sameType.getItem());
             } else {
                 itemStacks.remove(sameType);
                 itemStacks.add(new ItemStack(sameType.getAmount() - amount, sameType.getItem()));
@@ -128,14 +137,12 @@ public class Storage {
         return this.itemStacks.isEmpty();
     }
 
+    /**
+     * Returns the items going by the name the player typed, which may be
+     * the start of it or have a typo, see NameIndex.
+     */
     public List<Item> search(String name) {
-        List<Item> items = new ArrayList<>();
-        for (ItemStack itemStack : itemStacks) {
-            if (itemStack.getItem().getName().equalsIgnoreCase(name)) {
-                items.add(itemStack.getItem());
-            }
-        }
-        return items;
+        return new ArrayList<>(names.find(name));
     }
     
     public List<Item> getItems() {
@@ -168,24 +175,20 @@ public class Storage {
         return Integer.valueOf(weight);
     }
 
-    public String displayWithValue(int playerLuck, int playerInt) {
-        if (itemStacks.isEmpty()) {
-            return "--Empty--";
-        } else {
-            String content = "";
-            if(playerLuck > 0){
-                for (ItemStack itemStack : itemStacks) {
-                    int value = (int)((0.5+0.02*(playerInt+playerLuck))*(itemStack.getItem().getProperties().get("value")));
-                    content += "- " + itemStack.getItem().getName() + " : " + itemStack.getAmount() + " at " + value + " gold coins each\n";
-                }
-            } else {
-                for (ItemStack itemStack : itemStacks) {
-                    int value = itemStack.getItem().getProperties().get("value");
-                    content += "- " + itemStack.getItem().getName() + " : " + itemStack.getAmount() + " at " + value + " gold coins each\n";
-                }
+    /**
+     * Returns the items with the price a player with this luck and
+     * intelligence gets for each of them.
+     */
+    public WaresEvent displayWithValue(int playerLuck, int playerInt) {
+        int[] values = new int[itemStacks.size()];
+        for (int i = 0; i < values.length; i++) {
+            int value = itemStacks.get(i).getItem().getProperties().get("value");
+            if (playerLuck > 0) {
+                value = (int)((0.5+0.02*(playerInt+playerLuck))*value);
             }
-            return content;
+            values[i] = value;
         }
+        return new WaresEvent(itemStacks, values);
     }
 
 }
@@ -4,17 +4,23 @@ import com.jadventure.game.DeathException;
 import com.jadventure.game.entities.Entity;
 import com.jadventure.game.entities.Player;
 import com.jadventure.game.entities.NPC;
-import com.jadventure.game.QueueProvider;
 import com.jadventure.game.CharacterChange;
+import com.jadventure.game.events.DamageEvent;
+import com.jadventure.game.events.StatChangeEvent;
 import com.jadventure.game.items.ItemStack;
 import com.jadventure.game.items.Item;
-import com.jadventure.game.GameBeans;
 
 import java.util.Random;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BattleMenu extends Menus {
+    private enum State { CHOOSING, EQUIPPING, UNEQUIPPING, VIEWING, DEAD }
+
+    /** The menus of the battles so far by the name of the opponent, there are only that many */
+    private static final Map<String, Menu> MENUS = new ConcurrentHashMap<>();
 
     private NPC opponent;
     private Player player;
@@ -22,36 +28,87 @@ public class BattleMenu extends Menus {
     private int armour;
     private double damage;
     private int escapeSuccessfulAttempts = 0;
+    private State state = State.CHOOSING;
 
-    public BattleMenu(NPC opponent, Player player) throws DeathException {
+    public BattleMenu(NPC opponent, Player player) {
         this.random = new Random();
         this.opponent = opponent;
         this.player = player;
         this.armour = player.getArmour();
         this.damage = player.getDamage();
-        buildMenu();
-        while (opponent.getHealth() > 0 &&
+        this.menu = MENUS.computeIfAbsent(opponent.getName(), BattleMenu::buildMenu);
+    }
+
+    @Override
+    protected void start() {
+        checkOutcome();
+    }
+
+    @Override
+    protected void printHeader() {
+        session.offer("\nWhat is your choice?");
+    }
+
+    @Override
+    protected void prompt() {
+        // the other states asked their question when they were entered
+        if (state == State.CHOOSING) {
+            super.prompt();
+        }
+    }
+
+    @Override
+    protected void handle(String input) throws DeathException {
+        switch (state) {
+            case EQUIPPING:
+                state = State.CHOOSING;
+                if (!input.equalsIgnoreCase("back")) {
+                    player.equipItem(input);
+                }
+                break;
+            case UNEQUIPPING:
+                state = State.CHOOSING;
+                if (!input.equalsIgnoreCase("back")) {
+                    player.dequipItem(input);
+                }
+                break;
+            case VIEWING:
+                viewStats(input);
+                break;
+            case DEAD:
+                startAgain(input.toLowerCase());
+                return;
+            default:
+                MenuItem selectedItem = select(input);
+                if (selectedItem != null) {
+                    testSelected(selectedItem);
+                }
+                break;
+        }
+        if (state == State.CHOOSING) {
+            checkOutcome();
+        }
+    }
+
+    /**
+     * Ends the battle once one side is dead or the player escaped, the
+     * player is asked to start again if it was the player who died.
+     */
+    private void checkOutcome() {
+        if (opponent.getHealth() > 0 &&
                 player.getHealth() > 0 &&
                 (escapeSuccessfulAttempts <= 0)) {
-            QueueProvider.offer("\nWhat is your choice?");
-            MenuItem selectedItem = displayMenu(this.menuItems);
-            testSelected(selectedItem);
+            return;
         }
         if (player.getHealth() == 0) {
-            QueueProvider.offer("You died... Start again? (y/n)");
-            String reply = QueueProvider.take().toLowerCase();
-            while (!reply.startsWith("y") && !reply.startsWith("n")) {
-                QueueProvider.offer("You died... Start again? (y/n)");
-                reply = QueueProvider.take().toLowerCase();
-            }
-            if (reply.startsWith("y")) {
-                throw new DeathException("restart");
-            } else if (reply.startsWith("n")) {
-                throw new DeathException("close");
-            }
+            state = State.DEAD;
+            session.offer("You died... Start again? (y/n)");
+            return;
         }  else if (opponent.getHealth() == 0) {
             int xp = opponent.getXPGain();
-            this.player.setXP(this.player.getXP() + xp);
+            int oldXP = this.player.getXP();
+            int oldGold = this.player.getGold();
+            this.player.setXP(oldXP + xp);
             int oldLevel = this.player.getLevel();
             int newLevel = (int) (0.075 * Math.sqrt(this.player.getXP()) + 1);
             this.player.setLevel(newLevel);
@@ -66,36 +123,49 @@ public class BattleMenu extends Menus {
                 itemIds.add(itemId);
             }
             for (String itemId : itemIds) {
-                Item item = GameBeans.getItemRepository().getItem(itemId);
+                Item item = player.getItemRepository().getItem(itemId);
                 opponent.removeItemFromStorage(item);
                 this.player.getLocation().addItem(item);
-                QueueProvider.offer("Your opponent dropped a " +
+                session.offer("Your opponent dropped a " +
                         item.getName());
             }
 
             this.player.getLocation().remove(opponent);
             this.player.setGold(this.player.getGold() + opponent.getGold());
-            QueueProvider.offer("You killed a " + opponent.getName() +
+            session.offer("You killed a " + opponent.getName() +
                     "\nYou have gained " + xp + " XP and " +
                     opponent.getGold() + " gold");
+            session.emit(new StatChangeEvent("xp", oldXP, this.player.getXP()));
+            session.emit(new StatChangeEvent("gold", oldGold, this.player.getGold()));
             if (oldLevel < newLevel) {
-                QueueProvider.offer("You've are now level " + newLevel + "!");
+                session.emit(new StatChangeEvent("level", oldLevel, newLevel));
             }
             CharacterChange cc = new CharacterChange();
             cc.trigger(this.player, "kill", opponent.getName());
         }
+        finish();
+    }
+
+    private void startAgain(String reply) throws DeathException {
+        if (reply.startsWith("y")) {
+            throw new DeathException("restart");
+        } else if (reply.startsWith("n")) {
+            throw new DeathException("close");
+        }
+        session.offer("You died... Start again? (y/n)");
     }
 
-    private void buildMenu() {
-        this.menuItems.add(new MenuItem("Attack",
-                    "Attack " + opponent.getName() + "."));
-        this.menuItems.add(new MenuItem("Defend",
-                    "Defend against " + opponent.getName() + "'s attack."));
-        this.menuItems.add(new MenuItem("Escape",
-                    "Try and escape from " + opponent.getName()));
-        this.menuItems.add(new MenuItem("Equip", "Equip an item"));
-        this.menuItems.add(new MenuItem("Unequip", "Unequip an item"));
-        this.menuItems.add(new MenuItem("View",
+    private static Menu buildMenu(String opponentName) {
+        return new Menu(
+                new MenuItem("Attack",
+                    "Attack " + opponentName + "."),
+                new MenuItem("Defend",
+                    "Defend against " + opponentName + "'s attack."),
+                new MenuItem("Escape",
+                    "Try and escape from " + opponentName),
+                new MenuItem("Equip", "Equip an item"),
+                new MenuItem("Unequip", "Unequip an item"),
+                new MenuItem("View",
                     "View details about your character"));
     }
 
@@ -110,7 +180,7 @@ public class BattleMenu extends Menus {
             }
             case "defend": {
                    mutateStats(0.5, 1);
-                   QueueProvider.offer("\nYou get ready to defend against " +
+                   session.offer("\nYou get ready to defend against " +
                            "the " + opponent.getName() + ".");
                    attack(player, opponent);
                    attack(opponent, player);
@@ -131,7 +201,7 @@ public class BattleMenu extends Menus {
                   break;
             }
             case "view": {
-                  viewStats();
+                  askViewCommand();
                   break;
             }
             default: {
@@ -159,14 +229,14 @@ public class BattleMenu extends Menus {
         double minEscapeLevel = (rand.nextInt((upperBound - lowerBound) + 1) +
                 lowerBound) / 100.0;
         if (escapeLevel > minEscapeLevel && (escapeAttempts == 0)) {
-            QueueProvider.offer("You have managed to escape the: " +
+            session.offer("You have managed to escape the: " +
                     attacker.getName());
             return 1;
         } else if (escapeAttempts < 0) {
-            QueueProvider.offer("You have tried to escape too many times!");
+            session.offer("You have tried to escape too many times!");
             return escapeAttempts - 1;
         } else {
-            QueueProvider.offer("You failed to escape the: " +
+            session.offer("You failed to escape the: " +
                     attacker.getName());
             return escapeAttempts-1;
         }
@@ -191,7 +261,7 @@ public class BattleMenu extends Menus {
 
         if (critCalc < attacker.getCritChance()) {
             damage *= 2; // Double damage for critical hit
-            QueueProvider.offer("Crit hit! Damage has been doubled!");
+            session.offer("Crit hit! Damage has been doubled!");
         }
 
         return damage;
@@ -204,13 +274,8 @@ public class BattleMenu extends Menus {
     }
 
     private void logDamageDealt(int healthReduction, Entity defender, Entity attacker) {
-        QueueProvider.offer(healthReduction + " damage dealt!");
-        if (attacker instanceof Player) {
-            QueueProvider.offer("The " + defender.getName() + "'s health is " +
-                    defender.getHealth());
-        } else {
-            QueueProvider.offer("Your health is " + defender.getHealth());
-        }
+        session.emit(new DamageEvent(attacker.getName(), defender.getName(), healthReduction,
+                defender.getHealth(), attacker instanceof Player));
     }
 
     private void mutateStats(double damageMult, double armourMult) {
@@ -227,26 +292,24 @@ public class BattleMenu extends Menus {
 
     private void equip() {
         player.printStorage();
-        QueueProvider.offer("What item do you want to use?");
-        String itemName = QueueProvider.take();
-        if (!itemName.equalsIgnoreCase("back")) {
-            player.equipItem(itemName);
-        }
+        session.offer("What item do you want to use?");
+        state = State.EQUIPPING;
     }
 
     private void unequip() {
         player.printEquipment();
-        QueueProvider.offer("What item do you want to unequip?");
-        String itemName = QueueProvider.take();
-        if (!itemName.equalsIgnoreCase("back")) {
-            player.dequipItem(itemName);
-        }
+        session.offer("What item do you want to unequip?");
+        state = State.UNEQUIPPING;
     }
 
-    private void viewStats() {
-        QueueProvider.offer("\nWhat is your command? ex. View stats(vs), " +
+    private void askViewCommand() {
+        session.offer("\nWhat is your command? ex. View stats(vs), " +
                 "View Backpack(vb), View Equipment(ve) ");
-        String input = QueueProvider.take();
+        state = State.VIEWING;
+    }
+
+    private void viewStats(String input) {
+        state = State.CHOOSING;
         switch (input) {
             case "vs":
             case "viewstats":
@@ -264,7 +327,7 @@ public class BattleMenu extends Menus {
             case "exit":
                 break;
             default:
-                viewStats();
+                askViewCommand();
                 break;
         }
     }
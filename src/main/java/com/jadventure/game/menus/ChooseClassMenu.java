@@ -1,40 +1,36 @@
 package com.jadventure.game.menus;
 
 import com.jadventure.game.entities.Player;
-import com.jadventure.game.DeathException;
 import com.jadventure.game.Game;
-import com.jadventure.game.QueueProvider;
+import com.jadventure.game.GameContext;
+import com.jadventure.game.Session;
 
 /**
  * Called when creating a new Player
  */
 public class ChooseClassMenu extends Menus {
+    private static final Menu CLASSES = new Menu(
+            new MenuItem("Recruit", "A soldier newly enlisted to guard the city of Silliya"),
+            new MenuItem("SewerRat", "A member of the underground of Silliya"));
 
-    public ChooseClassMenu() throws DeathException {
-        this.menuItems.add(new MenuItem("Recruit", "A soldier newly enlisted to guard the city of Silliya"));
-        this.menuItems.add(new MenuItem("SewerRat", "A member of the underground of Silliya"));
+    private final GameContext context;
 
-        while(true) {
-            QueueProvider.offer("Choose a class to get started with:");
-            MenuItem selectedItem = displayMenu(this.menuItems);
-            if(testOption(selectedItem)) {
-            	break;
-            }
-        }
+    public ChooseClassMenu(Session session, GameContext context) {
+        super(session, CLASSES);
+        this.context = context;
+    }
+
+    @Override
+    protected void printHeader() {
+        session.offer("Choose a class to get started with:");
     }
 
-    private static boolean testOption(MenuItem m) throws DeathException {
+    @Override
+    protected void selected(MenuItem m) {
         String key = m.getKey();
-        if(key.equals("recruit")) {
-            Player player = Player.getInstance("recruit");
-            new Game(player, "new");
-            return true;
-        } else if(key.equals("sewerrat")) {
-            Player player = Player.getInstance("sewerrat");
-            new Game(player, "new");
-            return true;
-        } else {
-            return false;
+        if(key.equals("recruit") || key.equals("sewerrat")) {
+            Player player = Player.getInstance(context, key);
+            replace(new Game(session, context, player, "new"));
         }
     }
 }
@@ -1,13 +1,12 @@
 package com.jadventure.game.menus;
 
 import java.io.File;
-import java.net.Socket;
 
 import com.jadventure.game.DeathException;
 import com.jadventure.game.Game;
-import com.jadventure.game.GameModeType;
+import com.jadventure.game.GameContext;
 import com.jadventure.game.JAdventure;
-import com.jadventure.game.QueueProvider;
+import com.jadventure.game.Session;
 import com.jadventure.game.entities.Player;
 
 /**
@@ -16,111 +15,136 @@ import com.jadventure.game.entities.Player;
  * This menu lets the player choose whether to load an exiting game,
  * start a new one, or exit to the terminal.
  */
-public class MainMenu extends Menus implements Runnable {
-     
-    public MainMenu(Socket server, GameModeType mode){
-        QueueProvider.startMessenger(mode, server);
-    }
+public class MainMenu extends Menus {
+    private enum State { MENU, LOAD, DELETE, CONFIRM_DELETE }
+
+    private static final Menu MENU = new Menu(
+            new MenuItem("Start", "Starts a new Game", "new"),
+            new MenuItem("Load", "Loads an existing Game"),
+            new MenuItem("Delete", "Deletes an existing Game"),
+            new MenuItem("Exit", null, "quit"));
+
+    private final GameContext context;
+    private State state = State.MENU;
+    private String profileToDelete;
 
-    public MainMenu() {
-        start();
+    public MainMenu(Session session, GameContext context) {
+        super(session, MENU);
+        this.context = context;
     }
-    
-    public void run() {
-        start();
+
+    @Override
+    protected void prompt() {
+        if (state == State.DELETE && isProfileDirEmpty()) {
+            session.offer("\nThere are no profiles to delete.");
+            state = State.MENU;
+        }
+        switch (state) {
+            case LOAD:
+                listProfiles();
+                session.offer("\nSelect a profile to load. Type 'back' to go back.");
+                break;
+            case DELETE:
+                listProfiles();
+                session.offer("\nWhich profile do you want to delete? Type 'back' to go back.");
+                break;
+            case CONFIRM_DELETE:
+                break;
+            default:
+                super.prompt();
+                break;
+        }
     }
 
-    public void start() {
-        menuItems.add(new MenuItem("Start", "Starts a new Game", "new"));
-        menuItems.add(new MenuItem("Load", "Loads an existing Game"));
-        menuItems.add(new MenuItem("Delete", "Deletes an existing Game"));
-        menuItems.add(new MenuItem("Exit", null, "quit"));
-
-        boolean continuing = true;
-        do {
-            MenuItem selectedItem = displayMenu(menuItems);
-            try {
-                continuing = testOption(selectedItem);
-            } catch (DeathException e) {
-                if (e.getLocalisedMessage().equals("close")) {
-                    continuing = false;
-                }
-            }
-        } while(continuing);
-        QueueProvider.offer("EXIT");
+    @Override
+    protected void handle(String key) throws DeathException {
+        switch (state) {
+            case LOAD:
+                loadProfile(key);
+                break;
+            case DELETE:
+                chooseProfileToDelete(key);
+                break;
+            case CONFIRM_DELETE:
+                deleteProfile(key);
+                break;
+            default:
+                super.handle(key);
+                break;
+        }
     }
 
-    private static boolean testOption(MenuItem m) throws DeathException {
+    @Override
+    protected void selected(MenuItem m) {
         String key = m.getKey();
         switch (key){
             case "start":
-                new ChooseClassMenu();
+                push(new ChooseClassMenu(session, context));
                 break;
             case "load":
-                loadProfileFromMenu();
+                if (isProfileDirEmpty()) {
+                    session.offer("\nThere are no profiles to load. Please start a new game instead.");
+                } else {
+                    state = State.LOAD;
+                }
                 break;
             case "delete":
-                deleteProfileFromMenu();
+                state = State.DELETE;
                 break;
             case "exit":
-                QueueProvider.offer("Goodbye!");
-                return false;
+                session.offer("Goodbye!");
+                finish();
+                break;
+        }
+    }
+
+    /**
+     * A game that ended with the player's death goes back to this menu,
+     * unless the player didn't want to start again.
+     */
+    @Override
+    protected boolean died(DeathException e) {
+        state = State.MENU;
+        if (e.getLocalisedMessage().equals("close")) {
+            finish();
         }
         return true;
     }
 
-    private static void loadProfileFromMenu() throws DeathException {
-        String key;
-        if (isProfileDirEmpty()) {
-            QueueProvider.offer("\nThere are no profiles to load. Please start a new game instead.");
-            return;
+    private void loadProfile(String key) {
+        if (key.equals("exit") || key.equals("back")) {
+            state = State.MENU;
+        } else if (Player.profileExists(key)) {
+            state = State.MENU;
+            push(new Game(session, context, Player.load(context, key), "old"));
+        } else {
+            session.offer("That user doesn't exist. Try again.");
         }
-        Player player = null;
-        do {
-            listProfiles();
-            QueueProvider.offer("\nSelect a profile to load. Type 'back' to go back.");
-            key = QueueProvider.take();
-            if (key.equals("exit") || key.equals("back")) {
-                return;
-            } else if (Player.profileExists(key)) {
-                player = Player.load(key);
-            } else {
-                QueueProvider.offer("That user doesn't exist. Try again.");
-            }
-        } while (player == null);
-        new Game(player, "old");
     }
 
-    private static void deleteProfileFromMenu() {
-        String key;
-        while (true) {
-            if (isProfileDirEmpty()) {
-                QueueProvider.offer("\nThere are no profiles to delete.");
-                return;
-            }
-            listProfiles();
-            QueueProvider.offer("\nWhich profile do you want to delete? Type 'back' to go back.");
-            key = QueueProvider.take();
-            if ((key.equals("exit") || key.equals("back"))) {
-                return;
-            }
-            if (Player.profileExists(key)) {
-                String profileName = key;
-                QueueProvider.offer("Are you sure you want to delete " + profileName + "? y/n");
-                key = QueueProvider.take();
-                if ((key.equals("exit") || key.equals("back"))) {
-                    return;
-                } else if (key.equals("y")) {
-                    File profile = new File("json/profiles/" + profileName);
-                    deleteDirectory(profile);
-                    QueueProvider.offer(profileName + " has been deleted.");
-                    return;
-                } else {
-                    QueueProvider.offer(profileName + " will NOT be deleted.");
-                }
-            } else {
-                QueueProvider.offer("That user doesn't exist. Try again.");
-            }
+    private void chooseProfileToDelete(String key) {
+        if ((key.equals("exit") || key.equals("back"))) {
+            state = State.MENU;
+        } else if (Player.profileExists(key)) {
+            profileToDelete = key;
+            session.offer("Are you sure you want to delete " + profileToDelete + "? y/n");
+            state = State.CONFIRM_DELETE;
+        } else {
+            session.offer("That user doesn't exist. Try again.");
+        }
+    }
+
+    private void deleteProfile(String key) {
+        if ((key.equals("exit") || key.equals("back"))) {
+            state = State.MENU;
+        } else if (key.equals("y")) {
+            File profile = new File("json/profiles/" + profileToDelete);
+            deleteDirectory(profile);
+            session.offer(profileToDelete + " has been deleted.");
+            state = State.MENU;
+        } else {
+            session.offer(profileToDelete + " will NOT be deleted.");
+            state = State.DELETE;
         }
     }
 
@@ -143,17 +167,17 @@ public class MainMenu extends Menus implements Runnable {
         return (numProfiles == 0);
     }
 
-    private static void listProfiles() {
+    private void listProfiles() {
         if (isProfileDirEmpty()) {
-            QueueProvider.offer("No profiles found.");
+            session.offer("No profiles found.");
             return;
         }
         File file = new File("json/profiles");
         String[] profiles = file.list();
-        QueueProvider.offer("Profiles:");
+        session.offer("Profiles:");
         for (String name : profiles) {
             if (new File("json/profiles/" + name).isDirectory()) {
-                QueueProvider.offer("  " + name);
+                session.offer("  " + name);
             }
         }
     }
@@ -0,0 +1,101 @@
+package com.jadventure.game.menus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jadventure.game.Session;
+import com.jadventure.game.events.MenuEvent;
+
+/**
+ * The items of a menu, compiled once into what choosing from them needs:
+ * a table from every key and alt command to its item, and the MenuEvent
+ * the menu is shown with, as numbered lines or as JSON.
+ *
+ * A Menu can't be changed, so menus that look the same for everybody are
+ * built once and shared by all sessions. The items of a compiled menu must
+ * not be changed either.
+ */
+public final class Menu {
+    private final List<MenuItem> items;
+    private final Map<String, MenuItem> commands;
+    private final MenuEvent event;
+
+    public Menu(MenuItem... items) {
+        this(Arrays.asList(items));
+    }
+
+    public Menu(List<MenuItem> items) {
+        MenuItem[] copy = items.toArray(new MenuItem[0]);
+        this.items = Collections.unmodifiableList(Arrays.asList(copy));
+        this.commands = new HashMap<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < copy.length; i++) {
+            MenuItem menuItem = copy[i];
+            for (String command: menuItem.getAltCommands()) {
+                commands.putIfAbsent(command.toLowerCase(), menuItem);
+            }
+            commands.putIfAbsent(menuItem.getKey(), menuItem);
+            if (i > 0) {
+                text.append('\n');
+            }
+            text.append('[').append(i + 1).append("] ").append(menuItem.getCommand());
+            if (menuItem.getDescription() != null) {
+                text.append(" - ").append(menuItem.getDescription());
+            }
+        }
+        this.event = new MenuEvent(this.items, copy.length > 0 ? text.toString() : null);
+    }
+
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Returns the item the player chose with its number, key or one of
+     * its alt commands, null if the input chooses none of them.
+     */
+    public MenuItem select(String input) {
+        int number = parseNumber(input);
+        if (number > 0) {
+            return (number <= items.size()) ? items.get(number - 1) : null;
+        }
+        MenuItem menuItem = commands.get(input);
+        if (menuItem == null) {
+            menuItem = commands.get(input.toLowerCase());
+        }
+        return menuItem;
+    }
+
+    /**
+     * Shows the items to the player, one numbered line each.
+     */
+    public void print(Session session) {
+        session.emit(event);
+    }
+
+    /**
+     * Returns the number the input is made of, 0 if it isn't one.
+     */
+    private static int parseNumber(String input) {
+        int length = input.length();
+        if (length == 0 || length > 9) {
+            return 0;
+        }
+        int number = 0;
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+}
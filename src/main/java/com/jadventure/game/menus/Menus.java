@@ -1,56 +1,77 @@
 package com.jadventure.game.menus;
 
+import com.jadventure.game.DeathException;
+import com.jadventure.game.Flow;
 import com.jadventure.game.QueueProvider;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import com.jadventure.game.Session;
 
 /**
  * All menus in JAdventure extend this class
- * Add MenuItems to menuItems, call displayMenu and you're happy
+ * Set the Menu to choose from, push the menu and override selected()
+ * to act on the player's choice.
  */
-public class Menus {
-    protected List<MenuItem> menuItems = new ArrayList<>();
-    protected Map<String, MenuItem> commandMap = new HashMap<String, MenuItem>();
-
-    public MenuItem displayMenu(List<MenuItem> m) {
-        int i = 1;
-        for (MenuItem menuItem: m) {
-            commandMap.put(String.valueOf(i), menuItem);
-            commandMap.put(menuItem.getKey(), menuItem);
-            for (String command: menuItem.getAltCommands()) {
-                commandMap.put(command.toLowerCase(), menuItem);
-            }
-            i ++;
+public class Menus extends Flow {
+    protected Menu menu;
+    protected final Session session;
+    /** The last input wasn't understood, only the items are shown again */
+    private boolean retrying = false;
+
+    /**
+     * Creates a menu talking to the session bound to the current thread.
+     */
+    public Menus() {
+        this(QueueProvider.getSession());
+    }
+
+    public Menus(Session session) {
+        this(session, null);
+    }
+
+    public Menus(Session session, Menu menu) {
+        this.session = session;
+        this.menu = menu;
+    }
+
+    @Override
+    protected void prompt() {
+        if (!retrying) {
+            printHeader();
         }
-        MenuItem selectedItem = selectMenu(m);
-        return selectedItem;
+        retrying = false;
+        menu.print(session);
     }
 
-    // calls for user input from command line
-    protected MenuItem selectMenu(List<MenuItem> m) {
-        this.printMenuItems(m);
-        String command = QueueProvider.take();
-        if (commandMap.containsKey(command.toLowerCase())) {
-            return commandMap.get(command.toLowerCase());
-        } else {
-            QueueProvider.offer("I don't know what '" + command + "' means.");
-            return this.displayMenu(m);
+    @Override
+    protected void handle(String input) throws DeathException {
+        MenuItem selectedItem = select(input);
+        if (selectedItem != null) {
+            selected(selectedItem);
         }
     }
 
-    private void printMenuItems(List<MenuItem> m) {
-        int i = 1;
-        for (MenuItem menuItem: m) {
-            if (menuItem.getDescription() != null) {
-                QueueProvider.offer("[" + i + "] " + menuItem.getCommand() + " - " + menuItem.getDescription());
-            } else {
-                QueueProvider.offer("[" + i + "] " + menuItem.getCommand());
-            }
-            i++;
+    /**
+     * Shows what the menu is about above its items. Shows nothing by
+     * default.
+     */
+    protected void printHeader() {
+    }
+
+    /**
+     * Plays the item the player chose.
+     */
+    protected void selected(MenuItem m) throws DeathException {
+    }
+
+    /**
+     * Returns the item the command stands for. If there is none the player
+     * is told so and null is returned, the menu is then shown again.
+     */
+    protected MenuItem select(String command) {
+        MenuItem selectedItem = menu.select(command);
+        if (selectedItem == null) {
+            session.offer("I don't know what '" + command + "' means.");
+            retrying = true;
         }
+        return selectedItem;
     }
 }
-
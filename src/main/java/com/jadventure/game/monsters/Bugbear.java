@@ -1,12 +1,14 @@
 package com.jadventure.game.monsters;
 
 import com.jadventure.game.items.ItemStack;
+import com.jadventure.game.repository.ItemRepository;
 
 /*
  * A hybrid animal with the matching armour and high damage, but low health.
  */
 public class Bugbear extends Monster {
-	public Bugbear(int playerLevel){
+	public Bugbear(int playerLevel, ItemRepository itemRepo){
+		super(itemRepo);
 		this.monsterType = "Bugbear";
 		this.setHealthMax(50 + playerLevel * 5);
 		this.setHealth(50 + playerLevel * 5);
@@ -1,10 +1,13 @@
 package com.jadventure.game.monsters;
 
+import com.jadventure.game.repository.ItemRepository;
+
 /*
  * A monster with high health and damage, but low armour.
  */
 public class Giant extends Monster {
-    public Giant(int playerLevel){
+    public Giant(int playerLevel, ItemRepository itemRepo){
+        super(itemRepo);
         this.monsterType = "Giant";
         this.setHealthMax(150 + playerLevel * 8);
         this.setHealth(150 + playerLevel * 8);
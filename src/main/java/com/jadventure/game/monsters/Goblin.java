@@ -1,10 +1,13 @@
 package com.jadventure.game.monsters;
 
+import com.jadventure.game.repository.ItemRepository;
+
 /*
  * A monster that isn't too bad, but does come with slight armour.
  */
 public class Goblin extends Monster {
-	public Goblin(int playerLevel){
+	public Goblin(int playerLevel, ItemRepository itemRepo){
+		super(itemRepo);
 		this.monsterType = "Goblin";
 		this.setHealthMax(55 + playerLevel * 6);
 		this.setHealth(55 + playerLevel * 6);
@@ -2,7 +2,6 @@ package com.jadventure.game.monsters;
 
 import com.jadventure.game.entities.NPC;
 import com.jadventure.game.items.Item;
-import com.jadventure.game.GameBeans;
 import com.jadventure.game.repository.ItemRepository;
 
 import java.util.List;
@@ -16,7 +15,11 @@ import java.util.Random;
  */
 public abstract class Monster extends NPC {
     public String monsterType;
-    private ItemRepository itemRepo = GameBeans.getItemRepository();
+    private final ItemRepository itemRepo;
+
+    protected Monster(ItemRepository itemRepo) {
+        this.itemRepo = itemRepo;
+    }
 
     @Override
     public boolean equals(Object obj) {
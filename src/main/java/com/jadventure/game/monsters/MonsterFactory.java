@@ -1,6 +1,7 @@
 package com.jadventure.game.monsters;
 
 import com.jadventure.game.entities.Player;
+import com.jadventure.game.repository.ItemRepository;
 
 import java.util.Random;
 
@@ -10,7 +11,12 @@ import java.util.Random;
  */
 public class MonsterFactory {
     Random random = new Random();
- 
+    private final ItemRepository itemRepo;
+
+    public MonsterFactory(ItemRepository itemRepo) {
+        this.itemRepo = itemRepo;
+    }
+
     public Monster generateMonster(Player player) {
         int randomInt = random.nextInt(5) + 1;
         if (randomInt <= player.getLocation().getDangerRating()) {
@@ -36,42 +42,42 @@ public class MonsterFactory {
     private Monster getForestMonster(int playerLevel) {
         int randomInt = random.nextInt(4);
         if (randomInt == 0)
-        	return new Bugbear(playerLevel);
+        	return new Bugbear(playerLevel, itemRepo);
         else if (randomInt == 1)
-        	return new Troll(playerLevel);
+        	return new Troll(playerLevel, itemRepo);
         else
-        	return new Goblin(playerLevel);
+        	return new Goblin(playerLevel, itemRepo);
     }
     
     private Monster getSwampMonster(int playerLevel) {
     	int randomInt = random.nextInt(2);
-        return (randomInt == 1) ? new Goblin(playerLevel) : new Troll(playerLevel);
+        return (randomInt == 1) ? new Goblin(playerLevel, itemRepo) : new Troll(playerLevel, itemRepo);
     }
     
     private Monster getMountainMonster(int playerLevel) {
     	int randomInt = random.nextInt(4);
         if (randomInt == 0)
-            return new Giant(playerLevel);
+            return new Giant(playerLevel, itemRepo);
         else if (randomInt == 1)
-            return new Troll(playerLevel);
+            return new Troll(playerLevel, itemRepo);
         else if (randomInt == 2)
-            return new Wolf(playerLevel);
+            return new Wolf(playerLevel, itemRepo);
         else
-            return new Skeleton(playerLevel);
+            return new Skeleton(playerLevel, itemRepo);
     }
 
     private Monster getCaveMonster(int playerLevel) {
     	int randomInt = random.nextInt(4);
         if (randomInt == 0)
-            return new Troll(playerLevel);
+            return new Troll(playerLevel, itemRepo);
         else if (randomInt == 1)
-            return new Skeleton(playerLevel);
+            return new Skeleton(playerLevel, itemRepo);
         else
-            return new Goblin(playerLevel);
+            return new Goblin(playerLevel, itemRepo);
     }
 
     private Monster getPlainsMonster(int playerLevel) {
     	int randomInt = random.nextInt(2);
-    	return (randomInt == 1) ? new Bugbear(playerLevel) : new Goblin(playerLevel);
+    	return (randomInt == 1) ? new Bugbear(playerLevel, itemRepo) : new Goblin(playerLevel, itemRepo);
     }
 }
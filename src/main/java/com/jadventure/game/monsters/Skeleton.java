@@ -1,10 +1,13 @@
 package com.jadventure.game.monsters;
 
+import com.jadventure.game.repository.ItemRepository;
+
 /*
  * A monster that is pretty easy to deal with.
  */
 public class Skeleton extends Monster {
-	public Skeleton(int playerLevel){
+	public Skeleton(int playerLevel, ItemRepository itemRepo){
+		super(itemRepo);
 		this.monsterType = "Skeleton";
 		this.setHealthMax(50 + (int) Math.pow(playerLevel, 3));
 		this.setHealth(50 + (int) Math.pow(playerLevel, 3));
@@ -1,10 +1,13 @@
 package com.jadventure.game.monsters;
 
+import com.jadventure.game.repository.ItemRepository;
+
 /*
  * A monster without low damage, but high health and armour.
  */
 public class Troll extends Monster {
-	public Troll(int playerLevel){
+	public Troll(int playerLevel, ItemRepository itemRepo){
+		super(itemRepo);
 		this.monsterType = "Troll";
 		this.setHealthMax(70 + playerLevel * 11);
 		this.setHealth(70 + playerLevel * 11);
@@ -1,10 +1,13 @@
 package com.jadventure.game.monsters;
 
+import com.jadventure.game.repository.ItemRepository;
+
 /* 
  * A classic animal that is not too dangerous.
  */
 public class Wolf extends Monster {
-	public Wolf(int playerLevel){
+	public Wolf(int playerLevel, ItemRepository itemRepo){
+		super(itemRepo);
 		this.monsterType = "Wolf";
 		this.setHealthMax(35 + playerLevel * 3);
 		this.setHealth(35 + playerLevel * 3);
@@ -20,6 +20,13 @@ public interface ILocation {
 
     List<Item> getItems();
     Storage getStorage();
+    /**
+     * Returns the items, NPCs or monsters here going by the name the
+     * player typed, see NameIndex.
+     */
+    List<Item> findItems(String name);
+    List<NPC> findNpcs(String name);
+    List<Monster> findMonsters(String name);
 
     void addItem(Item item);
     Item removeItem(Item item);
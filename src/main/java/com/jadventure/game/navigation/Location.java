@@ -3,18 +3,20 @@ package com.jadventure.game.navigation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.jadventure.game.GameBeans;
+import com.jadventure.game.NameIndex;
 import com.jadventure.game.QueueProvider;
 import com.jadventure.game.entities.NPC;
+import com.jadventure.game.events.ExitsEvent;
+import com.jadventure.game.events.LocationEvent;
+import com.jadventure.game.events.NamesEvent;
 import com.jadventure.game.items.Item;
 import com.jadventure.game.items.Storage;
 import com.jadventure.game.monsters.Monster;
-import com.jadventure.game.repository.ItemRepository;
 import com.jadventure.game.repository.LocationRepository;
-import com.jadventure.game.repository.NpcRepository;
 import com.jadventure.game.repository.RepositoryException;
 
 /**
@@ -22,10 +24,6 @@ import com.jadventure.game.repository.RepositoryException;
  * It also contains the method to print a location's details.
  */
 public class Location implements ILocation {
-    // @Resource
-    protected static ItemRepository itemRepo = GameBeans.getItemRepository();
-    protected static NpcRepository npcRepo = GameBeans.getNpcRepository();
-
     private Coordinate coordinate;
     private String title;
     private String description;
@@ -34,15 +32,25 @@ public class Location implements ILocation {
     private Storage storage = new Storage();
     private List<NPC> npcs = new ArrayList<>();
     private List<Monster> monsters = new ArrayList<>();
+    private final NameIndex<NPC> npcNames = new NameIndex<>();
+    private final NameIndex<Monster> monsterNames = new NameIndex<>();
+    /** The world this location is part of, the exits lead to its other locations */
+    private LocationRepository locationRepo;
 
     public Location() {
 
     }
     public Location(Coordinate coordinate, String title, String description, LocationType locationType) {
+        this(coordinate, title, description, locationType, null);
+    }
+
+    public Location(Coordinate coordinate, String title, String description, LocationType locationType,
+            LocationRepository locationRepo) {
         this.coordinate = coordinate;
         this.title = title;
         this.description = description;
         this.locationType = locationType;
+        this.locationRepo = locationRepo;
     }
 
     public Coordinate getCoordinate() {
@@ -89,7 +97,9 @@ public class Location implements ILocation {
     public Map<Direction, ILocation> getExits() {
         Map<Direction, ILocation> exits = new HashMap<Direction, ILocation>();
         ILocation borderingLocation;
-        LocationRepository locationRepo = GameBeans.getLocationRepository();
+        if (locationRepo == null) {
+            return exits;
+        }
         for(Direction direction: Direction.values()) {
             try {
                 borderingLocation = locationRepo.getLocation(getCoordinate().getBorderingCoordinate(direction));
@@ -113,6 +123,10 @@ public class Location implements ILocation {
         return storage.getItems();
     }
 
+    public List<Item> findItems(String name) {
+        return storage.search(name);
+    }
+
     public void addNpcs(List<NPC> npcs) {
         for (NPC npc : npcs) {
             addNpc(npc);
@@ -121,10 +135,11 @@ public class Location implements ILocation {
 
     public void addNpc(NPC npc) {
         npcs.add(npc);
+        npcNames.add(npc.getName(), npc);
     }
 
     public void remove(NPC npc) {
-        if (npc.getClass() == Monster.class) {
+        if (npc instanceof Monster) {
             removeMonster((Monster) npc);
         } else {
             removeNpc(npc);
@@ -134,7 +149,8 @@ public class Location implements ILocation {
     public void removeNpc(NPC npc) {
         for (int i = 0; i < npcs.size(); i++) {
             if (npcs.get(i).equals(npc)) {
-                npcs.remove(i);
+                NPC removed = npcs.remove(i);
+                npcNames.remove(removed.getName(), removed);
             }
         }
     }
@@ -143,16 +159,22 @@ public class Location implements ILocation {
         return Collections.unmodifiableList(npcs);
     }
 
+    public List<NPC> findNpcs(String name) {
+        return new ArrayList<>(npcNames.find(name));
+    }
+
     public void addMonster(Monster monster) {
         if (monster != null) {
             monsters.add(monster);
+            monsterNames.add(monster.monsterType, monster);
         }
     }
 
     public void removeMonster(Monster monster) {
         for (int i = 0; i < monsters.size(); i++) {
             if (monsters.get(i).equals(monster)) {
-                monsters.remove(i);
+                Monster removed = monsters.remove(i);
+                monsterNames.remove(removed.monsterType, removed);
             }
         }
     }
@@ -161,6 +183,10 @@ public class Location implements ILocation {
         return monsters;
     }
 
+    public List<Monster> findMonsters(String name) {
+        return new ArrayList<>(monsterNames.find(name));
+    }
+
     public Item removeItem(Item item) {
         return storage.remove(item);
     }
@@ -170,26 +196,21 @@ public class Location implements ILocation {
     }
 
     public void print() {
-        QueueProvider.offer("\n" + getTitle() + ":");
-        QueueProvider.offer("    " + getDescription());
-        List<Item> items = getItems();
-        if (!items.isEmpty()) {
-            QueueProvider.offer("Items:");
-            for (Item item : items) {
-                QueueProvider.offer("    " + item.getName());
-            }
+        QueueProvider.emit(new LocationEvent(getCoordinate(), getTitle(), getDescription()));
+        List<String> itemNames = new ArrayList<>();
+        for (Item item : getItems()) {
+            itemNames.add(item.getName());
         }
-        List<NPC> npcs = getNpcs();
-        if (!npcs.isEmpty()) {
-            QueueProvider.offer("NPCs:");
-            for (NPC npc : npcs) {
-                QueueProvider.offer("   " + npc.getName());
-            }
+        QueueProvider.emit(NamesEvent.items(itemNames));
+        List<String> npcNames = new ArrayList<>();
+        for (NPC npc : getNpcs()) {
+            npcNames.add(npc.getName());
         }
-        QueueProvider.offer("");
+        QueueProvider.emit(NamesEvent.npcs(npcNames));
+        Map<Direction, String> exits = new LinkedHashMap<>();
         for (Map.Entry<Direction,ILocation> direction : getExits().entrySet()) {
-		QueueProvider.offer(direction.getKey().getDescription() + ": ");
-    		QueueProvider.offer("    " + direction.getValue().getDescription());
+            exits.put(direction.getKey(), direction.getValue().getDescription());
         }
+        QueueProvider.emit(new ExitsEvent(exits));
     }
 }
@@ -1,10 +1,9 @@
 package com.jadventure.game.prompts;
 
+import com.jadventure.game.Flow;
 import com.jadventure.game.entities.Player;
 import com.jadventure.game.items.Item;
 import com.jadventure.game.repository.RepositoryException;
-import com.jadventure.game.repository.ItemRepository;
-import com.jadventure.game.GameBeans;
 import com.jadventure.game.QueueProvider;
 
 
@@ -14,31 +13,38 @@ import com.jadventure.game.QueueProvider;
  *
  * Items are added by their names and removed by their display name
  */
-public class BackpackDebugPrompt{
-    // @Resource
-    protected static ItemRepository itemRepo = GameBeans.getItemRepository();
-
+public class BackpackDebugPrompt extends Flow {
     private static String helpText = "\nlist: Lists the current item the player has\n"+
                                      "add: Add a new item\n"+
                                      "remove: Remove an item\n"+
                                      "help: Prints this info\n"+
                                      "exit: Exits the BackpackDebugMenu\n";
 
+    private final Player player;
+
     public BackpackDebugPrompt(Player player){
-        boolean continuePrompt = true;
-        while(continuePrompt){
-            QueueProvider.offer("Edit backpack:");
-            String command = QueueProvider.take();
-            continuePrompt = parse(player, command.toLowerCase());
+        this.player = player;
+    }
+
+    @Override
+    protected void prompt() {
+        QueueProvider.offer("Edit backpack:");
+    }
+
+    @Override
+    protected void handle(String command) {
+        if (!parse(player, command.toLowerCase())) {
+            finish();
         }
     }
+
     public static boolean parse(Player player, String command){
         boolean continuePrompt = true;
         
         try {
             if (command.startsWith("add")){
                 try {
-                    Item appendItem = itemRepo.getItem(command.substring(3).trim());
+                    Item appendItem = player.getItemRepository().getItem(command.substring(3).trim());
                     if (appendItem.getName() != null)
                         player.addItemToStorage(appendItem);
                 } catch (RepositoryException ex) {
@@ -1,11 +1,11 @@
 package com.jadventure.game.prompts;
 
-import com.jadventure.game.DeathException;
-import com.jadventure.game.GameBeans;
+import com.jadventure.game.GameContext;
 import com.jadventure.game.QueueProvider;
 import com.jadventure.game.conversation.ConversationManager;
 import com.jadventure.game.entities.NPC;
 import com.jadventure.game.entities.Player;
+import com.jadventure.game.items.Item;
 import com.jadventure.game.monsters.Monster;
 import com.jadventure.game.monsters.MonsterFactory;
 import com.jadventure.game.navigation.Coordinate;
@@ -14,11 +14,9 @@ import com.jadventure.game.navigation.ILocation;
 import com.jadventure.game.navigation.LocationType;
 import com.jadventure.game.repository.ItemRepository;
 import com.jadventure.game.repository.LocationRepository;
-import com.jadventure.game.repository.NpcRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -28,16 +26,19 @@ import java.util.Random;
 /**
  * CommandCollection contains the declaration of the methods mapped to game commands
  *
- * The declared command methods are accessed only by reflection.
+ * The CommandProcessor generates the CommandCollectionRegistry from the
+ * annotated methods, which calls them directly.
  * To declare a new command, add an appropriate method to this class and Annotate it with
  * Command(command, aliases, description)
+ *
+ * Every CommandParser has a collection of its own, working on the player
+ * and the world of its GameContext.
  */
-public enum CommandCollection {
-    INSTANCE;
-
+public class CommandCollection {
     private final Logger logger = LoggerFactory.getLogger(CommandCollection.class);
 
-    private static Player player;
+    private final GameContext context;
+    private Player player;
     private static final Random random = new Random();
 
     private final static Map<String, String> DIRECTION_LINKS = new HashMap<>();
@@ -50,69 +51,24 @@ public enum CommandCollection {
         DIRECTION_LINKS.put("d", "down");
     }
 
-    public static CommandCollection getInstance() {
-        return INSTANCE;
+    public CommandCollection(GameContext context) {
+        this.context = context;
     }
 
     public void initPlayer(Player player) {
-        CommandCollection.player = player;
+        this.player = player;
     }
 
     // command methods here
 
     @Command(command = "help", aliases = "h", description = "Prints help", debug = false)
     public void command_help() {
-        Method[] methods = CommandCollection.class.getMethods();
-        int commandWidth = 0;
-        int descriptionWidth = 0;
         QueueProvider.offer("");
-
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(Command.class)) {
-                Command annotation = method.getAnnotation(Command.class);
-                int currentCommandWidth = calculateCommandWidth(annotation);
-                int currentDescriptionWidth = annotation.description().length();
-
-                commandWidth = Math.max(commandWidth, currentCommandWidth);
-                descriptionWidth = Math.max(descriptionWidth, currentDescriptionWidth);
+        for (CommandTable.HelpLine line : CommandTable.get().getHelp()) {
+            if (!line.isDebug() || "test".equals(player.getName())) {
+                QueueProvider.offer(line.getText());
             }
         }
-
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(Command.class)) {
-                Command annotation = method.getAnnotation(Command.class);
-                String formattedCommand = formatCommand(annotation);
-                String message = String.format("%-" + commandWidth + "s %-" + descriptionWidth + "s",
-                        formattedCommand,
-                        annotation.description());
-
-                if (shouldDisplayMessage(annotation)) {
-                    QueueProvider.offer(message);
-                }
-            }
-        }
-    }
-
-    private int calculateCommandWidth(Command annotation) {
-        String command = annotation.command();
-        if (annotation.aliases().length > 0) {
-            command += " (" + String.join(", ", annotation.aliases()) + "):";
-        }
-        return command.length();
-    }
-
-    private String formatCommand(Command annotation) {
-        StringBuilder command = new StringBuilder(annotation.command());
-
-        if (annotation.aliases().length > 0) {
-            command.append(" (").append(String.join(", ", annotation.aliases())).append("):");
-        }
-
-        return command.toString();
-    }
-
-    private boolean shouldDisplayMessage(Command annotation) {
-        return !annotation.debug() || ("test".equals(player.getName()) && annotation.debug());
     }
 
     @Command(command="save", aliases={"s"}, description="Save the game", debug=false)
@@ -137,7 +93,7 @@ public enum CommandCollection {
     }
 
     @Command(command = "go", aliases = {"g"}, description = "Goto a direction", debug = false)
-    public void command_g(String arg) throws DeathException {
+    public void command_g(String arg) {
         try {
             arg = DIRECTION_LINKS.get(arg);
             Direction direction = Direction.valueOf(arg.toUpperCase());
@@ -147,7 +103,7 @@ public enum CommandCollection {
         }
     }
 
-    private void movePlayer(Direction direction) throws DeathException {
+    private void movePlayer(Direction direction) {
         ILocation location = player.getLocation();
         Map<Direction, ILocation> exits = location.getExits();
 
@@ -181,7 +137,7 @@ public enum CommandCollection {
         player.getLocation().print();
     }
 
-    private void handleLocationEvents() throws DeathException {
+    private void handleLocationEvents() {
 
         if (player.getLocation().getMonsters().size() == 0) {
             spawnMonsters(random);
@@ -200,7 +156,7 @@ public enum CommandCollection {
     }
 
     private void spawnMonsters(Random random) {
-        MonsterFactory monsterFactory = new MonsterFactory();
+        MonsterFactory monsterFactory = new MonsterFactory(context.getItemRepository());
         int upperBound = random.nextInt(player.getLocation().getDangerRating() + 1);
         for (int i = 0; i < upperBound; i++) {
             Monster monster = monsterFactory.generateMonster(player);
@@ -208,7 +164,7 @@ public enum CommandCollection {
         }
     }
 
-    private void attackRandomMonster() throws DeathException {
+    private void attackRandomMonster() {
         List<Monster> monsters = player.getLocation().getMonsters();
         if (monsters.size() > 0) {
             int posMonster = random.nextInt(monsters.size());
@@ -221,23 +177,22 @@ public enum CommandCollection {
 
     @Command(command="inspect", aliases = {"i", "lookat"}, description="Inspect an item", debug=false)
     public void command_i(String arg) {
-        player.inspectItem(arg.trim());
+        player.inspectItem(arg);
     }
 
     @Command(command="equip", aliases= {"e"}, description="Equip an item", debug=false)
     public void command_e(String arg) {
-        player.equipItem(arg.trim());
+        player.equipItem(arg);
     }
 
     @Command(command="unequip", aliases={"ue"}, description="Unequip an item", debug=false)
     public void command_ue(String arg) {
-        player.dequipItem(arg.trim());
+        player.dequipItem(arg);
     }
 
     @Command(command="view", aliases={"v"}, description="View details for 'stats', 'equipped' or 'backpack'", debug=false)
-    public void command_v(String arg) {
-        arg = arg.trim();
-        switch (arg) {
+    public void command_v(Tokens arg) {
+        switch (arg.toString()) {
             case "s":
             case "stats":
                 player.getStats();
@@ -258,17 +213,17 @@ public enum CommandCollection {
 
     @Command(command="pick", aliases={"p", "pickup"}, description="Pick up an item", debug=false)
     public void command_p(String arg) {
-        player.pickUpItem(arg.trim());
+        player.pickUpItem(arg);
     }
 
     @Command(command="drop", aliases={"d"}, description="Drop an item", debug=false)
     public void command_d(String arg) {
-        player.dropItem(arg.trim());
+        player.dropItem(arg);
     }
 
     @Command(command="attack", aliases={"a"}, description="Attacks an entity", debug=false)
-    public void command_a(String arg) throws DeathException {
-        player.attack(arg.trim());
+    public void command_a(String arg) {
+        player.attack(arg);
     }
 
     @Command(command="lookaround", aliases={"la"}, description="Displays the description of the room you are in.", debug=false)
@@ -324,7 +279,7 @@ public enum CommandCollection {
 
     @Command(command="teleport", aliases={""}, description="Moves the player to specified coordinates", debug=true)
     public void command_teleport(String arg) {
-        LocationRepository locationRepo = GameBeans.getLocationRepository(player.getName());
+        LocationRepository locationRepo = context.getLocationRepository();
         ILocation newLocation = locationRepo.getLocation(new Coordinate(arg));
         ILocation oldLocation = player.getLocation();
         try {
@@ -338,48 +293,76 @@ public enum CommandCollection {
 
     @Command(command="backpack", aliases={""}, description="Opens the backpack debug menu.", debug=true)
     public void command_backpack(String arg) {
-        new BackpackDebugPrompt(player);
+        QueueProvider.push(new BackpackDebugPrompt(player));
     }
 
     @Command(command="talk", aliases={"t", "speakto"}, description="Talks to a character.", debug=false)
-    public void command_talk(String arg) throws DeathException {
-        ConversationManager cm = new ConversationManager(NpcRepository.createRepo());
-        List<NPC> npcs = player.getLocation().getNpcs();
-        NPC npc = null;
-        for (NPC i : npcs) {
-            if (i.getName().equalsIgnoreCase(arg)) {
-                npc = i;
-            }
-        }
-        if (npc != null) {
+    public void command_talk(String arg) {
+        ConversationManager cm = context.getConversationManager();
+        List<NPC> npcs = player.getLocation().findNpcs(arg);
+        if (!npcs.isEmpty()) {
+            NPC npc = npcs.get(npcs.size() - 1);
             cm.startConversation(npc, player);
         } else {
             QueueProvider.offer("Unable to talk to " + arg);
         }
     }
 
+    @Command(command="macro", aliases={}, description="Lists, defines or deletes macros", debug=false)
+    public void command_macro(Tokens arg) {
+        Map<String, String> macros = player.getMacros();
+        if (arg.isEmpty()) {
+            if (macros.isEmpty()) {
+                QueueProvider.offer("You have no macros.");
+            }
+            for (Map.Entry<String, String> macro : macros.entrySet()) {
+                QueueProvider.offer(macro.getKey() + ": " + macro.getValue());
+            }
+            return;
+        }
+        String name = arg.get(0);
+        if (arg.count() == 1) {
+            if (macros.remove(name) != null) {
+                QueueProvider.offer("Macro '" + name + "' deleted.");
+            } else {
+                QueueProvider.offer("You have no macro '" + name + "'.");
+            }
+        } else if (!Macros.isValidName(name)) {
+            QueueProvider.offer("'" + name + "' is a command already.");
+        } else {
+            // the commands as typed, the tokenizer would leave out their "a" and "to"
+            String commands = arg.sourceAfter(0);
+            macros.put(name, commands);
+            QueueProvider.offer("Macro '" + name + "' plays " + commands);
+        }
+    }
+
     private void addItemToLocation() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
+        ItemRepository itemRepo = context.getItemRepository();
+        Item item;
         if (player.getHealth() < player.getHealthMax()/3) {
-            player.getLocation().addItem(itemRepo.getRandomFood(player.getLevel()));
+            item = itemRepo.getRandomFood(player.getLevel());
         } else {
             int startIndex = random.nextInt(3);
             switch (startIndex) {
                 case 0:
-                    player.getLocation().addItem(itemRepo.getRandomWeapon(player.getLevel()));
+                    item = itemRepo.getRandomWeapon(player.getLevel());
                     break;
                 case 1:
-                    player.getLocation().addItem(itemRepo.getRandomFood(player.getLevel()));
+                    item = itemRepo.getRandomFood(player.getLevel());
                     break;
                 case 2:
-                    player.getLocation().addItem(itemRepo.getRandomArmour(player.getLevel()));
+                    item = itemRepo.getRandomArmour(player.getLevel());
                     break;
                 case 3:
-                    player.getLocation().addItem(itemRepo.getRandomPotion(player.getLevel()));
+                    item = itemRepo.getRandomPotion(player.getLevel());
                     break;
                 default:
                     throw new IllegalStateException("Unexpected value: " + startIndex);
             }
         }
+        if (item != null) {
+            player.getLocation().addItem(item);
+        }
     }
 }
@@ -1,117 +1,72 @@
 package com.jadventure.game.prompts;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.TreeMap;
-
 import com.jadventure.game.DeathException;
+import com.jadventure.game.GameContext;
 import com.jadventure.game.QueueProvider;
+import com.jadventure.game.SessionClosedException;
 import com.jadventure.game.entities.Player;
 
 /**
  * CommandParser parses the game commands
  *
  * It parses all the commands automatically.
- * To add a new command, you just need to make addition in the CommandCollection.
+ * To add a new command, you just need to make addition in the CommandCollection,
+ * its registry is generated when the game is compiled and the CommandTable
+ * shared by all parsers finds it.
  */
 public class CommandParser {
-    Player player;
-    private TreeMap<String, Method> commandMap;
+    private final CommandTable table;
+    private final Tokenizer tokenizer;
+    /** The objects of this game the commands are played on, one per command class */
+    private final Object[] commands;
+    /** The words of the line being parsed and of its argument, reused for every line */
+    private final Tokens line = new Tokens();
+    private final Tokens argument = new Tokens();
 
-    public CommandParser(Player player){
-        this.player = player;
-        commandMap = new TreeMap<String, Method>();
-        initCommandMap();
+    public CommandParser(GameContext context){
+        this(context, Tokenizer.DEFAULT);
     }
 
-    // adds the command to the commandMap
-    private void initCommandMap() {
-        Method[] methods = CommandCollection.class.getMethods();
-
-        for(Method method: methods){
-            if (!method.isAnnotationPresent(Command.class)) {
-                continue;
-            }
-            Command annotation = method.getAnnotation(Command.class);
-            this.commandMap.put(annotation.command(), method);
-            for(String alias : annotation.aliases()){
-                if (alias.length() == 0) {
-                    break;
-                }
-                this.commandMap.put(alias, method);
-            }
-        }
+    public CommandParser(GameContext context, Tokenizer tokenizer) {
+        this.table = CommandTable.get();
+        this.tokenizer = tokenizer;
+        this.commands = table.createCommands(context);
     }
 
+    /**
+     * Plays the command the player typed. Returns false if the player
+     * wants to leave the game.
+     */
     public boolean parse(Player player, String userCommand) throws DeathException {
-        CommandCollection com = CommandCollection.getInstance();
-        com.initPlayer(player);
-
-        if (userCommand.equals("exit")) {
+        Tokens command = tokenizer.tokenize(userCommand, line);
+        if (command.count() == 1 && command.is(0, "exit")) {
             return false;
         }
 
-        String command = removeNaturalText(userCommand);
-
-        // descendingKeySet otherwise startsWith will return correspond to longer command
-        // e.g. 'de' will match startWith('d')
-        for (String key : commandMap.descendingKeySet()) {
-            if (command.startsWith(key)) {
-                Method method = commandMap.get(key);
-                if (method.getParameterTypes().length == 0){
-                    if (command.equals(key)) {
-                        try {
-                            if (method.getAnnotation(Command.class).debug()) {
-                                if ("test".equals(player.getName())) {
-                                    method.invoke(com);
-                                } else {
-                                    QueueProvider.offer("Must be using test profile to debug");
-                                }
-                            } else {
-                                method.invoke(com);
-                            }
-                        } catch (IllegalAccessException | InvocationTargetException e) {
-                            if (e.getCause() instanceof DeathException) {
-                                throw (DeathException) e.getCause();
-                            } else {
-                                e.getCause().printStackTrace();
-                            }
-                        }
-                    } else {
-                        QueueProvider.offer("I don't know what '" + userCommand + "' means.");
-                        return true;
-                    }
-                } else if (method.getParameterTypes()[0] == String.class) {
-                    String arg = command.substring(key.length()).trim();
-                    try {
-                        if (method.getAnnotation(Command.class).debug()) {
-                            if ("test".equals(player.getName())) {
-                                method.invoke(com, arg);
-                            } else {
-                                QueueProvider.offer("Must be using test profile to debug");
-                            }
-                        } else {
-                            method.invoke(com, arg);
-                        }
-                    } catch (IllegalAccessException | InvocationTargetException e) {
-                        if (e.getCause() instanceof DeathException) {
-                            throw (DeathException) e.getCause();
-                        } else {
-                            e.getCause().printStackTrace();
-                        }
-                    }
-                }
-                return true;
-            }
+        CommandTable.Entry entry = table.find(command);
+        if (entry == null) {
+            QueueProvider.offer("I don't know what '" + userCommand.toLowerCase() + "' means.");
+            return true;
+        }
+        CommandSpec<?> spec = entry.getSpec();
+        Tokens arg = null;
+        if (spec.takesArgument()) {
+            arg = command.tail(entry.getKey().length(), argument);
+        } else if (command.length() != entry.getKey().length()) {
+            QueueProvider.offer("I don't know what '" + userCommand.toLowerCase() + "' means.");
+            return true;
+        }
+        if (spec.isDebug() && !"test".equals(player.getName())) {
+            QueueProvider.offer("Must be using test profile to debug");
+            return true;
+        }
+        try {
+            entry.invoke(commands, player, arg);
+        } catch (DeathException | SessionClosedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
         }
-        QueueProvider.offer("I don't know what '" + userCommand + "' means.");
         return true;
     }
-
-    private String removeNaturalText(String command) {
-        command = command.replaceAll(" to ", " ");
-        command = command.replaceAll(" a ", " ");
-        return command;
-    }
 }
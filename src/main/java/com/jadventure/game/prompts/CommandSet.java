@@ -0,0 +1,30 @@
+package com.jadventure.game.prompts;
+
+import java.util.List;
+
+import com.jadventure.game.GameContext;
+import com.jadventure.game.entities.Player;
+
+/**
+ * The registry of a class with @Command methods. The CommandProcessor
+ * generates one for every such class while it is compiled, named after
+ * the class with "Registry" appended, and lists it in
+ * META-INF/services/com.jadventure.game.prompts.CommandSet so the
+ * CommandTable finds the commands of every module on the class path.
+ */
+public interface CommandSet<T> {
+    /**
+     * Creates the object the commands of one game are played on.
+     */
+    T create(GameContext context);
+
+    /**
+     * Tells the commands who is playing them, if the class wants to know.
+     */
+    void initPlayer(T commands, Player player);
+
+    /**
+     * Returns the commands in the order they are declared.
+     */
+    List<CommandSpec<T>> getCommands();
+}
@@ -0,0 +1,69 @@
+package com.jadventure.game.prompts;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.jadventure.game.DeathException;
+
+/**
+ * One command of a command class as its @Command annotation declares it,
+ * with an invoker calling the method directly. The registries of the
+ * command classes create them when the game is compiled.
+ */
+public final class CommandSpec<T> {
+    /**
+     * Plays a command on an object of its command class. The argument is
+     * the words after the command, commands without one are passed null.
+     */
+    public interface Invoker<T> {
+        void invoke(T commands, Tokens argument) throws DeathException;
+    }
+
+    private final String command;
+    private final List<String> aliases;
+    private final String description;
+    private final boolean debug;
+    private final boolean takesArgument;
+    private final Invoker<T> invoker;
+
+    public CommandSpec(String command, String[] aliases, String description, boolean debug,
+            boolean takesArgument, Invoker<T> invoker) {
+        this.command = command;
+        this.aliases = Collections.unmodifiableList(Arrays.asList(aliases));
+        this.description = description;
+        this.debug = debug;
+        this.takesArgument = takesArgument;
+        this.invoker = invoker;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns true if only the test profile may use the command.
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * Returns true if the rest of the input is passed to the command.
+     */
+    public boolean takesArgument() {
+        return takesArgument;
+    }
+
+    public void invoke(T commands, Tokens argument) throws DeathException {
+        invoker.invoke(commands, argument);
+    }
+}
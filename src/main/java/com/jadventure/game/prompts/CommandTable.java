@@ -0,0 +1,234 @@
+package com.jadventure.game.prompts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import com.jadventure.game.DeathException;
+import com.jadventure.game.GameContext;
+import com.jadventure.game.entities.Player;
+
+/**
+ * All commands of the game, compiled once per JVM from the generated
+ * CommandSets on the class path.
+ *
+ * Every command and alias is a key of a trie. The input is matched with
+ * the longest key it starts with, so 'de' is never taken for 'd', in as
+ * many steps as the key has characters. The help is formatted once as
+ * well. Where two command classes declare the same key, the one loaded
+ * first keeps it.
+ */
+public final class CommandTable {
+    private static volatile CommandTable instance;
+
+    private final List<CommandSet<?>> sets;
+    private final Node root = new Node();
+    private final List<HelpLine> help;
+
+    CommandTable(List<CommandSet<?>> sets) {
+        this.sets = sets;
+        for (int i = 0; i < sets.size(); i++) {
+            addCommands(sets.get(i), i);
+        }
+        this.help = Collections.unmodifiableList(formatHelp());
+    }
+
+    /**
+     * Returns the table of the commands of every module on the class path.
+     */
+    public static CommandTable get() {
+        CommandTable table = instance;
+        if (table == null) {
+            synchronized (CommandTable.class) {
+                table = instance;
+                if (table == null) {
+                    List<CommandSet<?>> sets = new ArrayList<>();
+                    for (CommandSet<?> set : ServiceLoader.load(CommandSet.class, CommandTable.class.getClassLoader())) {
+                        sets.add(set);
+                    }
+                    table = new CommandTable(sets);
+                    instance = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Creates the objects the commands of one game are played on, one for
+     * every command class.
+     */
+    public Object[] createCommands(GameContext context) {
+        Object[] commands = new Object[sets.size()];
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = sets.get(i).create(context);
+        }
+        return commands;
+    }
+
+    /**
+     * Returns the command whose key is the longest one the input starts
+     * with, null if there is none.
+     */
+    public Entry find(CharSequence input) {
+        Node node = root;
+        Entry found = null;
+        for (int i = 0; i < input.length(); i++) {
+            node = node.child(input.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.entry != null) {
+                found = node.entry;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the lines of the help, in the order the commands are declared.
+     */
+    public List<HelpLine> getHelp() {
+        return help;
+    }
+
+    private <T> void addCommands(CommandSet<T> set, int index) {
+        for (CommandSpec<T> spec : set.getCommands()) {
+            add(spec.getCommand(), new Entry(spec.getCommand(), spec, set, index));
+            for (String alias : spec.getAliases()) {
+                if (alias.length() == 0) {
+                    break;
+                }
+                add(alias, new Entry(alias, spec, set, index));
+            }
+        }
+    }
+
+    private void add(String key, Entry entry) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.addChild(key.charAt(i));
+        }
+        if (node.entry == null) {
+            node.entry = entry;
+        }
+    }
+
+    private List<HelpLine> formatHelp() {
+        List<CommandSpec<?>> specs = new ArrayList<>();
+        int commandWidth = 0;
+        int descriptionWidth = 0;
+        for (CommandSet<?> set : sets) {
+            for (CommandSpec<?> spec : set.getCommands()) {
+                specs.add(spec);
+                commandWidth = Math.max(commandWidth, formatCommand(spec).length());
+                descriptionWidth = Math.max(descriptionWidth, spec.getDescription().length());
+            }
+        }
+        List<HelpLine> lines = new ArrayList<>();
+        for (CommandSpec<?> spec : specs) {
+            String text = String.format("%-" + commandWidth + "s %-" + descriptionWidth + "s",
+                    formatCommand(spec), spec.getDescription());
+            lines.add(new HelpLine(text, spec.isDebug()));
+        }
+        return lines;
+    }
+
+    private static String formatCommand(CommandSpec<?> spec) {
+        StringBuilder command = new StringBuilder(spec.getCommand());
+        if (!spec.getAliases().isEmpty()) {
+            command.append(" (").append(String.join(", ", spec.getAliases())).append("):");
+        }
+        return command.toString();
+    }
+
+    /**
+     * A key of the table and the command it stands for.
+     */
+    public static final class Entry {
+        private final String key;
+        private final CommandSpec<?> spec;
+        private final CommandSet<?> set;
+        private final int index;
+
+        Entry(String key, CommandSpec<?> spec, CommandSet<?> set, int index) {
+            this.key = key;
+            this.spec = spec;
+            this.set = set;
+            this.index = index;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public CommandSpec<?> getSpec() {
+            return spec;
+        }
+
+        /**
+         * Plays the command on the objects of a game made by
+         * createCommands().
+         */
+        @SuppressWarnings("unchecked")
+        public void invoke(Object[] commands, Player player, Tokens argument) throws DeathException {
+            Object target = commands[index];
+            ((CommandSet<Object>) set).initPlayer(target, player);
+            ((CommandSpec<Object>) spec).invoke(target, argument);
+        }
+    }
+
+    /**
+     * A line of the help, debug commands are only shown to the test profile.
+     */
+    public static final class HelpLine {
+        private final String text;
+        private final boolean debug;
+
+        HelpLine(String text, boolean debug) {
+            this.text = text;
+            this.debug = debug;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isDebug() {
+            return debug;
+        }
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Entry entry;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return (i >= 0) ? children[i] : null;
+        }
+
+        Node addChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -i - 1;
+            Node child = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            newKeys[i] = c;
+            newChildren[i] = child;
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
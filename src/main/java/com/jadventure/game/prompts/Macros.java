@@ -0,0 +1,90 @@
+package com.jadventure.game.prompts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a line the player typed into the commands to play. Commands are
+ * separated by ';', so "n;n;e;la" walks three rooms and looks around in
+ * one round trip. A command starting with the name of one of the player's
+ * macros is replaced by the commands of the macro.
+ *
+ * A line defining a macro ("macro walk n;n;e") is one command, its ';'
+ * belong to the macro.
+ */
+public final class Macros {
+    public static final char SEPARATOR = ';';
+    /** The command defining macros */
+    public static final String COMMAND = "macro";
+    /** The most commands one line is expanded to, the rest are dropped */
+    public static final int MAX_COMMANDS = 32;
+    /** How deep macros may call other macros */
+    private static final int MAX_DEPTH = 4;
+
+    private Macros() {
+    }
+
+    /**
+     * Returns the commands of the line, a line without separators or
+     * macros is the only command.
+     */
+    public static List<String> expand(String line, Map<String, String> macros) {
+        if (line.indexOf(SEPARATOR) < 0 && (macros.isEmpty() || macros.get(firstWord(line)) == null)) {
+            return Collections.singletonList(line);
+        }
+        if (firstWord(line).equals(COMMAND)) {
+            return Collections.singletonList(line);
+        }
+        List<String> commands = new ArrayList<>();
+        expand(line, macros, commands, 0);
+        return commands;
+    }
+
+    private static void expand(String line, Map<String, String> macros, List<String> commands, int depth) {
+        int start = 0;
+        while (start <= line.length() && commands.size() < MAX_COMMANDS) {
+            int end = line.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = line.length();
+            }
+            String command = line.substring(start, end).trim();
+            if (!command.isEmpty()) {
+                String macro = macros.get(firstWord(command));
+                if (macro != null && depth < MAX_DEPTH) {
+                    expand(macro, macros, commands, depth + 1);
+                } else {
+                    commands.add(command);
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Returns true if the name may be given to a macro: one word that
+     * isn't a command already.
+     */
+    public static boolean isValidName(String name) {
+        if (name.isEmpty() || name.indexOf(SEPARATOR) >= 0) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.isWhitespace(name.charAt(i))) {
+                return false;
+            }
+        }
+        CommandTable.Entry entry = CommandTable.get().find(name);
+        return entry == null || !entry.getKey().equals(name);
+    }
+
+    private static String firstWord(String line) {
+        String trimmed = line.trim();
+        int end = 0;
+        while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end))) {
+            end++;
+        }
+        return trimmed.substring(0, end).toLowerCase();
+    }
+}
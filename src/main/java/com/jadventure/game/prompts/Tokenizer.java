@@ -0,0 +1,66 @@
+package com.jadventure.game.prompts;
+
+import java.util.Set;
+
+/**
+ * Splits a line of input into words in a single pass: the words are
+ * lowercased, any run of whitespace becomes one space, and filler words
+ * like "to" in "talk to guide" are left out. The first word is always
+ * kept, it is the command ("a" is short for attack).
+ *
+ * A Tokenizer holds no state of a line, one is shared by all parsers.
+ */
+public final class Tokenizer {
+    /** The filler words left out of commands unless told otherwise */
+    public static final Set<String> DEFAULT_STOP_WORDS = Set.of("to", "a");
+    public static final Tokenizer DEFAULT = new Tokenizer(DEFAULT_STOP_WORDS);
+
+    private final char[][] stopWords;
+
+    public Tokenizer(Set<String> stopWords) {
+        this.stopWords = new char[stopWords.size()][];
+        int i = 0;
+        for (String word : stopWords) {
+            this.stopWords[i++] = word.toLowerCase().toCharArray();
+        }
+    }
+
+    /**
+     * Makes into the words of the input and returns it.
+     */
+    public Tokens tokenize(CharSequence input, Tokens into) {
+        into.clear();
+        into.setSource(input);
+        boolean inWord = false;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (inWord) {
+                    endWord(into);
+                    inWord = false;
+                }
+            } else {
+                if (!inWord) {
+                    if (!into.isEmpty()) {
+                        into.append(' ');
+                    }
+                    into.startWord(i);
+                    inWord = true;
+                }
+                into.append(Character.toLowerCase(c));
+            }
+        }
+        if (inWord) {
+            endWord(into);
+        }
+        return into;
+    }
+
+    private void endWord(Tokens into) {
+        if (!into.isEmpty() && into.wordIsOneOf(stopWords)) {
+            into.dropWord();
+        } else {
+            into.endWord();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.jadventure.game.prompts;
+
+import java.util.Arrays;
+
+/**
+ * A line of input split into words by the Tokenizer. The words are kept
+ * in one buffer, lowercased and separated by single spaces, so a Tokens
+ * can be read as the normalised line, and is reused for line after line.
+ * A word only becomes a String when it is asked for. Where each word was
+ * in the line as it was typed is kept as well.
+ */
+public final class Tokens implements CharSequence {
+    private char[] chars = new char[64];
+    private int length;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int count;
+    /** The line as it was typed, and where every word starts in it */
+    private CharSequence source;
+    private int[] sourceStarts = new int[8];
+    /** The normalised line once toString() has built it */
+    private String text;
+
+    /**
+     * Returns the number of words.
+     */
+    public int count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the word at the index.
+     */
+    public String get(int index) {
+        checkIndex(index);
+        return new String(chars, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * Returns true if the word at the index is the given one, without
+     * building a String for it.
+     */
+    public boolean is(int index, String word) {
+        checkIndex(index);
+        int start = starts[index];
+        int wordLength = ends[index] - start;
+        if (wordLength != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < wordLength; i++) {
+            if (chars[start + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the line as it was typed after the word at the index, with
+     * its case, its spacing and the words the Tokenizer left out.
+     */
+    public String sourceAfter(int index) {
+        checkIndex(index);
+        int end = sourceStarts[index] + ends[index] - starts[index];
+        return source.subSequence(end, source.length()).toString().trim();
+    }
+
+    /**
+     * Makes into the words of this line from the character offset on, as
+     * the argument of a command whose key ends there. The key may end in
+     * the middle of a word, the rest of that word is then the first word.
+     */
+    public Tokens tail(int offset, Tokens into) {
+        into.clear();
+        into.source = source;
+        boolean inWord = false;
+        int word = 0;
+        for (int i = offset; i < length; i++) {
+            char c = chars[i];
+            if (c == ' ') {
+                if (inWord) {
+                    into.endWord();
+                    inWord = false;
+                }
+            } else {
+                if (!inWord && !into.isEmpty()) {
+                    into.append(' ');
+                }
+                if (!inWord) {
+                    while (ends[word] <= i) {
+                        word++;
+                    }
+                    into.startWord(sourceStarts[word] + i - starts[word]);
+                    inWord = true;
+                }
+                into.append(c);
+            }
+        }
+        if (inWord) {
+            into.endWord();
+        }
+        return into;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Returns the normalised line, the words separated by single spaces.
+     */
+    @Override
+    public String toString() {
+        if (text == null) {
+            text = new String(chars, 0, length);
+        }
+        return text;
+    }
+
+    void clear() {
+        length = 0;
+        count = 0;
+        source = null;
+        text = null;
+    }
+
+    void setSource(CharSequence source) {
+        this.source = source;
+    }
+
+    void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+        text = null;
+    }
+
+    /**
+     * Starts a word, found at the offset of the line as it was typed.
+     */
+    void startWord(int sourceStart) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            sourceStarts = Arrays.copyOf(sourceStarts, count * 2);
+        }
+        starts[count] = length;
+        sourceStarts[count] = sourceStart;
+    }
+
+    void endWord() {
+        ends[count++] = length;
+    }
+
+    /**
+     * Drops the word that was started last, and the space before it.
+     */
+    void dropWord() {
+        length = starts[count];
+        if (length > 0) {
+            length--;
+        }
+        text = null;
+    }
+
+    /**
+     * Returns true if the word that was started last is one of the words.
+     */
+    boolean wordIsOneOf(char[][] words) {
+        int start = starts[count];
+        int wordLength = length - start;
+        for (char[] word : words) {
+            if (word.length == wordLength
+                    && Arrays.equals(chars, start, length, word, 0, wordLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+}
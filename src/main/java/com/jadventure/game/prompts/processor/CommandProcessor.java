@@ -0,0 +1,284 @@
+package com.jadventure.game.prompts.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates the CommandSet of every class with @Command methods while the
+ * game is compiled, so no command is looked up with reflection at run
+ * time. For a class Foo the registry FooRegistry is written next to it.
+ * It calls the command methods directly and creates Foo with a public
+ * constructor taking the GameContext, or a public one without arguments.
+ * A command method takes no argument, the rest of the input as a String,
+ * or its words as Tokens.
+ * If Foo has a public initPlayer(Player) it is called before every command.
+ *
+ * The registries of a module are listed in its
+ * META-INF/services/com.jadventure.game.prompts.CommandSet. Other modules
+ * get their commands into the game by running this processor as well.
+ *
+ * The processor only knows the game's classes by name, so it is compiled
+ * before the rest of the game.
+ */
+@SupportedAnnotationTypes(CommandProcessor.COMMAND)
+public class CommandProcessor extends AbstractProcessor {
+    static final String COMMAND = "com.jadventure.game.prompts.Command";
+    private static final String COMMAND_SET = "com.jadventure.game.prompts.CommandSet";
+    private static final String GAME_CONTEXT = "com.jadventure.game.GameContext";
+    private static final String PLAYER = "com.jadventure.game.entities.Player";
+    private static final String DEATH_EXCEPTION = "com.jadventure.game.DeathException";
+    private static final String TOKENS = "com.jadventure.game.prompts.Tokens";
+
+    private final Set<String> registries = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        TypeElement command = processingEnv.getElementUtils().getTypeElement(COMMAND);
+        if (command == null) {
+            return false;
+        }
+        Map<TypeElement, List<ExecutableElement>> classes = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(command)) {
+            if (!isCommandMethod(element)) {
+                continue;
+            }
+            TypeElement owner = (TypeElement) element.getEnclosingElement();
+            classes.computeIfAbsent(owner, k -> new ArrayList<>()).add((ExecutableElement) element);
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : classes.entrySet()) {
+            writeRegistry(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    private boolean isCommandMethod(Element element) {
+        if (element.getKind() != ElementKind.METHOD) {
+            return false;
+        }
+        ExecutableElement method = (ExecutableElement) element;
+        Set<Modifier> modifiers = method.getModifiers();
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)) {
+            error(method, "A @Command method must be public and not static");
+            return false;
+        }
+        if (parameters.size() > 1 || (parameters.size() == 1
+                && !isType(parameters.get(0).asType(), "java.lang.String")
+                && !isType(parameters.get(0).asType(), TOKENS))) {
+            error(method, "A @Command method takes no arguments, one String or Tokens");
+            return false;
+        }
+        for (TypeMirror thrown : method.getThrownTypes()) {
+            if (!isType(thrown, DEATH_EXCEPTION) && isChecked(thrown)) {
+                error(method, "A @Command method may only throw a DeathException");
+                return false;
+            }
+        }
+        if (!method.getEnclosingElement().getModifiers().contains(Modifier.PUBLIC)) {
+            error(method, "A class with @Command methods must be public");
+            return false;
+        }
+        return true;
+    }
+
+    private void writeRegistry(TypeElement owner, List<ExecutableElement> methods) {
+        String packageName = ((PackageElement) processingEnv.getElementUtils().getPackageOf(owner))
+                .getQualifiedName().toString();
+        String className = owner.getQualifiedName().toString();
+        String registryName = owner.getSimpleName() + "Registry";
+        String constructor = findConstructor(owner);
+        if (constructor == null) {
+            error(owner, "A class with @Command methods needs a public constructor taking a GameContext or none");
+            return;
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import java.util.Arrays;\n")
+              .append("import java.util.Collections;\n")
+              .append("import java.util.List;\n\n")
+              .append("import javax.annotation.processing.Generated;\n\n")
+              .append("import com.jadventure.game.GameContext;\n")
+              .append("import com.jadventure.game.entities.Player;\n")
+              .append("import com.jadventure.game.prompts.CommandSet;\n")
+              .append("import com.jadventure.game.prompts.CommandSpec;\n\n")
+              .append("/**\n * The commands of ").append(owner.getSimpleName())
+              .append(", generated from its @Command methods.\n */\n")
+              .append("@Generated(\"").append(CommandProcessor.class.getName()).append("\")\n")
+              .append("public final class ").append(registryName)
+              .append(" implements CommandSet<").append(className).append("> {\n")
+              .append("    private static final List<CommandSpec<").append(className)
+              .append(">> COMMANDS = Collections.unmodifiableList(Arrays.asList(");
+        String separator = "\n";
+        for (ExecutableElement method : methods) {
+            source.append(separator);
+            appendSpec(source, className, method);
+            separator = ",\n";
+        }
+        source.append("));\n\n")
+              .append("    @Override\n")
+              .append("    public ").append(className).append(" create(GameContext context) {\n")
+              .append("        return new ").append(className).append(constructor).append(";\n")
+              .append("    }\n\n")
+              .append("    @Override\n")
+              .append("    public void initPlayer(").append(className).append(" commands, Player player) {\n");
+        if (hasInitPlayer(owner)) {
+            source.append("        commands.initPlayer(player);\n");
+        }
+        source.append("    }\n\n")
+              .append("    @Override\n")
+              .append("    public List<CommandSpec<").append(className).append(">> getCommands() {\n")
+              .append("        return COMMANDS;\n")
+              .append("    }\n")
+              .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? registryName : packageName + "." + registryName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, owner);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            registries.add(qualifiedName);
+        } catch (IOException e) {
+            error(owner, "Unable to write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private void appendSpec(StringBuilder source, String className, ExecutableElement method) {
+        AnnotationMirror annotation = findCommand(method);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            values.put(value.getKey().getSimpleName().toString(), value.getValue().getValue());
+        }
+        boolean takesArgument = !method.getParameters().isEmpty();
+        String argument = "";
+        if (takesArgument) {
+            argument = isType(method.getParameters().get(0).asType(), TOKENS) ? "argument" : "argument.toString()";
+        }
+        source.append("        new CommandSpec<").append(className).append(">(")
+              .append(literal(values.get("command"))).append(", new String[] {");
+        String separator = "";
+        for (Object alias : (List<?>) values.get("aliases")) {
+            source.append(separator).append(literal(((AnnotationValue) alias).getValue()));
+            separator = ", ";
+        }
+        source.append("},\n                ").append(literal(values.get("description")))
+              .append(", ").append(values.get("debug"))
+              .append(", ").append(takesArgument)
+              .append(",\n                (commands, argument) -> commands.")
+              .append(method.getSimpleName()).append('(').append(argument).append("))");
+    }
+
+    private AnnotationMirror findCommand(ExecutableElement method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (isType(annotation.getAnnotationType(), COMMAND)) {
+                return annotation;
+            }
+        }
+        throw new IllegalStateException(method + " has no @Command");
+    }
+
+    private String findConstructor(TypeElement owner) {
+        String found = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(owner.getEnclosedElements())) {
+            if (!constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() == 1 && isType(parameters.get(0).asType(), GAME_CONTEXT)) {
+                return "(context)";
+            } else if (parameters.isEmpty()) {
+                found = "()";
+            }
+        }
+        return found;
+    }
+
+    private boolean hasInitPlayer(TypeElement owner) {
+        for (ExecutableElement method : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals("initPlayer")
+                    && method.getModifiers().contains(Modifier.PUBLIC)
+                    && method.getParameters().size() == 1
+                    && isType(method.getParameters().get(0).asType(), PLAYER)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeServiceFile() {
+        if (registries.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    "META-INF/services/" + COMMAND_SET);
+            try (Writer writer = file.openWriter()) {
+                for (String registry : registries) {
+                    writer.write(registry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to list the command registries: " + e.getMessage());
+        }
+    }
+
+    private boolean isType(TypeMirror type, String name) {
+        return processingEnv.getTypeUtils().erasure(type).toString().equals(name);
+    }
+
+    private boolean isChecked(TypeMirror type) {
+        TypeMirror runtime = processingEnv.getElementUtils().getTypeElement("java.lang.RuntimeException").asType();
+        TypeMirror error = processingEnv.getElementUtils().getTypeElement("java.lang.Error").asType();
+        return !processingEnv.getTypeUtils().isAssignable(type, runtime)
+                && !processingEnv.getTypeUtils().isAssignable(type, error);
+    }
+
+    private String literal(Object value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,52 @@
+package com.jadventure.game.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The preset dictionary of compressed frames, known to both Client and
+ * server. It primes the deflate stream with text the game sends all the
+ * time, so even the first turns of a session compress well. Deflate finds
+ * text near the end of the dictionary cheapest, so the most common
+ * phrases come last.
+ *
+ * Changing the dictionary breaks compressed sessions with older clients,
+ * it needs a new Frame.VERSION.
+ */
+public final class CompressionDictionary {
+    private static final String[] PHRASES = {
+        "You do not have the required level to use this item",
+        "Item doesn't exist within your view.",
+        "You do not have that item",
+        "Unable to save to file '",
+        "Must be using test profile to debug",
+        " gold coins each\n",
+        " picked up", " dropped", " equipped", " unequipped",
+        "Player name: ", "Type: ", "Current weapon: ", "Gold: ", "Health/Max: ",
+        "Damage/Armour: ", "Strength: ", "Intelligence: ", "Dexterity: ", "Luck: ",
+        "Stealth: ", "XP: ", "'s level: ",
+        "\n------------------------------------------------------------\nEquipped Items:\n",
+        "--Empty--\n",
+        "------------------------------------------------------------\n",
+        "\n--------------------------------------------------------------------\nBackpack: \n",
+        "--------------------------------------------------------------------\n",
+        "The game locations were saved.\n\nYour game data was saved.\n",
+        "[1] Start - Starts a new Game\n[2] Load - Loads an existing Game\n"
+                + "[3] Delete - Deletes an existing Game\n[4] Exit\n",
+        "You have been idle for a while. You will be disconnected in ",
+        "I don't know what '", "' means.\n",
+        "Items:\n    ", "NPCs:\n   ",
+        "To the North: \n    ", "To the South: \n    ", "To the East: \n    ",
+        "To the West: \n    ", "Up: \n    ", "Down: \n    ",
+        "A very long dark corridor", "You see a ", " the ", " of ", " and ", " to ",
+        "\n\nPrompt:\n"
+    };
+
+    private static final byte[] DICTIONARY = String.join("", PHRASES).getBytes(StandardCharsets.UTF_8);
+
+    private CompressionDictionary() {
+    }
+
+    public static byte[] get() {
+        return DICTIONARY.clone();
+    }
+}
@@ -0,0 +1,56 @@
+package com.jadventure.game.protocol;
+
+/**
+ * One message of the client / server protocol.
+ *
+ * On the wire every frame starts with a fixed header followed by the
+ * payload, a UTF-8 encoded text:
+ * <pre>
+ * +---------+------+-------+----------------+-------------------+
+ * | version | type | flags | payload length | payload           |
+ * | 1 byte  | 1    | 1     | 4, big endian  | length bytes      |
+ * +---------+------+-------+----------------+-------------------+
+ * </pre>
+ * The flags describe how the payload is encoded. With FLAG_COMPRESSED
+ * it's a part of the session's deflate stream, see FrameCodec.
+ */
+public class Frame {
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 7;
+    /** Upper bound for a payload, anything bigger is treated as garbage */
+    public static final int MAX_PAYLOAD = 16 * 1024 * 1024;
+    /**
+     * Upper bound for the payload of a frame sent by a client. It only
+     * sends INPUT, HELLO and RESUME frames, each a single short line.
+     */
+    public static final int MAX_CLIENT_PAYLOAD = 4 * 1024;
+    /** The payload is deflated, see FrameCodec.enableCompression() */
+    public static final int FLAG_COMPRESSED = 1;
+
+    private final FrameType type;
+    private final int flags;
+    private final String payload;
+
+    public Frame(FrameType type, int flags, String payload) {
+        this.type = type;
+        this.flags = flags;
+        this.payload = payload;
+    }
+
+    public FrameType getType() {
+        return type;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + payload + ")";
+    }
+}
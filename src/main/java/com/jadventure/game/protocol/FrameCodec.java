@@ -0,0 +1,321 @@
+package com.jadventure.game.protocol;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes and decodes Frames.
+ *
+ * A codec keeps one buffer that is reused for every frame it encodes or
+ * reads from a stream, so it belongs to a single connection and must not
+ * be shared between threads.
+ *
+ * Once compression is enabled, the payloads of OUTPUT frames are deflated
+ * into one stream that lives as long as the codec. Every frame ends with
+ * a sync flush, so it can be inflated as soon as it arrives, while later
+ * frames still profit from the text sent before them. The receiving codec
+ * inflates them after enableDecompression().
+ */
+public class FrameCodec {
+    private static final int INITIAL_BUFFER = 256;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER);
+    private Deflater deflater;
+    private Inflater inflater;
+    private byte[] scratch = new byte[INITIAL_BUFFER];
+    private long uncompressedBytes = 0;
+    private long compressedBytes = 0;
+    private long compressionNanos = 0;
+
+    /**
+     * Deflates the payload of every OUTPUT frame encoded from now on.
+     */
+    public void enableCompression() {
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        deflater.setDictionary(CompressionDictionary.get());
+    }
+
+    /**
+     * Accepts compressed frames from now on.
+     */
+    public void enableDecompression() {
+        inflater = new Inflater();
+    }
+
+    public boolean isCompressing() {
+        return deflater != null;
+    }
+
+    /**
+     * Releases the native memory held for compression.
+     */
+    public void end() {
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Number of payload bytes that were compressed or inflated.
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Number of compressed payload bytes that were written or read.
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Time spent compressing or inflating, in nanoseconds.
+     */
+    public long getCompressionNanos() {
+        return compressionNanos;
+    }
+
+    /**
+     * Encodes a frame into a new buffer, ready to be queued for writing.
+     */
+    public ByteBuffer encode(FrameType type, int flags, CharSequence payload) throws ProtocolException {
+        ByteBuffer encoded = encodeToBuffer(type, flags, payload);
+        ByteBuffer frame = ByteBuffer.allocate(encoded.remaining());
+        frame.put(encoded);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Encodes a frame and writes it to a stream without copying it first.
+     */
+    public void write(OutputStream out, FrameType type, int flags, CharSequence payload) throws IOException {
+        write(out, type, flags, payload, true);
+    }
+
+    /**
+     * Encodes a frame and writes it to a stream, leaving it to the caller
+     * to flush the stream if flush is false.
+     */
+    public void write(OutputStream out, FrameType type, int flags, CharSequence payload, boolean flush)
+            throws IOException {
+        ByteBuffer encoded = encodeToBuffer(type, flags, payload);
+        out.write(encoded.array(), 0, encoded.limit());
+        if (flush) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the next frame from a stream. Returns null if the stream ends
+     * between two frames.
+     */
+    public Frame read(DataInputStream in) throws IOException {
+        int version = in.read();
+        if (version < 0) {
+            return null;
+        }
+        if (version != Frame.VERSION) {
+            throw new ProtocolException("Unsupported protocol version " + version);
+        }
+        FrameType type = FrameType.fromCode(in.readByte());
+        int flags = in.readUnsignedByte();
+        int length = checkLength(in.readInt());
+        ensureCapacity(length);
+        try {
+            in.readFully(buffer.array(), 0, length);
+        } catch (EOFException eofe) {
+            throw new ProtocolException("Stream ended inside a " + type + " frame");
+        }
+        if ((flags & Frame.FLAG_COMPRESSED) != 0) {
+            return new Frame(type, flags, inflate(length));
+        }
+        return new Frame(type, flags, new String(buffer.array(), 0, length, StandardCharsets.UTF_8));
+    }
+
+    private String inflate(int length) throws ProtocolException {
+        if (inflater == null) {
+            throw new ProtocolException("Received a compressed frame without negotiating compression");
+        }
+        long start = System.nanoTime();
+        inflater.setInput(buffer.array(), 0, length);
+        int inflated = 0;
+        try {
+            while (true) {
+                int count = inflater.inflate(scratch, inflated, scratch.length - inflated);
+                if (count == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(CompressionDictionary.get());
+                    continue;
+                }
+                inflated += count;
+                if (inflated < scratch.length && (inflater.needsInput() || inflater.finished())) {
+                    break;
+                }
+                if (inflated == scratch.length) {
+                    scratch = Arrays.copyOf(scratch, scratch.length * 2);
+                }
+            }
+        } catch (DataFormatException dfe) {
+            throw new ProtocolException("Corrupt compressed frame: " + dfe.getMessage());
+        }
+        uncompressedBytes += inflated;
+        compressedBytes += length;
+        compressionNanos += System.nanoTime() - start;
+        return new String(scratch, 0, inflated, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Takes the next complete frame out of a buffer that is ready to be
+     * read. Returns null, leaving the buffer untouched, if the frame
+     * hasn't been received completely yet.
+     */
+    public static Frame decode(ByteBuffer in) throws ProtocolException {
+        return decode(in, Frame.MAX_PAYLOAD);
+    }
+
+    /**
+     * Like decode(ByteBuffer), but rejects a frame whose payload is longer
+     * than maxPayload as soon as its header has been received.
+     */
+    public static Frame decode(ByteBuffer in, int maxPayload) throws ProtocolException {
+        if (in.remaining() < Frame.HEADER_SIZE) {
+            return null;
+        }
+        int start = in.position();
+        if (in.get(start) != Frame.VERSION) {
+            throw new ProtocolException("Unsupported protocol version " + in.get(start));
+        }
+        FrameType type = FrameType.fromCode(in.get(start + 1));
+        int flags = in.get(start + 2) & 0xff;
+        int length = checkLength(in.getInt(start + 3), maxPayload);
+        if (in.remaining() < Frame.HEADER_SIZE + length) {
+            return null;
+        }
+        String payload;
+        if (in.hasArray()) {
+            payload = new String(in.array(), in.arrayOffset() + start + Frame.HEADER_SIZE, length,
+                    StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(start + Frame.HEADER_SIZE, bytes);
+            payload = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(start + Frame.HEADER_SIZE + length);
+        return new Frame(type, flags, payload);
+    }
+
+    /**
+     * Returns how many bytes the frame at the start of a buffer needs in
+     * total, or the header size if not even the header is complete.
+     */
+    public static int frameSize(ByteBuffer in) throws ProtocolException {
+        return frameSize(in, Frame.MAX_PAYLOAD);
+    }
+
+    /**
+     * Like frameSize(ByteBuffer), but rejects a frame whose payload is
+     * longer than maxPayload.
+     */
+    public static int frameSize(ByteBuffer in, int maxPayload) throws ProtocolException {
+        if (in.remaining() < Frame.HEADER_SIZE) {
+            return Frame.HEADER_SIZE;
+        }
+        return Frame.HEADER_SIZE + checkLength(in.getInt(in.position() + 3), maxPayload);
+    }
+
+    private ByteBuffer encodeToBuffer(FrameType type, int flags, CharSequence payload) throws ProtocolException {
+        CharBuffer chars = CharBuffer.wrap(payload);
+        encoder.reset();
+        buffer.clear();
+        buffer.position(Frame.HEADER_SIZE);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (!result.isOverflow()) {
+                result = encoder.flush(buffer);
+            }
+            if (!result.isOverflow()) {
+                break;
+            }
+            grow(buffer.capacity() * 2);
+        }
+        int length = buffer.position() - Frame.HEADER_SIZE;
+        if (deflater != null && type == FrameType.OUTPUT && length > 0) {
+            length = deflate(length);
+            flags |= Frame.FLAG_COMPRESSED;
+        }
+        checkLength(length);
+        buffer.put(0, Frame.VERSION);
+        buffer.put(1, type.getCode());
+        buffer.put(2, (byte) flags);
+        buffer.putInt(3, length);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Replaces the encoded payload in the buffer with its deflated form and
+     * returns the new length.
+     */
+    private int deflate(int length) {
+        long start = System.nanoTime();
+        deflater.setInput(buffer.array(), Frame.HEADER_SIZE, length);
+        int deflated = 0;
+        while (true) {
+            deflated += deflater.deflate(scratch, deflated, scratch.length - deflated, Deflater.SYNC_FLUSH);
+            if (deflated < scratch.length) {
+                break;
+            }
+            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        }
+        ensureCapacity(Frame.HEADER_SIZE + deflated);
+        buffer.position(Frame.HEADER_SIZE);
+        buffer.put(scratch, 0, deflated);
+        uncompressedBytes += length;
+        compressedBytes += deflated;
+        compressionNanos += System.nanoTime() - start;
+        return deflated;
+    }
+
+    private static int checkLength(int length) throws ProtocolException {
+        return checkLength(length, Frame.MAX_PAYLOAD);
+    }
+
+    private static int checkLength(int length, int maxPayload) throws ProtocolException {
+        if (length < 0 || length > maxPayload) {
+            throw new ProtocolException("Invalid payload length " + length);
+        }
+        return length;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.capacity() < capacity) {
+            buffer = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+        }
+    }
+
+    private void grow(int capacity) {
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+}
@@ -0,0 +1,50 @@
+package com.jadventure.game.protocol;
+
+/**
+ * The kinds of frames sent between Client and server.
+ */
+public enum FrameType {
+    /** Text the server wants the player to see */
+    OUTPUT(1),
+    /** The server waits for the player's next line of input */
+    PROMPT(2),
+    /** The game is over, the client should disconnect */
+    EXIT(3),
+    /** A line typed by the player */
+    INPUT(4),
+    /**
+     * Negotiates protocol features. The client may send one as its first
+     * frame listing the features it supports, separated by commas, and the
+     * server answers with the ones it will use. Known features: "deflate",
+     * "resume", which the server answers with "resume=&lt;token&gt;", and
+     * "json", which makes every OUTPUT line a JSON OutputEvent.
+     */
+    HELLO(5),
+    /**
+     * Reattaches a client to the session it lost. The client sends the
+     * session's token and the number of OUTPUT frames it has received,
+     * separated by a space. The server answers with the number of frames
+     * the client has now seen before the ones it replays, or with an
+     * empty payload if there is nothing to resume.
+     */
+    RESUME(6);
+
+    private final byte code;
+
+    FrameType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static FrameType fromCode(byte code) throws ProtocolException {
+        for (FrameType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new ProtocolException("Unknown frame type " + code);
+    }
+}
@@ -0,0 +1,14 @@
+package com.jadventure.game.protocol;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the other side sends something that isn't a valid frame.
+ */
+public class ProtocolException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public ProtocolException(String message) {
+        super(message);
+    }
+}
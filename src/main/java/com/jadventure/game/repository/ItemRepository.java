@@ -5,11 +5,15 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -23,7 +27,13 @@ import com.jadventure.game.items.Item;
 
 public class ItemRepository {
     private static final Map<String, EquipmentLocation> EQUIPMENT_POSITION_MAP = new HashMap<>();
+    /** The items which are never found lying around */
+    private static final List<String> NOT_RANDOM = Arrays.asList("empty", "hands");
+    /** The types random items are drawn from, by the first letter of their ids */
+    private static final String[] RANDOM_TYPES = {"f", "w", "a", "p"};
     private Map<String, Item> itemMap = new HashMap<>();
+    /** The items by the start of their ids, for getRandomItem() */
+    private final Map<String, TypeIndex> typeIndexes = new ConcurrentHashMap<>();
 
     static {
         EQUIPMENT_POSITION_MAP.put("head", EquipmentLocation.HEAD);
@@ -89,26 +99,32 @@ public class ItemRepository {
             addItem(new Item(id, type, name, description, position, level, properties));
             
         }
+        for (String start : RANDOM_TYPES) {
+            getTypeIndex(start);
+        }
     }
 
 
     void addItem(Item item) {
         itemMap.put(item.getId(), item);
+        typeIndexes.clear();
     }
 
-    private static ItemRepository itemRepository = null;
+    /**
+     * Loads a new repository with all the items of the game. The items are
+     * never changed, so a single repository can be shared by every game
+     * running in the JVM, see GameContext.
+     */
     public static ItemRepository createRepo() {
-        if (itemRepository == null) {
-            File file = new File(new File(System.getProperty("user.dir")), "json");
-
-            File dataFile = new File(new File(file, "original_data"), "items.json");
-            if (! dataFile.exists()) {
-            	throw new RuntimeException("File '" + dataFile + "' does not exist.");
-            }
+        File file = new File(new File(System.getProperty("user.dir")), "json");
 
-            itemRepository = new ItemRepository();
-            itemRepository.load(dataFile);
+        File dataFile = new File(new File(file, "original_data"), "items.json");
+        if (! dataFile.exists()) {
+        	throw new RuntimeException("File '" + dataFile + "' does not exist.");
         }
+
+        ItemRepository itemRepository = new ItemRepository();
+        itemRepository.load(dataFile);
         return itemRepository;
     }
 
@@ -141,28 +157,84 @@ public class ItemRepository {
         return getRandomItem("p", level);
     }
 
+    /**
+     * Returns an item whose id starts with start. Seven times out of ten
+     * it is one of at most the level, if there is any, else it is any of
+     * them. Returns null if there is no such item.
+     */
     public Item getRandomItem(String start, int level) {
-        Random rand = new Random();
-        int chance = rand.nextInt(100);
-        if (chance < 70) {
-            Item item = null;
-            do {
-                item = getRandom(start);
-            } while (item.getLevel() > level);
-            return item;
-        } else {
-            return getRandom(start);
+        TypeIndex index = getTypeIndex(start);
+        Random rand = ThreadLocalRandom.current();
+        if (rand.nextInt(100) < 70) {
+            Item item = index.getRandom(level, rand);
+            if (item != null) {
+                return item;
+            }
+        }
+        return index.getRandom(Integer.MAX_VALUE, rand);
+    }
+
+    private TypeIndex getTypeIndex(String start) {
+        return typeIndexes.computeIfAbsent(start, this::createTypeIndex);
+    }
+
+    private TypeIndex createTypeIndex(String start) {
+        List<Item> items = new ArrayList<>();
+        for (Item item : itemMap.values()) {
+            if (item.getId().startsWith(start) && !NOT_RANDOM.contains(item.getId())) {
+                items.add(item);
+            }
         }
+        items.sort(Comparator.comparingInt(Item::getLevel).thenComparing(Item::getId));
+        return new TypeIndex(items.toArray(new Item[0]));
     }
 
-    private Item getRandom(String start) {
-        Random rand = new Random();
-        Item item = null;
-        do {
-            int itemIndex = rand.nextInt(itemMap.size() - 2);
-            List<Item> items = new ArrayList<>(itemMap.values());
-            item = items.get(itemIndex + 2); // avoids empty and hands items
-        } while (!item.getId().startsWith(start));
-        return item;
+    /**
+     * The items of one type sorted by level. For every level there is the
+     * number of items up to it, so the items a player of a level may find
+     * are the first ones of the array and one is drawn without looking at
+     * the others.
+     */
+    private static final class TypeIndex {
+        private final Item[] items;
+        /** The levels of the items, each once and ascending */
+        private final int[] levels;
+        /** The number of items up to and including the level at the same index */
+        private final int[] counts;
+
+        TypeIndex(Item[] items) {
+            this.items = items;
+            int distinct = 0;
+            for (int i = 0; i < items.length; i++) {
+                if (i == 0 || items[i].getLevel() != items[i - 1].getLevel()) {
+                    distinct++;
+                }
+            }
+            levels = new int[distinct];
+            counts = new int[distinct];
+            int level = -1;
+            for (int i = 0; i < items.length; i++) {
+                if (i == 0 || items[i].getLevel() != items[i - 1].getLevel()) {
+                    level++;
+                    levels[level] = items[i].getLevel();
+                }
+                counts[level] = i + 1;
+            }
+        }
+
+        /**
+         * Returns one of the items of at most the level, null if there
+         * is none.
+         */
+        Item getRandom(int maxLevel, Random rand) {
+            int i = Arrays.binarySearch(levels, maxLevel);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            if (i < 0) {
+                return null;
+            }
+            return items[rand.nextInt(counts[i])];
+        }
     }
 }
@@ -6,7 +6,6 @@ import com.jadventure.game.navigation.ILocation;
 import com.jadventure.game.navigation.Location;
 import com.jadventure.game.navigation.LocationType;
 import com.jadventure.game.navigation.Coordinate;
-import com.jadventure.game.GameBeans;
 import com.jadventure.game.QueueProvider;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -34,34 +33,19 @@ import java.util.List;
  * It also provides methods for getting the initial location and the current location.
  */
 public class LocationRepository {
-    private ItemRepository itemRepo = GameBeans.getItemRepository();
-    private NpcRepository npcRepo = GameBeans.getNpcRepository();
+    private final ItemRepository itemRepo;
+    private final NpcRepository npcRepo;
     private String fileName;
     private Map<Coordinate, ILocation> locations;
-    private static LocationRepository instance;
 
-    public LocationRepository(String profileName) {
+    public LocationRepository(String profileName, ItemRepository itemRepo, NpcRepository npcRepo) {
+        this.itemRepo = itemRepo;
+        this.npcRepo = npcRepo;
         locations = new HashMap<>();
         fileName = "json/profiles/" + profileName + "/locations.json";
         load();
     }
 
-    public static LocationRepository createRepo(String profileName) {
-        if ("".equals(profileName)) {
-            return instance;
-        }
-        if (instance == null) {
-            instance = new LocationRepository(profileName);
-        } else if (!instance.getFileName().contains(profileName)) {
-            instance = new LocationRepository(profileName);
-        }
-        return instance;
-    }
-
-    private String getFileName() {
-        return fileName;
-    }
-
     private void load() {
         JsonParser parser = new JsonParser();
         File f = new File(fileName);
@@ -91,7 +75,7 @@ public class LocationRepository {
         LocationType locationType =
             LocationType.valueOf(json.get("locationType").getAsString());
         ILocation location = new Location(coordinate, title, description,
-                locationType);
+                locationType, this);
         location.setDangerRating(json.get("danger").getAsInt());
         if (json.has("items")) {
             List<String> items = new Gson().fromJson(json.get("items"),
@@ -158,10 +142,6 @@ public class LocationRepository {
     }
 
     public ILocation getInitialLocation() {
-        String profileName = fileName.split("/")[2];
-        instance = null;
-        LocationRepository.createRepo(profileName);
-        load();
         Coordinate coordinate = new Coordinate(0, 0, -1);
         return getLocation(coordinate);
     }
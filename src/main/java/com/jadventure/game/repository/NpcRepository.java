@@ -18,12 +18,17 @@ import java.util.Map;
 
 /** NpcRepository is the repository for all npcs 
  * instead of new Npc(npcId) use 
- * NpcRepository npcRepository = NpcRepository.createRepo();
+ * NpcRepository npcRepository = NpcRepository.createRepo(itemRepository);
  * npcRepository.getNPC(npcId)
  */
 public class NpcRepository {
     private Map<String,NPC> npcMap = new HashMap<String,NPC>();
+    private final ItemRepository itemRepo;
     static String fileName = "json/original_data/npcs.json";
+
+    protected NpcRepository(ItemRepository itemRepo) {
+        this.itemRepo = itemRepo;
+    }
     
     // Load all items, from the given file
     protected void load(File repo) {
@@ -83,7 +88,7 @@ public class NpcRepository {
             if (npcData.has("sellLimit") && npcData.has("items")) {
                 int itemLimit = npcData.get("sellLimit").getAsInt();
                 int i = 0;
-                npc.setItems(npcData, itemLimit, i);
+                npc.setItems(itemRepo, npcData, itemLimit, i);
             }
             JsonArray alliesJson = npcData.get("allies").getAsJsonArray();
             List<String> allies = new ArrayList<>();
@@ -101,17 +106,18 @@ public class NpcRepository {
         }
     }
     
-    private static NpcRepository npcRepository = null;
-    public static NpcRepository createRepo() {
-        if ( npcRepository == null) {
-            File dataFile = new File(fileName);
-            if (! dataFile.exists()) {
-            	throw new RuntimeException("File '" + dataFile + "' does not exist.");
-            }
-
-            npcRepository = new NpcRepository();
-            npcRepository.load(dataFile);
+    /**
+     * Loads a new repository with all the npcs. The npcs are changed while
+     * playing, so every game needs a repository of its own.
+     */
+    public static NpcRepository createRepo(ItemRepository itemRepo) {
+        File dataFile = new File(fileName);
+        if (! dataFile.exists()) {
+        	throw new RuntimeException("File '" + dataFile + "' does not exist.");
         }
+
+        NpcRepository npcRepository = new NpcRepository(itemRepo);
+        npcRepository.load(dataFile);
         return npcRepository;
     }
     
@@ -0,0 +1,51 @@
+package com.jadventure.game.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.jadventure.game.protocol.FrameCodec;
+
+/**
+ * Adds up what output compression saved and cost over all sessions of
+ * a GameServer.
+ */
+public class CompressionStats {
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    /**
+     * Adds the numbers of a session's codec once the session is over.
+     */
+    public void add(FrameCodec codec) {
+        sessions.increment();
+        uncompressedBytes.add(codec.getUncompressedBytes());
+        compressedBytes.add(codec.getCompressedBytes());
+        nanos.add(codec.getCompressionNanos());
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    public long getCompressionNanos() {
+        return nanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return describe(sessions.sum() + " compressed sessions", getUncompressedBytes(), getCompressedBytes(),
+                getCompressionNanos());
+    }
+
+    static String describe(String what, long uncompressed, long compressed, long nanos) {
+        long percent = (uncompressed == 0) ? 100 : compressed * 100 / uncompressed;
+        return what + ": " + uncompressed + " bytes of output sent as " + compressed + " bytes (" + percent +
+                "%), " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms spent compressing";
+    }
+}
@@ -0,0 +1,463 @@
+package com.jadventure.game.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.jadventure.game.protocol.Frame;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single client connected to the GameServer.
+ *
+ * The socket itself is only read and written by the IoLoop owning it.
+ * The game thread talks to the connection through send(), which only
+ * touches the outbound queue.
+ *
+ * Incoming frames are decoded straight from the read buffer and handed to
+ * the listeners set by the server, outgoing frames are encoded by the
+ * RemoteSession.
+ *
+ * The outbound queue is bounded by the server's output limit. Once a
+ * client falls that far behind the SlowClientPolicy decides whether the
+ * game waits, old output is dropped or the client is disconnected.
+ *
+ * The queue is guarded by a ReentrantLock rather than a monitor, so a game
+ * running on a virtual thread and waiting for a slow client doesn't pin
+ * its carrier thread.
+ *
+ * Input is read as fast as the game takes it. While the session has as
+ * many lines waiting as it wants, it pauses the input: the connection
+ * stops reading the socket and the client's writes back up in the TCP
+ * window instead of the server's heap.
+ */
+public class Connection {
+    private static Logger logger = LoggerFactory.getLogger(Connection.class);
+    private static final int INITIAL_READ_BUFFER = 512;
+    /** Most frames handed to the socket in one gathering write */
+    private static final int MAX_GATHER = 16;
+
+    private final SocketChannel channel;
+    private final IoLoop loop;
+    private final SocketAddress remoteAddress;
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private final ReentrantLock outboundLock = new ReentrantLock();
+    /** Signalled when the queue has gone below the output limit, or the connection closed */
+    private final Condition drained = outboundLock.newCondition();
+    private final int outputLimit;
+    private final SlowClientPolicy slowClientPolicy;
+    private final long slowClientTimeout;
+    private long queuedBytes = 0;
+    private long peakQueuedBytes = 0;
+    private long droppedFrames = 0;
+    /** When the queue went over the output limit, 0 while it's below */
+    private long overLimitSince = 0;
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private boolean writeRequested = false;
+    /** Only touched by the IoLoop */
+    private boolean inputPaused = false;
+    private boolean inputEnded = false;
+    private boolean closeRequested = false;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile Runnable closeListener;
+    private volatile Consumer<String> helloListener;
+    private volatile Consumer<String> inputListener;
+    private volatile Consumer<String> resumeListener;
+
+    public Connection(SocketChannel channel, IoLoop loop, ServerConfig config) throws IOException {
+        this.channel = channel;
+        this.loop = loop;
+        this.remoteAddress = channel.getRemoteAddress();
+        this.outputLimit = config.getOutputLimit();
+        this.slowClientPolicy = config.getSlowClientPolicy();
+        this.slowClientTimeout = config.getSlowClientTimeout() * 1000000000L;
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Sets what to run once the connection has been closed.
+     */
+    public void setCloseListener(Runnable closeListener) {
+        this.closeListener = closeListener;
+    }
+
+    /**
+     * Sets what to do with the features listed in a HELLO frame.
+     */
+    public void setHelloListener(Consumer<String> helloListener) {
+        this.helloListener = helloListener;
+    }
+
+    /**
+     * Sets what to do with every line of input. The listener is given null
+     * once the input has ended, or the connection has been closed.
+     */
+    public void setInputListener(Consumer<String> inputListener) {
+        this.inputListener = inputListener;
+    }
+
+    /**
+     * Sets what to do with the payload of a RESUME frame.
+     */
+    public void setResumeListener(Consumer<String> resumeListener) {
+        this.resumeListener = resumeListener;
+    }
+
+    public SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Queues an encoded frame for the client. Returns false if the
+     * connection is closed, or gets closed because the client is too slow.
+     */
+    public boolean send(ByteBuffer frame) {
+        if (isClosed()) {
+            return false;
+        }
+        outboundLock.lock();
+        try {
+            if (queuedBytes + frame.remaining() > outputLimit && !makeRoom(frame)) {
+                return false;
+            }
+            outbound.add(frame);
+            queuedBytes += frame.remaining();
+            peakQueuedBytes = Math.max(peakQueuedBytes, queuedBytes);
+            if (!writeRequested) {
+                writeRequested = true;
+                loop.execute(new Runnable() {
+                    public void run() {
+                        enableWrite();
+                    }
+                });
+            }
+        } finally {
+            outboundLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Applies the slow client policy to a frame that doesn't fit under the
+     * output limit. Returns false if the frame can't be queued at all.
+     * Called holding the outbound lock, which a waiting game releases.
+     */
+    private boolean makeRoom(ByteBuffer frame) {
+        switch (slowClientPolicy) {
+            case BLOCK:
+                if (loop.inLoop()) {
+                    // the io thread would wait for itself
+                    return true;
+                }
+                try {
+                    while (!isClosed() && queuedBytes > 0 && queuedBytes + frame.remaining() > outputLimit) {
+                        drained.await();
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                return !isClosed();
+            case DROP:
+                Iterator<ByteBuffer> frames = outbound.iterator();
+                while (frames.hasNext() && queuedBytes + frame.remaining() > outputLimit) {
+                    ByteBuffer queued = frames.next();
+                    // a frame that is partly written has to be finished, and a
+                    // compressed one is needed to inflate the frames after it
+                    if (queued.position() == 0 && queued.get(1) == FrameType.OUTPUT.getCode()
+                            && (queued.get(2) & Frame.FLAG_COMPRESSED) == 0) {
+                        frames.remove();
+                        queuedBytes -= queued.remaining();
+                        droppedFrames++;
+                    }
+                }
+                if (queuedBytes == 0 || queuedBytes + frame.remaining() <= outputLimit) {
+                    return true;
+                }
+                // what is left can't be dropped, the client is treated as
+                // under DISCONNECT so its output doesn't grow without bound
+                return disconnectWhenTooSlow();
+            case DISCONNECT:
+            default:
+                return disconnectWhenTooSlow();
+        }
+    }
+
+    /**
+     * Closes the connection once the queue has been over the output limit
+     * for the slow client timeout. Returns false if it gets closed.
+     */
+    private boolean disconnectWhenTooSlow() {
+        long now = System.nanoTime();
+        if (overLimitSince == 0) {
+            overLimitSince = now;
+        }
+        if (now - overLimitSince >= slowClientTimeout) {
+            logger.info("Disconnecting " + this + ", it didn't read " + queuedBytes + " bytes of output");
+            loop.execute(new Runnable() {
+                public void run() {
+                    close();
+                }
+            });
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Number of bytes waiting to be written to the client.
+     */
+    public long getQueuedBytes() {
+        outboundLock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    /**
+     * Most bytes that were ever waiting to be written to the client.
+     */
+    public long getPeakQueuedBytes() {
+        outboundLock.lock();
+        try {
+            return peakQueuedBytes;
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    /**
+     * Number of output frames dropped because the client was too slow.
+     */
+    public long getDroppedFrames() {
+        outboundLock.lock();
+        try {
+            return droppedFrames;
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    private void enableWrite() {
+        if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Stops reading the client's input until resumeInput() is called. The
+     * frames already read are kept in the read buffer. Called by the IoLoop,
+     * from the input listener.
+     */
+    public void pauseInput() {
+        inputPaused = true;
+        if (key != null && key.isValid()) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Hands the frames left in the read buffer to the listeners and reads
+     * the client's input again, unless it gets paused once more.
+     */
+    public void resumeInput() {
+        loop.execute(new Runnable() {
+            public void run() {
+                if (!inputPaused || isClosed()) {
+                    return;
+                }
+                inputPaused = false;
+                try {
+                    readFrames();
+                } catch (IOException ioe) {
+                    logger.debug("Connection " + Connection.this + " failed", ioe);
+                    close();
+                    return;
+                }
+                if (!inputPaused && !inputEnded && key != null && key.isValid()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                }
+            }
+        });
+    }
+
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            endOfInput();
+            return;
+        }
+        readFrames();
+    }
+
+    /**
+     * Hands the complete frames in the read buffer to the listeners, until
+     * the input gets paused.
+     */
+    private void readFrames() throws IOException {
+        readBuffer.flip();
+        Frame frame;
+        while (!inputPaused && (frame = FrameCodec.decode(readBuffer, Frame.MAX_CLIENT_PAYLOAD)) != null) {
+            Consumer<String> listener = listenerFor(frame.getType());
+            if (listener != null) {
+                listener.accept(frame.getPayload());
+            } else {
+                logger.debug("Ignoring " + frame.getType() + " frame from " + this);
+            }
+        }
+        // a frame over the limit is refused from its header, before the
+        // buffer grows for it, and the IoLoop closes the connection
+        int needed = FrameCodec.frameSize(readBuffer, Frame.MAX_CLIENT_PAYLOAD);
+        readBuffer.compact();
+        if (readBuffer.capacity() < needed) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, readBuffer.capacity() * 2));
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+    }
+
+    private Consumer<String> listenerFor(FrameType type) {
+        switch (type) {
+            case INPUT:
+                return inputListener;
+            case HELLO:
+                return helloListener;
+            case RESUME:
+                return resumeListener;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The client has shut down its side of the socket. The game gets to
+     * see the end of the input and may still say goodbye before the
+     * connection is closed.
+     */
+    private void endOfInput() {
+        logger.debug("End of input from " + this);
+        inputEnded = true;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        endInput();
+    }
+
+    /**
+     * Writes as many queued frames as the socket takes. Frames queued
+     * together, like a turn's output and the prompt after it, go out in
+     * one gathering write.
+     */
+    void onWritable() throws IOException {
+        outboundLock.lock();
+        try {
+            while (!outbound.isEmpty()) {
+                int count = 0;
+                for (ByteBuffer frame : outbound) {
+                    if (count == gather.length) {
+                        break;
+                    }
+                    gather[count++] = frame;
+                }
+                queuedBytes -= channel.write(gather, 0, count);
+                Arrays.fill(gather, 0, count, null);
+                if (queuedBytes <= outputLimit) {
+                    overLimitSince = 0;
+                    drained.signalAll();
+                }
+                ByteBuffer frame;
+                while ((frame = outbound.peek()) != null && !frame.hasRemaining()) {
+                    outbound.poll();
+                }
+                if (frame != null) {
+                    return;
+                }
+            }
+            writeRequested = false;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (closeRequested) {
+                close();
+            }
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the connection as soon as all queued messages have been written.
+     */
+    public void closeWhenFlushed() {
+        outboundLock.lock();
+        try {
+            if (outbound.isEmpty()) {
+                close();
+            } else {
+                closeRequested = true;
+            }
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        outboundLock.lock();
+        try {
+            logger.debug("Closing connection " + this + ", at most " + peakQueuedBytes +
+                    " bytes were queued, " + droppedFrames + " frames dropped");
+            drained.signalAll();
+        } finally {
+            outboundLock.unlock();
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ioe) {
+            logger.debug("Closing " + this, ioe);
+        }
+        endInput();
+        Runnable listener = closeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private void endInput() {
+        Consumer<String> listener = inputListener;
+        if (listener != null) {
+            listener.accept(null);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(remoteAddress);
+    }
+}
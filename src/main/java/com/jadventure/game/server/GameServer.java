@@ -0,0 +1,388 @@
+package com.jadventure.game.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jadventure.game.GameContext;
+import com.jadventure.game.entities.Player;
+import com.jadventure.game.menus.MainMenu;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.repository.ItemRepository;
+import com.jadventure.game.server.RemoteSession.SaveResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The server side of the client / server mode.
+ *
+ * Client sockets are multiplexed over a small, fixed number of IoLoops,
+ * so an idle player costs a registered channel and its buffers, not a
+ * thread blocked on a socket read. The game itself runs on one virtual
+ * thread per session. A virtual thread waiting for input unmounts from its
+ * carrier, so the blocking menus cost a small heap object per idle player.
+ * With --workers=N the games run on a fixed pool of N platform threads
+ * instead. A game holds its worker until the player quits, so then at most
+ * N games run at once and further players wait in the queue.
+ *
+ * Which players get to play is decided by the SessionRegistry, see
+ * --max-sessions, --max-pending and --max-per-address. Players who stop
+ * answering are warned and eventually expired by the IdleReaper. Players
+ * who lose their connection may resume their session on a new one within
+ * --resume-grace seconds, even while the server is full.
+ */
+public class GameServer {
+    private static Logger logger = LoggerFactory.getLogger(GameServer.class);
+    private static final long MIN_ACCEPT_BACKOFF = 10;
+    private static final long MAX_ACCEPT_BACKOFF = 1000;
+    /** Milliseconds a client that can't be admitted has to resume a lost session */
+    private static final long RESUME_WAIT = 1000;
+
+    private final ServerConfig config;
+    private final IoLoop[] ioLoops;
+    private final ExecutorService workers;
+    private final SessionRegistry registry;
+    private final ScheduledExecutorService timers;
+    private final CompressionStats compressionStats = new CompressionStats();
+    /** The items never change, all games share them */
+    private final ItemRepository itemRepository = ItemRepository.createRepo();
+    private ServerSocketChannel listener;
+    private int nextLoop = 0;
+
+    public GameServer(ServerConfig config) throws IOException {
+        this.config = config;
+        this.ioLoops = new IoLoop[config.getIoThreads()];
+        for (int i = 0; i < ioLoops.length; i++) {
+            ioLoops[i] = new IoLoop();
+        }
+        this.workers = createWorkers(config);
+        this.registry = new SessionRegistry(config, this::startGame);
+        this.timers = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("jadventure-timer-"));
+    }
+
+    private static ExecutorService createWorkers(ServerConfig config) {
+        if (config.isVirtualThreads()) {
+            return Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("jadventure-session-", 1).factory());
+        }
+        ThreadFactory factory = new NamedThreadFactory("jadventure-worker-");
+        if (config.getWorkerThreads() == 0) {
+            return Executors.newCachedThreadPool(factory);
+        }
+        return Executors.newFixedThreadPool(config.getWorkerThreads(), factory);
+    }
+
+    /**
+     * Binds the listening socket and starts the io threads.
+     */
+    public void start() throws IOException {
+        listener = ServerSocketChannel.open();
+        listener.bind(new InetSocketAddress(config.getPort()));
+        ThreadFactory factory = new NamedThreadFactory("jadventure-io-");
+        for (IoLoop ioLoop : ioLoops) {
+            factory.newThread(ioLoop).start();
+        }
+        if (config.getIdleTimeout() > 0) {
+            timers.scheduleWithFixedDelay(new IdleReaper(registry, config), 1, 1, TimeUnit.SECONDS);
+        }
+        logger.info("Server listening on port " + getPort() + " with " + ioLoops.length + " io threads" +
+                (config.isVirtualThreads() ? " and virtual session threads" : ""));
+    }
+
+    public int getPort() {
+        return listener.socket().getLocalPort();
+    }
+
+    public SessionRegistry getRegistry() {
+        return registry;
+    }
+
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    /**
+     * Accepts clients until the server is stopped. When accepting fails,
+     * for example because the process ran out of file descriptors, the
+     * next attempt is delayed a little longer every time.
+     */
+    public void run() {
+        long backoff = 0;
+        while (listener.isOpen()) {
+            SocketChannel channel;
+            try {
+                channel = listener.accept();
+                backoff = 0;
+            } catch (ClosedChannelException cce) {
+                break;
+            } catch (IOException ioe) {
+                backoff = Math.min(MAX_ACCEPT_BACKOFF, Math.max(MIN_ACCEPT_BACKOFF, backoff * 2));
+                logger.warn("Unable to accept a connection, retrying in " + backoff + " ms", ioe);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+            try {
+                accept(channel);
+            } catch (IOException ioe) {
+                logger.warn("Unable to set up connection " + channel, ioe);
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void accept(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        IoLoop ioLoop = ioLoops[nextLoop];
+        nextLoop = (nextLoop + 1) % ioLoops.length;
+        Connection connection = new Connection(channel, ioLoop, config);
+        logger.debug("Accepted connection " + connection);
+        final RemoteSession session = new RemoteSession(connection, config);
+        listen(connection, session);
+        connection.setResumeListener(request -> resume(connection, session, request));
+        ioLoop.register(channel, connection);
+        switch (registry.admit(session)) {
+            case SERVER_FULL:
+                turnAwayUnlessResumed(connection, session, "Server full, please try again later.");
+                break;
+            case TOO_MANY_FROM_ADDRESS:
+                turnAwayUnlessResumed(connection, session, "Too many connections from your address.");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Turns away a client that can't start a new game, unless it has come
+     * back to resume its lost session, which still holds a place of its
+     * own. The client has until its first line of input, or RESUME_WAIT,
+     * to ask for it.
+     */
+    private void turnAwayUnlessResumed(final Connection connection, final RemoteSession session,
+            final String reason) {
+        final AtomicBoolean decided = new AtomicBoolean(false);
+        final Runnable refuse = () -> {
+            if (decided.compareAndSet(false, true)) {
+                turnAway(session, reason);
+            }
+        };
+        connection.setResumeListener(request -> {
+            if (decided.compareAndSet(false, true) && !resume(connection, session, request)) {
+                turnAway(session, reason);
+            }
+        });
+        connection.setInputListener(line -> refuse.run());
+        try {
+            timers.schedule(refuse, RESUME_WAIT, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ree) {
+            // the server is stopping
+            refuse.run();
+        }
+    }
+
+    private void listen(final Connection connection, final RemoteSession session) {
+        connection.setInputListener(line -> session.receive(connection, line));
+        connection.setHelloListener(session::negotiate);
+        connection.setCloseListener(() -> registry.disconnected(session, connection));
+    }
+
+    /**
+     * Handles a client's request to resume a lost session on the given
+     * connection. The session the connection was opened with hands the
+     * connection over and ends without having been played. Returns false
+     * if there was nothing to resume.
+     */
+    private boolean resume(Connection connection, RemoteSession session, String request) {
+        String[] parts = request.split(" ");
+        RemoteSession lost = registry.findResumable(parts[0]);
+        long received;
+        try {
+            received = (parts.length > 1) ? Long.parseLong(parts[1]) : 0;
+        } catch (NumberFormatException nfe) {
+            received = 0;
+        }
+        FrameCodec codec = (lost == null || lost == session) ? null : session.supersede();
+        if (codec == null) {
+            logger.debug("Nothing to resume for " + session);
+            session.refuseResume();
+            return false;
+        }
+        registry.superseded(session);
+        listen(connection, lost);
+        connection.setResumeListener(null);
+        FrameCodec oldCodec = lost.attach(connection, codec, received);
+        if (oldCodec == null) {
+            logger.debug("Resuming " + lost + " is too late");
+            connection.close();
+            return true;
+        }
+        lost.recordCompression(oldCodec, compressionStats);
+        return true;
+    }
+
+    private void startGame(final RemoteSession session) {
+        workers.execute(new Runnable() {
+            public void run() {
+                session.beginTurn();
+                try {
+                    session.play(new MainMenu(session, new GameContext(itemRepository)));
+                } finally {
+                    session.endTurn();
+                    session.close();
+                    registry.finished(session);
+                    session.recordCompression(compressionStats);
+                }
+            }
+        });
+    }
+
+    private static void turnAway(RemoteSession session, String reason) {
+        session.offer(reason);
+        session.exit();
+        session.close();
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ioe) {
+            logger.debug("Closing " + channel, ioe);
+        }
+    }
+
+    /**
+     * Shuts the server down without losing the players' progress. The
+     * server stops accepting connections and tells every player about it,
+     * then saves all running games in parallel on a bounded pool. Games in
+     * the middle of a turn are saved once the turn is over. Whatever isn't
+     * saved within --shutdown-timeout seconds is reported as timed out.
+     */
+    public ShutdownReport shutdown() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.getShutdownTimeout());
+        ShutdownReport report = new ShutdownReport();
+        closeListener();
+        for (RemoteSession session : registry.removePending()) {
+            turnAway(session, "The server is shutting down.");
+        }
+        List<RemoteSession> sessions = registry.getActiveSessions();
+        logger.info("Shutting down, saving " + sessions.size() + " sessions");
+        for (RemoteSession session : sessions) {
+            session.offer("The server is shutting down, your game is being saved.");
+            session.flush();
+        }
+        if (!sessions.isEmpty()) {
+            saveAll(sessions, deadline, report);
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(remaining(deadline), TimeUnit.NANOSECONDS);
+            for (RemoteSession session : sessions) {
+                while (!session.getConnection().isClosed() && remaining(deadline) > 0) {
+                    Thread.sleep(10);
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        stop();
+        report.setMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info(compressionStats.toString());
+        if (report.isComplete()) {
+            logger.info(report.toString());
+        } else {
+            logger.warn(report.toString());
+        }
+        return report;
+    }
+
+    private void saveAll(List<RemoteSession> sessions, long deadline, ShutdownReport report) {
+        ExecutorService savers = Executors.newFixedThreadPool(
+                Math.min(config.getShutdownSavers(), sessions.size()), new NamedThreadFactory("jadventure-saver-"));
+        Map<RemoteSession, Future<SaveResult>> results = new LinkedHashMap<>();
+        Map<RemoteSession, String> names = new LinkedHashMap<>();
+        for (final RemoteSession session : sessions) {
+            names.put(session, describe(session));
+            results.put(session, savers.submit(() -> session.saveAndExpire(remaining(deadline), TimeUnit.NANOSECONDS)));
+        }
+        savers.shutdown();
+        for (Map.Entry<RemoteSession, Future<SaveResult>> entry : results.entrySet()) {
+            RemoteSession session = entry.getKey();
+            String name = names.get(session);
+            SaveResult result;
+            try {
+                result = entry.getValue().get(remaining(deadline), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | InterruptedException | ExecutionException e) {
+                result = (e instanceof ExecutionException) ? SaveResult.FAILED : SaveResult.TIMED_OUT;
+                session.expire();
+            }
+            report.add(name, result);
+        }
+        savers.shutdownNow();
+    }
+
+    private static String describe(RemoteSession session) {
+        Player player = session.getPlayer();
+        String connection = String.valueOf(session.getConnection());
+        return (player == null) ? connection : player.getName() + " " + connection;
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private void closeListener() {
+        try {
+            listener.close();
+        } catch (IOException ioe) {
+            logger.debug("Closing listener", ioe);
+        }
+    }
+
+    public void stop() {
+        closeListener();
+        for (IoLoop ioLoop : ioLoops) {
+            ioLoop.stop();
+        }
+        timers.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.jadventure.game.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs periodically on the GameServer and looks for players who left a
+ * prompt unanswered. They are warned as their idle time approaches the
+ * timeout, and once it passes their session is expired, which makes the
+ * session's own thread save the game and shut it down.
+ */
+public class IdleReaper implements Runnable {
+    private static Logger logger = LoggerFactory.getLogger(IdleReaper.class);
+
+    private final SessionRegistry registry;
+    private final long timeout;
+    private final int[] warnings;
+
+    public IdleReaper(SessionRegistry registry, ServerConfig config) {
+        this.registry = registry;
+        this.timeout = TimeUnit.SECONDS.toNanos(config.getIdleTimeout());
+        this.warnings = config.getIdleWarnings();
+    }
+
+    public void run() {
+        for (RemoteSession session : registry.getActiveSessions()) {
+            long idle = session.getIdleNanos();
+            if (idle == 0 || session.isExpired()) {
+                continue;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toSeconds(timeout - idle);
+            if (idle >= timeout) {
+                logger.info("Expiring " + session + " after " + TimeUnit.NANOSECONDS.toSeconds(idle) + "s idle");
+                session.offer("You have been idle for too long. Your game is saved and you are disconnected.");
+                session.flush();
+                session.expire();
+                continue;
+            }
+            int sent = session.getIdleWarningsSent();
+            if (sent < warnings.length && remaining < warnings[sent]) {
+                while (sent < warnings.length && remaining < warnings[sent]) {
+                    sent++;
+                }
+                session.setIdleWarningsSent(sent);
+                session.offer("You have been idle for a while. You will be disconnected in " +
+                        (remaining + 1) + " seconds unless you enter a command.");
+                session.flush();
+            }
+        }
+    }
+}
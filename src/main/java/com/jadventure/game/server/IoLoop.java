@@ -0,0 +1,114 @@
+package com.jadventure.game.server;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One selector thread of the server. Every connection is owned by exactly
+ * one IoLoop, which does all the socket reads and writes for it.
+ *
+ * Other threads never touch the selector directly, they hand tasks
+ * to the loop with execute() instead.
+ */
+public class IoLoop implements Runnable {
+    private static Logger logger = LoggerFactory.getLogger(IoLoop.class);
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private volatile Thread thread;
+
+    public IoLoop() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    public void register(final SocketChannel channel, final Connection connection) {
+        execute(new Runnable() {
+            public void run() {
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connection.setKey(key);
+                } catch (ClosedChannelException cce) {
+                    connection.close();
+                }
+            }
+        });
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Returns true if called by the loop's own thread.
+     */
+    public boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public void run() {
+        thread = Thread.currentThread();
+        while (running) {
+            try {
+                selector.select();
+                runTasks();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            } catch (IOException ioe) {
+                logger.warn("Selector failed", ioe);
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((Connection) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException ioe) {
+            logger.debug("Closing selector", ioe);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+            }
+        } catch (CancelledKeyException cke) {
+            connection.close();
+        } catch (IOException ioe) {
+            logger.debug("Connection " + connection + " failed", ioe);
+            connection.close();
+        }
+    }
+}
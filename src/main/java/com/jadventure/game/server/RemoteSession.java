@@ -0,0 +1,547 @@
+package com.jadventure.game.server;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.jadventure.game.QueueProvider;
+import com.jadventure.game.BlockingSession;
+import com.jadventure.game.SessionClosedException;
+import com.jadventure.game.entities.Player;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+import com.jadventure.game.protocol.ProtocolException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Session of a player connected to the GameServer.
+ *
+ * Messages are encoded by a FrameCodec owned by the session, which reuses
+ * its buffer for every message instead of wrapping new streams around
+ * the socket each time.
+ *
+ * Output is not sent line by line. The lines offered during a turn are
+ * collected and sent as a single OUTPUT frame when the game asks for
+ * input, when flush() is called or when the buffer exceeds its size.
+ *
+ * The session also keeps track of how long the player has left a prompt
+ * unanswered, so the IdleReaper can warn and finally expire it.
+ *
+ * A client may ask for compressed output with a HELLO frame. The output
+ * is then deflated into one stream per session, sync-flushed with every
+ * frame, that is once per turn.
+ *
+ * A session outlives a lost connection by the server's resume grace
+ * period. The game waits for the client to come back with the session's
+ * token on a new connection, which then takes the place of the old one.
+ * The client is sent the output it missed from a buffer of recent OUTPUT
+ * frames. If it doesn't come back in time the game is saved and ends.
+ *
+ * The game thread holds the session's turn lock except while it waits for
+ * input. Other threads take the lock to touch the player's game safely,
+ * as the server does to save all games when it shuts down.
+ */
+public class RemoteSession extends BlockingSession {
+    private static Logger logger = LoggerFactory.getLogger(RemoteSession.class);
+
+    private static final SecureRandom random = new SecureRandom();
+    /** Compared by identity, wakes up the game thread waiting for input */
+    private static final String WAKE_UP = new String("");
+    /** Compared by identity, marks the end of the client's input */
+    private static final String END_OF_INPUT = new String("");
+    /** Lines of input waiting for the game before the connection stops reading */
+    static final int MAX_INBOUND_LINES = 16;
+
+    private volatile Connection connection;
+    private FrameCodec codec = new FrameCodec();
+    private final int maxBuffered;
+    private final boolean compressionAllowed;
+    private boolean codecEnded = false;
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingLines = 0;
+    private final BlockingQueue<String> inbound = new LinkedBlockingQueue<>();
+    /** Lines of input in the inbound queue, not counting the markers */
+    private final AtomicInteger inboundLines = new AtomicInteger();
+    private final String token;
+    private final long resumeGrace;
+    /** The most recent OUTPUT frames, at most replayLimit characters */
+    private final ArrayDeque<String> replay = new ArrayDeque<>();
+    private final int replayLimit;
+    private int replayChars = 0;
+    /** Number of OUTPUT frames sent so far */
+    private long outputFrames = 0;
+    /** System.nanoTime() at which the connection was lost */
+    private volatile long lostSince = 0;
+    private volatile boolean inputTaken = false;
+    private boolean superseded = false;
+    /** System.nanoTime() at which the current prompt was sent, 0 while not waiting */
+    private volatile long waitingSince = 0;
+    private volatile int idleWarningsSent = 0;
+    private volatile boolean expired = false;
+    private volatile boolean gameSaved = false;
+    private final ReentrantLock turn = new ReentrantLock();
+    /**
+     * Guards the pending output and the codec. It's not the session's
+     * monitor because sending may wait for a slow client, and a virtual
+     * thread waiting inside a monitor pins its carrier thread.
+     */
+    private final ReentrantLock outputLock = new ReentrantLock();
+
+    public enum SaveResult {
+        SAVED, NO_GAME, TIMED_OUT, FAILED
+    }
+
+    public RemoteSession(Connection connection, ServerConfig config) {
+        this.connection = connection;
+        this.maxBuffered = config.getOutputBuffer();
+        this.compressionAllowed = config.isCompression();
+        this.resumeGrace = TimeUnit.SECONDS.toNanos(config.getResumeGrace());
+        this.replayLimit = (config.getResumeGrace() > 0) ? config.getReplayBuffer() : 0;
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        this.token = HexFormat.of().formatHex(bytes);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    protected void write(CharSequence text) {
+        outputLock.lock();
+        try {
+            int start = 0;
+            int end;
+            int length = text.length();
+            for (end = 0; end < length; end++) {
+                if (text.charAt(end) == '\n') {
+                    append(text, start, end);
+                    start = end + 1;
+                }
+            }
+            append(text, start, length);
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Buffers one line of output, a full buffer is sent right away.
+     */
+    private void append(CharSequence text, int start, int end) {
+        if (pendingLines > 0) {
+            pending.append('\n');
+        }
+        pending.append(text, start, end);
+        pendingLines++;
+        if (pending.length() >= maxBuffered) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        outputLock.lock();
+        try {
+            if (pendingLines == 0) {
+                return;
+            }
+            outputFrames++;
+            if (replayLimit > 0) {
+                String output = pending.toString();
+                replay.add(output);
+                replayChars += output.length();
+                while (replayChars > replayLimit) {
+                    replayChars -= replay.poll().length();
+                }
+            }
+            send(FrameType.OUTPUT, pending);
+            pending.setLength(0);
+            pendingLines = 0;
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Asks the client for input and waits for the answer. The end of the
+     * client's input is answered like "exit". A lost connection that isn't
+     * resumed in time expires the session.
+     */
+    @Override
+    public String take() {
+        outputLock.lock();
+        try {
+            flush();
+            send(FrameType.PROMPT, "");
+        } finally {
+            outputLock.unlock();
+        }
+        boolean ownsTurn = turn.isHeldByCurrentThread();
+        if (ownsTurn) {
+            turn.unlock();
+        }
+        String input;
+        waitingSince = System.nanoTime();
+        try {
+            input = receive();
+        } finally {
+            waitingSince = 0;
+            idleWarningsSent = 0;
+            if (ownsTurn) {
+                turn.lock();
+            }
+        }
+        if (expired) {
+            throw new SessionClosedException(this + " has expired", gameSaved);
+        }
+        if (input == null) {
+            logger.debug("End of input from " + connection);
+            input = endOfInput();
+        }
+        inputTaken = true;
+        return input;
+    }
+
+    /**
+     * Waits for the next line of input, for a lost connection only as long
+     * as it may still be resumed. Returns null once the input has ended or
+     * the session has expired.
+     */
+    private String receive() {
+        try {
+            while (!expired) {
+                String line;
+                if (!connection.isClosed()) {
+                    line = inbound.take();
+                } else {
+                    long left = lostSince + resumeGrace - System.nanoTime();
+                    line = inbound.poll(Math.max(0, left), TimeUnit.NANOSECONDS);
+                    if (line == null && left <= 0) {
+                        logger.info(this + " wasn't resumed in time");
+                        expired = true;
+                    }
+                }
+                if (line == END_OF_INPUT) {
+                    inbound.add(END_OF_INPUT);
+                    return null;
+                } else if (line != null && line != WAKE_UP) {
+                    if (inboundLines.getAndDecrement() == MAX_INBOUND_LINES) {
+                        connection.resumeInput();
+                    }
+                    return line;
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Takes a line of input from the given connection, or the end of its
+     * input if the line is null. Connections the session has left behind
+     * are ignored. Once MAX_INBOUND_LINES lines are waiting for the game
+     * the connection's input is paused, until the game takes one of them.
+     */
+    void receive(Connection from, String line) {
+        if (from != connection) {
+            return;
+        }
+        if (line != null) {
+            inbound.add(line);
+            if (inboundLines.incrementAndGet() >= MAX_INBOUND_LINES) {
+                from.pauseInput();
+            }
+        } else if (from.isClosed()) {
+            logger.debug("Connection " + from + " lost");
+            lostSince = System.nanoTime();
+            inbound.add(WAKE_UP);
+        } else {
+            inbound.add(END_OF_INPUT);
+        }
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Number of lines of input waiting for the game.
+     */
+    int getInboundLines() {
+        return inboundLines.get();
+    }
+
+    /**
+     * Gives this session's connection to a session the client resumes.
+     * Only a session that hasn't taken any input yet may be superseded.
+     * Returns the codec the connection's frames have been encoded with
+     * so far, or null if the session can't be superseded.
+     */
+    FrameCodec supersede() {
+        outputLock.lock();
+        try {
+            if (inputTaken || !inbound.isEmpty() || codecEnded) {
+                return null;
+            }
+            superseded = true;
+            codecEnded = true;
+            expire();
+            return codec;
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the session to the connection the client resumed it on. The
+     * client gets the OUTPUT frames after the number it has received, as
+     * far as they are still buffered, and the prompt if the game is
+     * waiting for input. Returns the codec the session used before, or
+     * null if the session has already expired.
+     *
+     * @param encoder the codec the new connection's frames are encoded with
+     */
+    FrameCodec attach(Connection newConnection, FrameCodec encoder, long received) {
+        outputLock.lock();
+        try {
+            if (expired || codecEnded) {
+                return null;
+            }
+            Connection oldConnection = connection;
+            FrameCodec oldCodec = codec;
+            connection = newConnection;
+            codec = encoder;
+            lostSince = 0;
+            oldConnection.close();
+            long first = Math.max(outputFrames - replay.size(), Math.min(received, outputFrames));
+            send(FrameType.RESUME, String.valueOf(first));
+            long frame = outputFrames - replay.size();
+            for (String output : replay) {
+                if (frame++ >= first) {
+                    send(FrameType.OUTPUT, output);
+                }
+            }
+            if (waitingSince != 0) {
+                send(FrameType.PROMPT, "");
+            }
+            inbound.add(WAKE_UP);
+            logger.info(this + " resumed, " + (outputFrames - first) + " frames replayed");
+            return oldCodec;
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Tells the client there's no session to resume.
+     */
+    void refuseResume() {
+        outputLock.lock();
+        try {
+            send(FrameType.RESUME, "");
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Answers the client's HELLO with the features this session will use.
+     */
+    public void negotiate(String features) {
+        outputLock.lock();
+        try {
+            List<String> offered = Arrays.asList(features.split(","));
+            boolean deflate = compressionAllowed && !codec.isCompressing() && offered.contains("deflate");
+            List<String> accepted = new ArrayList<>();
+            if (deflate) {
+                accepted.add("deflate");
+            }
+            if (resumeGrace > 0 && offered.contains("resume")) {
+                accepted.add("resume=" + token);
+            }
+            if (offered.contains("json")) {
+                setJsonOutput(true);
+                accepted.add("json");
+            }
+            send(FrameType.HELLO, String.join(",", accepted));
+            if (deflate) {
+                codec.enableCompression();
+            }
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Adds what compressing this session's output saved and cost to the
+     * server's stats. Called once the session is over.
+     */
+    void recordCompression(CompressionStats stats) {
+        outputLock.lock();
+        try {
+            if (codecEnded) {
+                return;
+            }
+            recordCompression(codec, stats);
+            codecEnded = true;
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Adds what the given codec of this session saved and cost to the
+     * server's stats, and releases it.
+     */
+    void recordCompression(FrameCodec codec, CompressionStats stats) {
+        if (codec.isCompressing()) {
+            stats.add(codec);
+            logger.debug(CompressionStats.describe(toString(), codec.getUncompressedBytes(),
+                    codec.getCompressedBytes(), codec.getCompressionNanos()));
+        }
+        codec.end();
+    }
+
+    /**
+     * Returns for how many nanoseconds the player has left the current
+     * prompt unanswered, 0 if the game isn't waiting for input.
+     */
+    public long getIdleNanos() {
+        long since = waitingSince;
+        return (since == 0) ? 0 : System.nanoTime() - since;
+    }
+
+    int getIdleWarningsSent() {
+        return idleWarningsSent;
+    }
+
+    void setIdleWarningsSent(int idleWarningsSent) {
+        this.idleWarningsSent = idleWarningsSent;
+    }
+
+    /**
+     * Ends the session of an idle player. The game thread waiting for input
+     * wakes up with a SessionClosedException, saves the game and returns.
+     */
+    public void expire() {
+        expired = true;
+        inbound.add(WAKE_UP);
+    }
+
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Called by the game thread before it starts running the game.
+     */
+    void beginTurn() {
+        turn.lock();
+    }
+
+    /**
+     * Called by the game thread once the game has ended.
+     */
+    void endTurn() {
+        if (turn.isHeldByCurrentThread()) {
+            turn.unlock();
+        }
+    }
+
+    /**
+     * Saves the player's game as soon as the game thread is waiting for
+     * input, and expires the session so the game ends without touching the
+     * player again. Gives up after the timeout if the player's turn is
+     * still running by then.
+     */
+    public SaveResult saveAndExpire(long timeout, TimeUnit unit) {
+        try {
+            if (!turn.tryLock(timeout, unit)) {
+                return SaveResult.TIMED_OUT;
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return SaveResult.TIMED_OUT;
+        }
+        try {
+            Player player = getPlayer();
+            if (player == null) {
+                return SaveResult.NO_GAME;
+            }
+            QueueProvider.bind(this);
+            try {
+                player.save();
+            } finally {
+                QueueProvider.unbind();
+            }
+            gameSaved = true;
+            return SaveResult.SAVED;
+        } catch (RuntimeException re) {
+            logger.warn("Unable to save the game of " + this, re);
+            return SaveResult.FAILED;
+        } finally {
+            expire();
+            turn.unlock();
+        }
+    }
+
+    @Override
+    public void exit() {
+        outputLock.lock();
+        try {
+            flush();
+            send(FrameType.EXIT, "");
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    /**
+     * Encodes and queues one frame. Callers hold the output lock, which
+     * guards the codec's buffer.
+     */
+    private boolean send(FrameType type, CharSequence message) {
+        if (codecEnded) {
+            return false;
+        }
+        ByteBuffer frame;
+        try {
+            frame = codec.encode(type, 0, message);
+        } catch (ProtocolException pe) {
+            logger.warn("Unable to encode message for " + connection, pe);
+            return false;
+        }
+        return connection.send(frame);
+    }
+
+    @Override
+    public void close() {
+        outputLock.lock();
+        try {
+            flush();
+            if (!superseded) {
+                connection.closeWhenFlushed();
+            }
+        } finally {
+            outputLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteSession " + connection;
+    }
+}
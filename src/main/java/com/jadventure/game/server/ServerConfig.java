@@ -0,0 +1,341 @@
+package com.jadventure.game.server;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Holds the settings the game server is started with.
+ *
+ * The port is taken from the usual positional argument
+ * (<code>server &lt;port&gt;</code>), everything else is given
+ * as <code>--name=value</code> options after it.
+ */
+public class ServerConfig {
+    public static final int DEFAULT_PORT = 4044;
+
+    private int port = DEFAULT_PORT;
+    /** Number of selector threads multiplexing the client sockets */
+    private int ioThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /** Number of platform threads running game logic, 0 means one per game */
+    private int workerThreads = 0;
+    /**
+     * Run every session on its own virtual thread instead of the worker
+     * pool, null means unless a number of workers is given
+     */
+    private Boolean virtualThreads = null;
+    /** Number of characters of output a session buffers before sending them */
+    private int outputBuffer = 16 * 1024;
+    /** Compress the output for clients asking for it */
+    private boolean compression = true;
+    /** Seconds the game of a lost connection waits for the client to resume it, 0 means not at all */
+    private int resumeGrace = 2 * 60;
+    /** Number of characters of recent output kept to replay to a resuming client */
+    private int replayBuffer = 64 * 1024;
+    /** Bytes queued for a client before the slow client policy applies */
+    private int outputLimit = 256 * 1024;
+    private SlowClientPolicy slowClientPolicy = SlowClientPolicy.DROP;
+    /** Seconds a client may stay over the output limit with DISCONNECT */
+    private int slowClientTimeout = 30;
+    /** Seconds a player may leave a prompt unanswered, 0 means forever */
+    private int idleTimeout = 30 * 60;
+    /** Seconds before the idle timeout at which the player is warned */
+    private int[] idleWarnings = {5 * 60, 60};
+    /** Seconds a shutdown may take to save all games */
+    private int shutdownTimeout = 20;
+    /** Number of threads saving games during a shutdown */
+    private int shutdownSavers = Runtime.getRuntime().availableProcessors();
+    /** Maximum number of games running at once, 0 means unlimited */
+    private int maxSessions = 0;
+    /** Maximum number of players waiting for a free game */
+    private int maxPending = 64;
+    /** Maximum number of connections from one address, 0 means unlimited */
+    private int maxPerAddress = 0;
+
+    public static ServerConfig fromArgs(String[] args) {
+        ServerConfig config = new ServerConfig();
+        if (args.length > 1 && !args[1].startsWith("--")) {
+            config.setPort(Integer.parseInt(args[1]));
+        }
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                continue;
+            }
+            int split = arg.indexOf('=');
+            String name = (split < 0) ? arg.substring(2) : arg.substring(2, split);
+            String value = (split < 0) ? "true" : arg.substring(split + 1);
+            config.setOption(name, value);
+        }
+        return config;
+    }
+
+    protected void setOption(String name, String value) {
+        switch (name) {
+            case "port":
+                setPort(Integer.parseInt(value));
+                break;
+            case "io-threads":
+                setIoThreads(Integer.parseInt(value));
+                break;
+            case "workers":
+                setWorkerThreads(Integer.parseInt(value));
+                break;
+            case "virtual-threads":
+                setVirtualThreads(Boolean.parseBoolean(value));
+                break;
+            case "output-buffer":
+                setOutputBuffer(Integer.parseInt(value));
+                break;
+            case "compression":
+                setCompression(Boolean.parseBoolean(value));
+                break;
+            case "resume-grace":
+                setResumeGrace(Integer.parseInt(value));
+                break;
+            case "replay-buffer":
+                setReplayBuffer(Integer.parseInt(value));
+                break;
+            case "output-limit":
+                setOutputLimit(Integer.parseInt(value));
+                break;
+            case "slow-client":
+                setSlowClientPolicy(SlowClientPolicy.valueOf(value.toUpperCase()));
+                break;
+            case "slow-client-timeout":
+                setSlowClientTimeout(Integer.parseInt(value));
+                break;
+            case "idle-timeout":
+                setIdleTimeout(Integer.parseInt(value));
+                break;
+            case "idle-warnings":
+                String[] warnings = value.isEmpty() ? new String[0] : value.split(",");
+                int[] seconds = new int[warnings.length];
+                for (int i = 0; i < warnings.length; i++) {
+                    seconds[i] = Integer.parseInt(warnings[i].trim());
+                }
+                setIdleWarnings(seconds);
+                break;
+            case "shutdown-timeout":
+                setShutdownTimeout(Integer.parseInt(value));
+                break;
+            case "shutdown-savers":
+                setShutdownSavers(Integer.parseInt(value));
+                break;
+            case "max-sessions":
+                setMaxSessions(Integer.parseInt(value));
+                break;
+            case "max-pending":
+                setMaxPending(Integer.parseInt(value));
+                break;
+            case "max-per-address":
+                setMaxPerAddress(Integer.parseInt(value));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown server option '--" + name + "'");
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public void setIoThreads(int ioThreads) {
+        if (ioThreads < 1) {
+            throw new IllegalArgumentException("At least one io thread is needed");
+        }
+        this.ioThreads = ioThreads;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        if (workerThreads < 0) {
+            throw new IllegalArgumentException("Number of workers can't be negative");
+        }
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * Returns whether the games run on virtual threads. They do unless
+     * --workers is given or --virtual-threads=false.
+     */
+    public boolean isVirtualThreads() {
+        return (virtualThreads != null) ? virtualThreads : workerThreads == 0;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getOutputBuffer() {
+        return outputBuffer;
+    }
+
+    public void setOutputBuffer(int outputBuffer) {
+        if (outputBuffer < 1) {
+            throw new IllegalArgumentException("The output buffer needs room for at least one character");
+        }
+        this.outputBuffer = outputBuffer;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public int getResumeGrace() {
+        return resumeGrace;
+    }
+
+    public void setResumeGrace(int resumeGrace) {
+        if (resumeGrace < 0) {
+            throw new IllegalArgumentException("The resume grace period can't be negative");
+        }
+        this.resumeGrace = resumeGrace;
+    }
+
+    public int getReplayBuffer() {
+        return replayBuffer;
+    }
+
+    public void setReplayBuffer(int replayBuffer) {
+        if (replayBuffer < 0) {
+            throw new IllegalArgumentException("The replay buffer can't be negative");
+        }
+        this.replayBuffer = replayBuffer;
+    }
+
+    public int getOutputLimit() {
+        return outputLimit;
+    }
+
+    public void setOutputLimit(int outputLimit) {
+        if (outputLimit < 1) {
+            throw new IllegalArgumentException("The output limit must be at least one byte");
+        }
+        this.outputLimit = outputLimit;
+    }
+
+    public SlowClientPolicy getSlowClientPolicy() {
+        return slowClientPolicy;
+    }
+
+    public void setSlowClientPolicy(SlowClientPolicy slowClientPolicy) {
+        this.slowClientPolicy = slowClientPolicy;
+    }
+
+    public int getSlowClientTimeout() {
+        return slowClientTimeout;
+    }
+
+    public void setSlowClientTimeout(int slowClientTimeout) {
+        if (slowClientTimeout < 0) {
+            throw new IllegalArgumentException("The slow client timeout can't be negative");
+        }
+        this.slowClientTimeout = slowClientTimeout;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(int idleTimeout) {
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("The idle timeout can't be negative");
+        }
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns the warning times in seconds before the idle timeout,
+     * the earliest warning first.
+     */
+    public int[] getIdleWarnings() {
+        return idleWarnings.clone();
+    }
+
+    public void setIdleWarnings(int[] idleWarnings) {
+        int[] sorted = Arrays.stream(idleWarnings).boxed()
+                .sorted(Comparator.reverseOrder()).mapToInt(Integer::intValue).toArray();
+        this.idleWarnings = sorted;
+    }
+
+    public int getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(int shutdownTimeout) {
+        if (shutdownTimeout < 0) {
+            throw new IllegalArgumentException("The shutdown timeout can't be negative");
+        }
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public int getShutdownSavers() {
+        return shutdownSavers;
+    }
+
+    public void setShutdownSavers(int shutdownSavers) {
+        if (shutdownSavers < 1) {
+            throw new IllegalArgumentException("At least one thread is needed to save the games");
+        }
+        this.shutdownSavers = shutdownSavers;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        if (maxSessions < 0) {
+            throw new IllegalArgumentException("Maximum number of sessions can't be negative");
+        }
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Returns the number of games that can run at once. A game holds its
+     * thread until the player quits, so a fixed pool of workers can't run
+     * more games than it has threads. 0 means unlimited.
+     */
+    public int getSessionLimit() {
+        if (isVirtualThreads() || workerThreads == 0) {
+            return maxSessions;
+        }
+        return (maxSessions == 0) ? workerThreads : Math.min(maxSessions, workerThreads);
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        if (maxPending < 0) {
+            throw new IllegalArgumentException("Maximum number of pending sessions can't be negative");
+        }
+        this.maxPending = maxPending;
+    }
+
+    public int getMaxPerAddress() {
+        return maxPerAddress;
+    }
+
+    public void setMaxPerAddress(int maxPerAddress) {
+        if (maxPerAddress < 0) {
+            throw new IllegalArgumentException("Maximum number of connections per address can't be negative");
+        }
+        this.maxPerAddress = maxPerAddress;
+    }
+}
@@ -0,0 +1,234 @@
+package com.jadventure.game.server;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the sessions of a GameServer and decides which new
+ * players may start playing.
+ *
+ * At most maxSessions games run at the same time, no more than a fixed
+ * pool of workers has threads for. Further players wait in
+ * a queue of at most maxPending sessions and are told their position in
+ * it. Anyone beyond that, or beyond maxPerAddress connections from one
+ * address, is turned away. A limit of 0 means unlimited.
+ */
+public class SessionRegistry {
+    private static Logger logger = LoggerFactory.getLogger(SessionRegistry.class);
+
+    public enum Admission {
+        STARTED, QUEUED, SERVER_FULL, TOO_MANY_FROM_ADDRESS, DISCONNECTED
+    }
+
+    private final int maxSessions;
+    private final int maxPending;
+    private final int maxPerAddress;
+    private final Consumer<RemoteSession> starter;
+    private final Set<RemoteSession> active = new LinkedHashSet<>();
+    private final Deque<RemoteSession> pending = new ArrayDeque<>();
+    private final Map<InetAddress, Integer> perAddress = new HashMap<>();
+    /** The connections counted in perAddress, those of sessions started or queued */
+    private final Set<Connection> counted = new HashSet<>();
+    /**
+     * The active sessions by a digest of their token. Looking a token up
+     * by its digest takes no longer the more of it is right.
+     */
+    private final Map<String, RemoteSession> byToken = new HashMap<>();
+
+    /**
+     * @param starter runs the game of a session once it's admitted
+     */
+    public SessionRegistry(ServerConfig config, Consumer<RemoteSession> starter) {
+        this.maxSessions = config.getSessionLimit();
+        this.maxPending = config.getMaxPending();
+        this.maxPerAddress = config.getMaxPerAddress();
+        this.starter = starter;
+    }
+
+    /**
+     * Starts the session's game, queues it or turns it away.
+     */
+    public Admission admit(RemoteSession session) {
+        Admission admission;
+        int position = 0;
+        synchronized (this) {
+            InetAddress address = addressOf(session.getConnection());
+            int fromAddress = perAddress.getOrDefault(address, 0);
+            if (session.getConnection().isClosed()) {
+                admission = Admission.DISCONNECTED;
+            } else if (maxPerAddress > 0 && fromAddress >= maxPerAddress) {
+                admission = Admission.TOO_MANY_FROM_ADDRESS;
+            } else if (maxSessions == 0 || active.size() < maxSessions) {
+                activate(session);
+                admission = Admission.STARTED;
+            } else if (pending.size() < maxPending) {
+                pending.add(session);
+                position = pending.size();
+                admission = Admission.QUEUED;
+            } else {
+                admission = Admission.SERVER_FULL;
+            }
+            if (admission == Admission.STARTED || admission == Admission.QUEUED) {
+                perAddress.put(address, fromAddress + 1);
+                counted.add(session.getConnection());
+            }
+        }
+        logger.debug("Admission of " + session + ": " + admission);
+        if (admission == Admission.STARTED) {
+            starter.accept(session);
+        } else if (admission == Admission.QUEUED) {
+            tellPosition(session, position);
+        }
+        return admission;
+    }
+
+    /**
+     * Called when a session's game has ended. Its place goes to the first
+     * session waiting in the queue.
+     */
+    public void finished(RemoteSession session) {
+        RemoteSession next = null;
+        List<RemoteSession> waiting;
+        synchronized (this) {
+            if (!active.remove(session)) {
+                return;
+            }
+            byToken.remove(digest(session.getToken()));
+            while (next == null && !pending.isEmpty()) {
+                RemoteSession candidate = pending.poll();
+                if (!candidate.getConnection().isClosed()) {
+                    next = candidate;
+                }
+            }
+            if (next != null) {
+                activate(next);
+            }
+            waiting = new ArrayList<>(pending);
+        }
+        if (next != null) {
+            starter.accept(next);
+            for (int i = 0; i < waiting.size(); i++) {
+                tellPosition(waiting.get(i), i + 1);
+            }
+        }
+    }
+
+    /**
+     * Called when one of a session's connections has been closed. Only a
+     * connection that was counted for its address frees a place for it,
+     * not one that was turned away.
+     */
+    public synchronized void disconnected(RemoteSession session, Connection connection) {
+        pending.remove(session);
+        if (!counted.remove(connection)) {
+            return;
+        }
+        InetAddress address = addressOf(connection);
+        Integer count = perAddress.get(address);
+        if (count != null) {
+            if (count > 1) {
+                perAddress.put(address, count - 1);
+            } else {
+                perAddress.remove(address);
+            }
+        }
+    }
+
+    /**
+     * Returns the running session with the given token, or null if there's
+     * none or it has expired.
+     */
+    public synchronized RemoteSession findResumable(String token) {
+        RemoteSession session = byToken.get(digest(token));
+        if (session == null || session.isExpired()) {
+            return null;
+        }
+        byte[] expected = session.getToken().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, token.getBytes(StandardCharsets.UTF_8)) ? session : null;
+    }
+
+    private void activate(RemoteSession session) {
+        active.add(session);
+        byToken.put(digest(session.getToken()), session);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 is not available", nsae);
+        }
+    }
+
+    /**
+     * Called when a session has handed its connection over to a resumed
+     * session. A waiting session leaves the queue, a running one finishes
+     * on its own.
+     */
+    public synchronized void superseded(RemoteSession session) {
+        pending.remove(session);
+    }
+
+    /**
+     * Returns the sessions whose games are running right now.
+     */
+    public synchronized List<RemoteSession> getActiveSessions() {
+        return new ArrayList<>(active);
+    }
+
+    /**
+     * Returns the sessions waiting for a free game.
+     */
+    public synchronized List<RemoteSession> getPendingSessions() {
+        return new ArrayList<>(pending);
+    }
+
+    /**
+     * Empties the queue of waiting sessions and returns them.
+     */
+    public synchronized List<RemoteSession> removePending() {
+        List<RemoteSession> removed = new ArrayList<>(pending);
+        pending.clear();
+        return removed;
+    }
+
+    public synchronized int getActiveCount() {
+        return active.size();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private static void tellPosition(RemoteSession session, int position) {
+        session.offer("Server full, you are number " + position + " in the queue.");
+        session.flush();
+    }
+
+    private static InetAddress addressOf(Connection connection) {
+        SocketAddress address = connection.getRemoteAddress();
+        if (address instanceof InetSocketAddress) {
+            return ((InetSocketAddress) address).getAddress();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.jadventure.game.server;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jadventure.game.server.RemoteSession.SaveResult;
+
+/**
+ * What became of every session when the GameServer shut down.
+ */
+public class ShutdownReport {
+    private final Map<SaveResult, List<String>> sessions = new EnumMap<>(SaveResult.class);
+    private long millis;
+
+    public ShutdownReport() {
+        for (SaveResult result : SaveResult.values()) {
+            sessions.put(result, new ArrayList<String>());
+        }
+    }
+
+    synchronized void add(String session, SaveResult result) {
+        sessions.get(result).add(session);
+    }
+
+    void setMillis(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * Returns the sessions that ended up with the given result.
+     */
+    public synchronized List<String> get(SaveResult result) {
+        return new ArrayList<>(sessions.get(result));
+    }
+
+    public synchronized int count(SaveResult result) {
+        return sessions.get(result).size();
+    }
+
+    /**
+     * Returns true if no game was lost.
+     */
+    public synchronized boolean isComplete() {
+        return sessions.get(SaveResult.TIMED_OUT).isEmpty() && sessions.get(SaveResult.FAILED).isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Shutdown took " + millis + " ms: " +
+                count(SaveResult.SAVED) + " games saved, " +
+                count(SaveResult.NO_GAME) + " sessions without a game, " +
+                count(SaveResult.TIMED_OUT) + " timed out " + sessions.get(SaveResult.TIMED_OUT) + ", " +
+                count(SaveResult.FAILED) + " failed " + sessions.get(SaveResult.FAILED);
+    }
+}
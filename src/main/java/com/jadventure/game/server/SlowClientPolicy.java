@@ -0,0 +1,18 @@
+package com.jadventure.game.server;
+
+/**
+ * What a Connection does when a client doesn't read its output fast
+ * enough and the outbound queue reaches its limit.
+ */
+public enum SlowClientPolicy {
+    /** Make the game thread wait until the client has caught up */
+    BLOCK,
+    /**
+     * Throw away the oldest queued output, prompts, exits and compressed
+     * output are kept. A client with nothing left to drop is handled as
+     * under DISCONNECT.
+     */
+    DROP,
+    /** Close the connection once the queue stays full for too long */
+    DISCONNECT
+}
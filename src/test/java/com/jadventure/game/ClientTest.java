@@ -0,0 +1,104 @@
+package com.jadventure.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+
+import com.jadventure.game.server.Connection;
+import com.jadventure.game.server.GameServer;
+import com.jadventure.game.server.RemoteSession;
+import com.jadventure.game.server.ServerConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClientTest {
+    private GameServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setIoThreads(1);
+        server = new GameServer(config);
+        server.start();
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void pipedInputIsSentAheadOfThePrompts() {
+        String output = play("nonsense\nexit\n");
+        assertTrue(output, output.contains("I don't know what 'nonsense' means."));
+        assertTrue(output, output.contains("Goodbye!"));
+    }
+
+    @Test(timeout = 10000)
+    public void endOfInputEndsTheGame() {
+        String output = play("");
+        assertTrue(output, output.contains("Goodbye!"));
+    }
+
+    @Test(timeout = 10000)
+    public void compressedOutputReadsTheSame() {
+        String plain = play("nonsense\nexit\n", false);
+        String compressed = play("nonsense\nexit\n", true);
+        assertEquals(plain, compressed);
+        assertTrue(server.getCompressionStats().getCompressedBytes() > 0);
+    }
+
+    @Test(timeout = 20000)
+    public void lostConnectionIsResumed() throws Exception {
+        PipedOutputStream typing = new PipedOutputStream();
+        PipedInputStream input = new PipedInputStream(typing);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Thread client = new Thread(() -> new Client("localhost", server.getPort(), input,
+                new PrintStream(output, true), true));
+        client.start();
+        typing.write("nonsense\n".getBytes());
+        typing.flush();
+        while (!output.toString().contains("I don't know what 'nonsense' means.")) {
+            Thread.sleep(10);
+        }
+
+        RemoteSession session = server.getRegistry().getActiveSessions().get(0);
+        Connection lost = session.getConnection();
+        lost.close();
+        while (session.getConnection() == lost) {
+            Thread.sleep(10);
+        }
+        typing.write("exit\n".getBytes());
+        typing.close();
+        client.join();
+
+        String played = output.toString();
+        assertTrue(played.contains("Connection lost, reconnecting..."));
+        assertFalse(played.contains("Unable to resume the game."));
+        assertTrue(played.contains("Goodbye!"));
+    }
+
+    private String play(String input) {
+        return play(input, true);
+    }
+
+    private String play(String input, boolean compression) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new Client("localhost", server.getPort(), new ByteArrayInputStream(input.getBytes()),
+                new PrintStream(output, true), compression);
+        return output.toString();
+    }
+}
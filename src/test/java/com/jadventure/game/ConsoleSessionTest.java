@@ -0,0 +1,38 @@
+package com.jadventure.game;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class ConsoleSessionTest {
+
+    @Test
+    public void pipedLinesAreReadOneByOne() {
+        ConsoleSession session = session("start\nrecruit\nBob\n");
+        assertEquals("start", session.take());
+        assertEquals("recruit", session.take());
+        assertEquals("Bob", session.take());
+    }
+
+    @Test
+    public void endOfInputExitsOnce() {
+        ConsoleSession session = session("n\n");
+        assertEquals("n", session.take());
+        assertEquals("exit", session.take());
+        try {
+            session.take();
+        } catch (SessionClosedException sce) {
+            return;
+        }
+        throw new AssertionError("Expected the session to be closed");
+    }
+
+    private static ConsoleSession session(String input) {
+        return new ConsoleSession(new ByteArrayInputStream(input.getBytes()),
+                new PrintStream(new ByteArrayOutputStream()));
+    }
+}
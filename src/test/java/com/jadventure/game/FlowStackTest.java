@@ -0,0 +1,124 @@
+package com.jadventure.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FlowStackTest {
+    private List<String> log;
+    private FlowStack flows;
+
+    @Before
+    public void setUp() {
+        log = new ArrayList<>();
+        flows = new FlowStack(new ConsoleSession());
+    }
+
+    @Test
+    public void topFlowGetsTheInput() {
+        Recorder parent = new Recorder("parent");
+        flows.push(parent);
+        flows.input("one");
+        assertTrue(flows.prompt());
+        assertEquals(List.of("parent start", "parent one", "parent prompt"), log);
+    }
+
+    @Test
+    public void parentIsResumedOnceItsChildFinishes() {
+        Recorder parent = new Recorder("parent");
+        Recorder child = new Recorder("child");
+        flows.push(parent);
+        flows.push(child);
+        assertSame(child, flows.current());
+
+        flows.input("finish");
+        assertSame(parent, flows.current());
+        assertTrue(log.contains("parent resumed by child"));
+        assertTrue(log.indexOf("child ended") < log.indexOf("parent resumed by child"));
+    }
+
+    @Test
+    public void deathUnwindsToTheFlowDealingWithIt() {
+        Recorder menu = new Recorder("menu");
+        menu.survives = true;
+        Recorder game = new Recorder("game");
+        Recorder battle = new Recorder("battle");
+        flows.push(menu);
+        flows.push(game);
+        flows.push(battle);
+
+        flows.input("die");
+        assertSame(menu, flows.current());
+        assertTrue(log.contains("battle ended"));
+        assertTrue(log.contains("game ended"));
+        assertFalse(log.contains("menu ended"));
+    }
+
+    @Test
+    public void closingTellsEveryFlow() {
+        flows.push(new Recorder("menu"));
+        flows.push(new Recorder("game"));
+        flows.close(new SessionClosedException("gone"));
+        assertTrue(flows.isEmpty());
+        assertNull(flows.current());
+        assertFalse(flows.prompt());
+        assertTrue(log.indexOf("game closed") < log.indexOf("menu closed"));
+    }
+
+    private class Recorder extends Flow {
+        private final String name;
+        boolean survives = false;
+
+        Recorder(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected void start() {
+            log.add(name + " start");
+        }
+
+        @Override
+        protected void prompt() {
+            log.add(name + " prompt");
+        }
+
+        @Override
+        protected void handle(String input) throws DeathException {
+            log.add(name + " " + input);
+            if (input.equals("finish")) {
+                finish();
+            } else if (input.equals("die")) {
+                throw new DeathException("restart");
+            }
+        }
+
+        @Override
+        protected void resume(Flow child) {
+            log.add(name + " resumed by " + ((Recorder) child).name);
+        }
+
+        @Override
+        protected boolean died(DeathException e) {
+            return survives;
+        }
+
+        @Override
+        protected void closed(SessionClosedException e) {
+            log.add(name + " closed");
+        }
+
+        @Override
+        protected void ended() {
+            log.add(name + " ended");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.jadventure.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesAreWithinTheBucketWidth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10000; micros++) {
+            histogram.record(micros * 1000L);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000, histogram.getMax());
+        assertClose(5000, histogram.getPercentile(50));
+        assertClose(9900, histogram.getPercentile(99));
+        assertClose(9990, histogram.getPercentile(99.9));
+        assertEquals(10000, histogram.getPercentile(100));
+        assertEquals(5000.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3000);
+        histogram.record(7000);
+        assertEquals(3, histogram.getPercentile(50));
+        assertEquals(7, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void mergedHistogramsCountEverything() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(1000000);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(1000000000);
+        }
+        fast.merge(slow);
+        assertEquals(100, fast.getCount());
+        assertClose(1000, fast.getPercentile(50));
+        assertClose(1000000, fast.getPercentile(99));
+        assertEquals(1000000, fast.getMax());
+    }
+
+    @Test
+    public void emptyHistogramAnswersZero() {
+        assertEquals(0, new LatencyHistogram().getPercentile(99));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected * 0.04);
+    }
+}
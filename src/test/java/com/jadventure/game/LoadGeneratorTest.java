@@ -0,0 +1,84 @@
+package com.jadventure.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import com.jadventure.game.server.GameServer;
+import com.jadventure.game.server.ServerConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoadGeneratorTest {
+    private static final int BOTS = 3;
+    private static final int COMMANDS = 20;
+
+    private GameServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setIoThreads(1);
+        server = new GameServer(config);
+        server.start();
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        for (int i = 1; i <= BOTS; i++) {
+            File profile = new File("json/profiles/LoadBot" + i);
+            File[] files = profile.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            profile.delete();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void botsPlayAndReportTheirLatencies() throws Exception {
+        LoadGenerator generator = LoadGenerator.fromArgs(new String[] {"load", String.valueOf(server.getPort()),
+                "--bots=" + BOTS, "--commands=" + COMMANDS, "--duration=0", "--seed=1"});
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        generator.setOutput(new PrintStream(output, true));
+
+        LoadGenerator.Results results = generator.run();
+        assertEquals(output.toString(), 0, results.getErrors());
+        assertEquals(BOTS * COMMANDS, results.getTotal().getCount());
+        // every bot starts a game before it plays
+        assertTrue(results.getLatencies("menu").getCount() >= BOTS * 3);
+        assertTrue(results.getTotal().getPercentile(50) <= results.getTotal().getPercentile(99));
+        assertTrue(results.getThroughput() > 0);
+        assertTrue(output.toString().contains("p999 ms"));
+    }
+
+    @Test(timeout = 30000)
+    public void recordedScriptIsPlayed() throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        generator.setPort(server.getPort());
+        generator.setBots(1);
+        generator.setCommands(5);
+        generator.setDuration(0);
+        generator.setScript(Arrays.asList("lookaround", "", "view stats"));
+        generator.setOutput(new PrintStream(new ByteArrayOutputStream()));
+
+        LoadGenerator.Results results = generator.run();
+        assertEquals(0, results.getErrors());
+        assertEquals(1, results.getLatencies("lookaround").getCount());
+        assertEquals(1, results.getLatencies("view").getCount());
+    }
+}
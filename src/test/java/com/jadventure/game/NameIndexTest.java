@@ -0,0 +1,73 @@
+package com.jadventure.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NameIndexTest {
+    private NameIndex<String> index;
+
+    @Before
+    public void setUp() {
+        index = new NameIndex<>();
+        for (String name : new String[] {"Wooden Shield", "Wooden Sword", "Troll", "Goblin", "Bat", "Rat",
+                "Healing Potion"}) {
+            index.add(name, name);
+        }
+    }
+
+    @Test
+    public void wholeNamesIgnoreCase() {
+        assertEquals(Collections.singletonList("Troll"), index.find("troll"));
+        assertEquals(Collections.singletonList("Wooden Shield"), index.find(" WOODEN shield "));
+    }
+
+    @Test
+    public void startOfTheNameOrOfAWord() {
+        assertEquals(Collections.singletonList("Wooden Shield"), index.find("shi"));
+        assertEquals(Collections.singletonList("Wooden Sword"), index.find("wooden sw"));
+        assertEquals(Collections.singletonList("Healing Potion"), index.find("potion"));
+        assertEquals(Collections.singletonList("Goblin"), index.find("gob"));
+    }
+
+    @Test
+    public void ambiguousNamesFindNothing() {
+        assertTrue(index.find("wooden").isEmpty());
+        assertTrue(index.find("s").isEmpty());
+        assertTrue(index.find("cat").isEmpty());
+    }
+
+    @Test
+    public void typos() {
+        assertEquals(Collections.singletonList("Troll"), index.find("trool"));
+        assertEquals(Collections.singletonList("Wooden Shield"), index.find("wodden shield"));
+        assertEquals(Collections.singletonList("Goblin"), index.find("goblim"));
+        assertTrue(index.find("tr0ll x").isEmpty());
+    }
+
+    @Test
+    public void sameNameIsFoundTogether() {
+        index.add("troll", "another troll");
+        assertEquals(Arrays.asList("Troll", "another troll"), index.find("Troll"));
+        index.remove("Troll", "Troll");
+        assertEquals(Collections.singletonList("another troll"), index.find("trol"));
+    }
+
+    @Test
+    public void removedNamesAreNotFound() {
+        index.remove("Wooden Sword", "Wooden Sword");
+        assertEquals(Collections.singletonList("Wooden Shield"), index.find("wooden"));
+        assertTrue(index.find("sword").isEmpty());
+        for (int i = 0; i < 50; i++) {
+            index.add("Skeleton " + i, "skeleton");
+            index.remove("Skeleton " + i, "skeleton");
+        }
+        assertTrue(index.find("skeleton 7").isEmpty());
+        assertEquals(Collections.singletonList("Troll"), index.find("trool"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.jadventure.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ScriptRunnerTest {
+    private File script;
+
+    @After
+    public void tearDown() {
+        if (script != null) {
+            script.delete();
+        }
+    }
+
+    @Test
+    public void transcriptIsPlayedFromTheMainMenu() throws IOException {
+        String output = play("nonsense\nexit\n");
+        assertTrue(output, output.contains("I don't know what 'nonsense' means."));
+        assertTrue(output, output.contains("Goodbye!"));
+    }
+
+    @Test(timeout = 10000)
+    public void transcriptEndingInsideAMenuStopsTheGame() throws IOException {
+        String output = play("start\n");
+        assertTrue(output, output.contains("Recruit"));
+    }
+
+    private String play(String transcript) throws IOException {
+        script = File.createTempFile("transcript", ".txt");
+        Files.write(script.toPath(), transcript.getBytes());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ScriptRunner runner = ScriptRunner.fromArgs(new String[] {"--script", script.getPath()});
+        runner.setOutput(new PrintStream(output, true));
+        assertEquals(1, runner.run());
+        return output.toString();
+    }
+}
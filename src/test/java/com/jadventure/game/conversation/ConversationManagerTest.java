@@ -4,6 +4,8 @@ import com.jadventure.game.entities.EquipmentLocation;
 import com.jadventure.game.entities.NPC;
 import com.jadventure.game.entities.Player;
 import com.jadventure.game.items.Item;
+import com.jadventure.game.repository.ItemRepository;
+import com.jadventure.game.repository.NpcRepository;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -16,11 +18,12 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class ConversationManagerTest {
+    private static final ItemRepository itemRepo = ItemRepository.createRepo();
     ConversationManager cm;
 
     @Before
     public void setUp() {
-        cm = ConversationManager.getInstance();
+        cm = new ConversationManager(NpcRepository.createRepo(itemRepo));
     }
 
     @Test 
@@ -130,6 +133,7 @@ public class ConversationManagerTest {
     @Test
     public void matchConditionShouldMatchItem() {
         Player player = new Player();
+        player.setItemRepository(itemRepo);
 
         Map<String, Integer> properties = new HashMap<>();
         properties.put("damage", 5);
@@ -164,6 +168,7 @@ public class ConversationManagerTest {
    @Test
     public void matchConditionShouldNotMatchItem() {
        Player player = new Player();
+       player.setItemRepository(itemRepo);
 
        Map<String, Integer> properties = new HashMap<>();
        properties.put("damage", 5);
@@ -1,6 +1,12 @@
 package com.jadventure.game.conversation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.jadventure.game.menus.Menu;
 
 import org.junit.Test;
 
@@ -14,4 +20,21 @@ public class LineTest {
         assertEquals(ConditionType.NONE, line.getCondition());
         assertEquals(ActionType.NONE, line.getAction());
     }
+
+    @Test
+    public void linesOfTheSameConversationShareTheirMenus() {
+        List<Line> game1 = conversation();
+        List<Line> game2 = conversation();
+        Menu menu = game1.get(0).getResponseMenu(null, null, game1);
+        assertSame(menu, game2.get(0).getResponseMenu(null, null, game2));
+        assertSame(game2.get(2), game2.get(0).getResponse(menu.getItems().get(1), game2));
+    }
+
+    private List<Line> conversation() {
+        return Arrays.asList(
+                new Line("lineTestNpc", 0, "", "Hello.", ConditionType.NONE, "", Arrays.asList(1, 2), ActionType.NONE),
+                new Line("lineTestNpc", 1, "Hi.", "Bye.", ConditionType.NONE, "", Arrays.asList(), ActionType.NONE),
+                new Line("lineTestNpc", 2, "Who are you?", "A guide.", ConditionType.NONE, "", Arrays.asList(),
+                        ActionType.NONE));
+    }
 }
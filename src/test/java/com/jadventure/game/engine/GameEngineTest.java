@@ -0,0 +1,106 @@
+package com.jadventure.game.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameEngineTest {
+    private GameEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new GameEngine();
+    }
+
+    @After
+    public void tearDown() {
+        engine.close();
+        File profile = new File("json/profiles/EngineTester");
+        File[] files = profile.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        profile.delete();
+    }
+
+    @Test(timeout = 10000)
+    public void newGameIsPlayedWithoutAConsole() {
+        String id = engine.createSession();
+        List<GameEvent> opening = engine.getOpening(id).join();
+        assertTrue(text(opening), text(opening).contains("Start"));
+        assertEquals(GameEvent.Type.PROMPT, last(opening).getType());
+
+        assertTrue(text(engine.submit(id, "start").join()).contains("Recruit"));
+        engine.submit(id, "recruit").join();
+        List<GameEvent> welcome = engine.submit(id, "EngineTester").join();
+        assertTrue(text(welcome), text(welcome).contains("Welcome to Silliya, EngineTester."));
+        assertEquals(GameEvent.Type.PROMPT, last(welcome).getType());
+
+        List<GameEvent> bye = engine.closeSession(id).join();
+        assertEquals(GameEvent.Type.EXIT, last(bye).getType());
+    }
+
+    @Test(timeout = 10000)
+    public void commandsSubmittedAheadArePlayedInOrder() {
+        String id = engine.createSession();
+        List<CompletableFuture<List<GameEvent>>> turns = new ArrayList<>();
+        turns.add(engine.submit(id, "nonsense"));
+        turns.add(engine.submit(id, "more nonsense"));
+        turns.add(engine.submit(id, "exit"));
+
+        assertTrue(text(turns.get(0).join()).contains("I don't know what 'nonsense' means."));
+        assertTrue(text(turns.get(1).join()).contains("I don't know what 'more nonsense' means."));
+        List<GameEvent> bye = turns.get(2).join();
+        assertTrue(text(bye).contains("Goodbye!"));
+        assertEquals(GameEvent.Type.EXIT, last(bye).getType());
+    }
+
+    @Test(timeout = 10000)
+    public void savedGameIsLoaded() {
+        String id = engine.loadSession("test");
+        assertTrue(text(engine.getOpening(id).join()).contains("Welcome back, test!"));
+        List<GameEvent> bye = engine.submit(id, "exit").join();
+        assertEquals(GameEvent.Type.EXIT, last(bye).getType());
+    }
+
+    @Test(timeout = 10000)
+    public void commandsAfterTheEndAreRefused() {
+        String id = engine.createSession();
+        engine.closeSession(id).join();
+        try {
+            engine.submit(id, "start").join();
+            fail("the session has ended");
+        } catch (IllegalArgumentException | CompletionException e) {
+            // the session is gone, or ended just now
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownProfileIsNotLoaded() {
+        engine.loadSession("no such profile");
+    }
+
+    private static GameEvent last(List<GameEvent> events) {
+        return events.get(events.size() - 1);
+    }
+
+    private static String text(List<GameEvent> events) {
+        StringBuilder text = new StringBuilder();
+        for (GameEvent event : events) {
+            text.append(event.getText()).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -11,12 +11,12 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
-import com.jadventure.game.GameBeans;
 import com.jadventure.game.items.Item;
 import com.jadventure.game.items.Storage;
 import com.jadventure.game.repository.ItemRepository;
 
 public class EntityTest {
+    private static final ItemRepository itemRepo = ItemRepository.createRepo();
     private Entity entity;
 
     @Before
@@ -85,7 +85,6 @@ public class EntityTest {
 
     @Test
     public void testEquipItem_OneHanded() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         double oldDamage = entity.getDamage();
         Item item = itemRepo.getItem("wshi1");
         Map<String, String> result = entity.equipItem(item.getPosition(), item);
@@ -102,7 +101,6 @@ public class EntityTest {
 
     @Test
     public void testUnequipItem_OneHand() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         double oldDamage = entity.getDamage();
         Item item = itemRepo.getItem("wshi1");
         Map<String, String> result = entity.unequipItem(item);
@@ -119,7 +117,6 @@ public class EntityTest {
 
     @Test
     public void testEquipItem_TwoHanded() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         double oldDamage = entity.getDamage();
         Item item = itemRepo.getItem("wbrd1");
         Map<String, String> result = entity.equipItem(item.getPosition(), item);
@@ -138,7 +135,6 @@ public class EntityTest {
 
     @Test
     public void testUnequipItem_TwoHanded() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         double oldDamage = entity.getDamage();
         Item item = itemRepo.getItem("wbrd1");
         Map<String, String> result = entity.unequipItem(item);
@@ -155,7 +151,6 @@ public class EntityTest {
 
     @Test
     public void testEquipItem_OneHandedWithTwoHandedEquip() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         entity.equipItem(itemRepo.getItem("wbrd1").getPosition(), itemRepo.getItem("wbrd1"));
         double oldDamage = entity.getDamage();
         Item item = itemRepo.getItem("wshi1");
@@ -174,7 +169,6 @@ public class EntityTest {
 
     @Test
     public void testEquipItem_ArmourSingleLocation() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         int oldArmour = entity.getArmour();
         Item item = itemRepo.getItem("ashi1");
         Map<String, String> result = entity.equipItem(EquipmentLocation.LEFT_HAND, item);
@@ -189,7 +183,6 @@ public class EntityTest {
 
     @Test
     public void testUnequipItem_ArmourSingleLocation() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         int oldArmour = entity.getArmour();
         Item item = itemRepo.getItem("ashi1");
         Map<String, String> result = entity.unequipItem(item);
@@ -206,7 +199,6 @@ public class EntityTest {
 
     @Test
     public void testEquipItem_ArmourDoubleLocation() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         int oldArmour = entity.getArmour();
         Item item = itemRepo.getItem("algt1");
         Map<String, String> result = entity.equipItem(item.getPosition(), item);
@@ -224,7 +216,6 @@ public class EntityTest {
 
     @Test
     public void testUnequipItem_ArmourDoubleLocation() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         int oldArmour = entity.getArmour();
         Item item = itemRepo.getItem("algt1");
         Map<String, String> result = entity.unequipItem(item);
@@ -241,7 +232,6 @@ public class EntityTest {
 
     @Test
     public void testEquipItem_ArmourSingleLocationWithDoubleLocationEquip() {
-        ItemRepository itemRepo = GameBeans.getItemRepository();
         entity.equipItem(null, itemRepo.getItem("algt1"));
         int oldArmour = entity.getArmour();
         Item item = itemRepo.getItem("albr1");
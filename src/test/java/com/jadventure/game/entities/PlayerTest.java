@@ -2,13 +2,17 @@ package com.jadventure.game.entities;
 
 import org.junit.Test;
 
+import com.jadventure.game.GameContext;
+import com.jadventure.game.repository.ItemRepository;
+
 import static org.junit.Assert.assertEquals;
 
 public class PlayerTest {
+    private final GameContext context = new GameContext(ItemRepository.createRepo());
 
     @Test
     public void newRecruit() {
-        Player player = Player.getInstance("recruit");
+        Player player = Player.getInstance(context, "recruit");
         int expected = 1;
         int actual = player.getArmour();
         assertEquals("Failure - new recruit not properly created", expected, actual);
@@ -16,7 +20,7 @@ public class PlayerTest {
 
     @Test
     public void newSewerRat() {
-        Player player = Player.getInstance("sewerrat");
+        Player player = Player.getInstance(context, "sewerrat");
         int expected = 0;
         int actual = player.getArmour();
         assertEquals("Failure - new sewer rat not properly created", expected, actual);
@@ -24,7 +28,7 @@ public class PlayerTest {
 
     @Test
     public void oldPlayer() {
-        Player player = Player.load("test");
+        Player player = Player.load(context, "test");
         String expected = "test";
         String actual = player.getName();
         assertEquals("Failure - old player not properly loaded", expected, actual);
@@ -0,0 +1,58 @@
+package com.jadventure.game.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.jadventure.game.ConsoleSession;
+import com.jadventure.game.menus.Menu;
+import com.jadventure.game.menus.MenuItem;
+import com.jadventure.game.navigation.Coordinate;
+
+public class OutputEventTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ConsoleSession session = new ConsoleSession(new ByteArrayInputStream(new byte[0]), new PrintStream(out));
+
+    @Test
+    public void eventsAreShownAsText() {
+        session.emit(new DamageEvent("Player", "Rat", 5, 10, true));
+        session.emit(NamesEvent.items(Collections.<String>emptyList()));
+        assertEquals("5 damage dealt!\nThe Rat's health is 10\n", output());
+    }
+
+    @Test
+    public void eventsAreSentAsJsonLines() {
+        session.setJsonOutput(true);
+        session.emit(new DamageEvent("Player", "Rat", 5, 10, true));
+        session.emit(new LocationEvent(new Coordinate(1, 2, -1), "Cave", "It is dark."));
+        session.offer("Hello");
+        assertEquals("{\"type\":\"damage\",\"attacker\":\"Player\",\"defender\":\"Rat\",\"damage\":5,\"health\":10,\"byPlayer\":true}\n"
+                + "{\"type\":\"location\",\"x\":1,\"y\":2,\"z\":-1,\"title\":\"Cave\",\"description\":\"It is dark.\"}\n"
+                + "{\"type\":\"text\",\"text\":\"Hello\"}\n", output());
+    }
+
+    @Test
+    public void menusListTheirOptions() {
+        Menu menu = new Menu(new MenuItem("Start", "Starts a new Game"), new MenuItem("Exit", null));
+        session.setJsonOutput(true);
+        menu.print(session);
+        assertEquals("{\"type\":\"menu\",\"options\":[{\"n\":1,\"command\":\"Start\",\"description\":\"Starts a new Game\"},"
+                + "{\"n\":2,\"command\":\"Exit\"}]}\n", output());
+    }
+
+    @Test
+    public void onlyLevelChangesAreShownAsText() {
+        assertNull(new StatChangeEvent("xp", 10, 20).toText());
+        assertEquals("You've are now level 3!", new StatChangeEvent("level", 2, 3).toText());
+    }
+
+    private String output() {
+        return out.toString().replace("\r\n", "\n");
+    }
+}
@@ -0,0 +1,48 @@
+package com.jadventure.game.events;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TemplateTest {
+    private final Template template = Template.compile("{name} has {gold} gold, {name}!");
+
+    @Test
+    public void argumentsAreRenderedInTheirSlots() {
+        StringBuilder out = new StringBuilder("> ");
+        template.render(out, "Bob", 12);
+        assertEquals("> Bob has 12 gold, Bob!", out.toString());
+        assertEquals(Arrays.asList("name", "gold"), template.getNames());
+    }
+
+    @Test
+    public void typedArgumentsAppendThemselves() {
+        StringBuilder out = new StringBuilder();
+        template.render(out, new Template.Arguments() {
+            public void appendArgument(String name, StringBuilder text) {
+                text.append(name.equals("gold") ? "no" : "Ann");
+            }
+        });
+        assertEquals("Ann has no gold, Ann!", out.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingArgumentsAreRejected() {
+        template.format("Bob");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unclosedArgumentsAreRejected() {
+        Template.compile("{name has gold");
+    }
+
+    @Test
+    public void messagesAreSentWithNamedProperties() {
+        MessageEvent event = new MessageEvent("modifier", Messages.MODIFIER, "damage", 7.5, "+", "2.5");
+        assertEquals("damage: 7.5 (+2.5)", event.toText());
+        assertEquals("{\"type\":\"modifier\",\"stat\":\"damage\",\"value\":7.5,\"sign\":\"+\",\"change\":\"2.5\"}",
+                event.toJson());
+    }
+}
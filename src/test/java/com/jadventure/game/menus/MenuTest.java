@@ -0,0 +1,44 @@
+package com.jadventure.game.menus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import com.jadventure.game.ConsoleSession;
+
+public class MenuTest {
+    private final MenuItem start = new MenuItem("Start", "Starts a new Game", "new");
+    private final MenuItem exit = new MenuItem("Exit", null, "Quit");
+    private final Menu menu = new Menu(start, exit);
+
+    @Test
+    public void itemsAreChosenByNumber() {
+        assertSame(start, menu.select("1"));
+        assertSame(exit, menu.select("2"));
+        assertNull(menu.select("3"));
+        assertNull(menu.select("0"));
+    }
+
+    @Test
+    public void itemsAreChosenByKeyOrAltCommand() {
+        assertSame(start, menu.select("start"));
+        assertSame(start, menu.select("START"));
+        assertSame(start, menu.select("new"));
+        assertSame(exit, menu.select("quit"));
+        assertNull(menu.select("nonsense"));
+        assertNull(menu.select(""));
+    }
+
+    @Test
+    public void itemsArePrintedWithTheirNumbers() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        menu.print(new ConsoleSession(new ByteArrayInputStream(new byte[0]), new PrintStream(out)));
+        assertEquals("[1] Start - Starts a new Game\n[2] Exit\n", out.toString().replace("\r\n", "\n"));
+    }
+}
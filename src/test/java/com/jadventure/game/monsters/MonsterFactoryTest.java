@@ -3,10 +3,12 @@ package com.jadventure.game.monsters;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.jadventure.game.GameContext;
 import com.jadventure.game.entities.Player;
 import com.jadventure.game.navigation.Coordinate;
 import com.jadventure.game.navigation.Location;
 import com.jadventure.game.navigation.LocationType;
+import com.jadventure.game.repository.ItemRepository;
 
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -18,7 +20,8 @@ public class MonsterFactoryTest {
 
     @Before
     public void setUp(){
-        player = Player.getInstance("recruit");
+        GameContext context = new GameContext(ItemRepository.createRepo());
+        player = Player.getInstance(context, "recruit");
 
         Coordinate coordinate = new Coordinate(1, 1, 0);
         String title = "At the edge of a forest";
@@ -28,7 +31,7 @@ public class MonsterFactoryTest {
         location = new Location(coordinate, title, description, locationType);
         location.setDangerRating(5);
 
-        factory = new MonsterFactory();
+        factory = new MonsterFactory(context.getItemRepository());
     }
 
     @Test
@@ -3,27 +3,30 @@ package com.jadventure.game.monsters;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.jadventure.game.repository.ItemRepository;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
 public class MonsterTest {
+    private static final ItemRepository itemRepo = ItemRepository.createRepo();
 
     private Monster dummyMonster;
     private int playerLevel;
 
     @Before
     public void setUp() {
-        dummyMonster = new Monster() { };
+        dummyMonster = new Monster(itemRepo) { };
         playerLevel = 5;
     }
 
     @Test
     public void monsterTypeCompareTest() {
-        Troll troll = new Troll(playerLevel);
-        Troll anotherTroll = new Troll(playerLevel);
-        Goblin notTroll = new Goblin(playerLevel);
+        Troll troll = new Troll(playerLevel, itemRepo);
+        Troll anotherTroll = new Troll(playerLevel, itemRepo);
+        Goblin notTroll = new Goblin(playerLevel, itemRepo);
 
         assertEquals(troll, anotherTroll);
         assertNotEquals(troll, notTroll);
@@ -46,22 +49,22 @@ public class MonsterTest {
 
     @Test
     public void monsterGenerateTest() {
-        Goblin goblin = new Goblin(playerLevel);
+        Goblin goblin = new Goblin(playerLevel, itemRepo);
         assertEquals("Goblin", goblin.monsterType);
 
-        Bugbear bugbear = new Bugbear(playerLevel);
+        Bugbear bugbear = new Bugbear(playerLevel, itemRepo);
         assertEquals("Bugbear", bugbear.monsterType);
 
-        Giant giant = new Giant(playerLevel);
+        Giant giant = new Giant(playerLevel, itemRepo);
         assertEquals("Giant", giant.monsterType);
 
-        Skeleton skeleton = new Skeleton(playerLevel);
+        Skeleton skeleton = new Skeleton(playerLevel, itemRepo);
         assertEquals("Skeleton", skeleton.monsterType);
 
-        Troll troll = new Troll(playerLevel);
+        Troll troll = new Troll(playerLevel, itemRepo);
         assertEquals("Troll", troll.monsterType);
 
-        Wolf wolf = new Wolf(playerLevel);
+        Wolf wolf = new Wolf(playerLevel, itemRepo);
         assertEquals("Wolf", wolf.monsterType);
     }
 }
@@ -10,18 +10,20 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.jadventure.game.DeathException;
-import com.jadventure.game.GameBeans;
+import com.jadventure.game.GameContext;
 import com.jadventure.game.entities.Player;
 import com.jadventure.game.monsters.Troll;
 import com.jadventure.game.navigation.Coordinate;
 import com.jadventure.game.navigation.Location;
 import com.jadventure.game.navigation.LocationType;
+import com.jadventure.game.repository.ItemRepository;
 import com.jadventure.game.repository.LocationRepository;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class CommandCollectionTest {
+    GameContext context;
     Player player;
     Location location;
     CommandCollection collection;
@@ -41,11 +43,12 @@ public class CommandCollectionTest {
         location = new Location(coordinate, title, description, locationType);
         location.setDangerRating(5);
 
-        player = Player.getInstance("recruit");
+        context = new GameContext(ItemRepository.createRepo());
+        player = Player.getInstance(context, "recruit");
         player.setLevel(1);
         player.setLocation(location);
 
-        collection = CommandCollection.getInstance();
+        collection = new CommandCollection(context);
         collection.initPlayer(player);
 
         stdout = System.out;
@@ -64,8 +67,8 @@ public class CommandCollectionTest {
         collection.command_help();
         int n = countLines(outContent.toString());
 
-        //13 help commands + 1 extra line
-        assertEquals(14, n);
+        //14 help commands + 1 extra line
+        assertEquals(15, n);
     }
 
     @Test
@@ -79,7 +82,7 @@ public class CommandCollectionTest {
         collection.command_m();
         assertTrue(outContent.toString().contains("no monsters"));
 
-        Troll troll = new Troll(player.getLevel());
+        Troll troll = new Troll(player.getLevel(), context.getItemRepository());
         player.getLocation().addMonster(troll);
         collection.command_m();
         assertTrue(outContent.toString().contains(troll.monsterType));
@@ -90,7 +93,7 @@ public class CommandCollectionTest {
     public void commandGoTest() throws DeathException{
         player.setName("player1");
         LocationRepository locationRepo =
-            GameBeans.getLocationRepository(player.getName());
+            context.loadLocations(player.getName());
         player.setLocation(locationRepo.getInitialLocation());
 
         collection.command_g("s");
@@ -126,16 +129,39 @@ public class CommandCollectionTest {
 
     @Test
     public void commandViewTest() {
-        collection.command_v("b");
+        collection.command_v(words("b"));
         assertTrue(outContent.toString().contains("Backpack"));
 
-        collection.command_v("s");
+        collection.command_v(words("s"));
         assertTrue(outContent.toString().contains("Player name:"));
 
-        collection.command_v("e");
+        collection.command_v(words("e"));
         assertTrue(outContent.toString().contains("Equipped Items:"));
     }
 
+    @Test
+    public void macrosKeepTheFillerWordsOfTheirCommands() {
+        collection.command_macro(argument("macro k attack goblin; a goblin"));
+        collection.command_macro(argument("macro  ag   a goblin"));
+        collection.command_macro(argument("macro guide talk to guide;go to n"));
+        assertEquals("attack goblin; a goblin", player.getMacros().get("k"));
+        assertEquals("a goblin", player.getMacros().get("ag"));
+        assertEquals("talk to guide;go to n", player.getMacros().get("guide"));
+        assertTrue(outContent.toString().contains("Macro 'ag' plays a goblin"));
+    }
+
+    /**
+     * Returns the argument of the command line, as the parser passes it.
+     */
+    private static Tokens argument(String line) {
+        Tokens words = words(line);
+        return words.tail(words.get(0).length(), new Tokens());
+    }
+
+    private static Tokens words(String input) {
+        return Tokenizer.DEFAULT.tokenize(input, new Tokens());
+    }
+
     private static int countLines(String str) {
         String[] lines = str.split("\r\n|\r|\n");
         return  lines.length;
@@ -0,0 +1,61 @@
+package com.jadventure.game.prompts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CommandTableTest {
+    private final CommandTable table = CommandTable.get();
+
+    @Test
+    public void tableIsBuiltOncePerJvm() {
+        assertSame(table, CommandTable.get());
+    }
+
+    @Test
+    public void longestKeyWins() {
+        assertEquals("go", table.find("go north").getKey());
+        assertEquals("g", table.find("g north").getKey());
+        assertEquals("drop", table.find("drop shiv").getKey());
+        assertEquals("d", table.find("d shiv").getKey());
+        assertEquals("lookaround", table.find("lookaround").getKey());
+        assertEquals("la", table.find("la").getKey());
+    }
+
+    @Test
+    public void aliasesFindTheirCommand() {
+        assertSame(table.find("inspect").getSpec(), table.find("lookat").getSpec());
+        assertSame(table.find("inspect").getSpec(), table.find("i").getSpec());
+        assertSame(table.find("talk").getSpec(), table.find("speakto").getSpec());
+    }
+
+    @Test
+    public void unknownInputFindsNothing() {
+        assertNull(table.find("xyzzy"));
+        assertNull(table.find(""));
+    }
+
+    @Test
+    public void argumentsAndDebugFlagsAreKnownUpFront() {
+        assertTrue(table.find("go").getSpec().takesArgument());
+        assertFalse(table.find("save").getSpec().takesArgument());
+        assertTrue(table.find("teleport").getSpec().isDebug());
+        assertFalse(table.find("help").getSpec().isDebug());
+    }
+
+    @Test
+    public void helpListsEveryCommand() {
+        assertEquals(22, table.getHelp().size());
+        int visible = 0;
+        for (CommandTable.HelpLine line : table.getHelp()) {
+            if (!line.isDebug()) {
+                visible++;
+            }
+        }
+        assertEquals(14, visible);
+    }
+}
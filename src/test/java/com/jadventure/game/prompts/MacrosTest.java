@@ -0,0 +1,52 @@
+package com.jadventure.game.prompts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class MacrosTest {
+    private final Map<String, String> macros = new TreeMap<>();
+
+    @Test
+    public void linesAreSplitIntoCommands() {
+        assertEquals(Arrays.asList("n", "n", "e", "la"), Macros.expand("n; n;e ;;la;", macros));
+        assertEquals(Collections.singletonList("talk to guide"), Macros.expand("talk to guide", macros));
+    }
+
+    @Test
+    public void macrosAreReplacedByTheirCommands() {
+        macros.put("walk", "n;n");
+        macros.put("tour", "walk;e;la");
+        assertEquals(Arrays.asList("n", "n", "e", "la", "s"), Macros.expand("tour;s", macros));
+        assertEquals(Arrays.asList("n", "n"), Macros.expand("WALK", macros));
+    }
+
+    @Test
+    public void macrosCallingThemselvesStop() {
+        macros.put("loop", "la;loop");
+        List<String> commands = Macros.expand("loop", macros);
+        assertEquals("loop", commands.get(commands.size() - 1));
+        assertTrue(commands.size() <= Macros.MAX_COMMANDS);
+    }
+
+    @Test
+    public void definitionsKeepTheirSeparators() {
+        assertEquals(Collections.singletonList("macro walk n;n"), Macros.expand("macro walk n;n", macros));
+    }
+
+    @Test
+    public void commandsCantBeMacroNames() {
+        assertTrue(Macros.isValidName("walk"));
+        assertFalse(Macros.isValidName("go"));
+        assertFalse(Macros.isValidName("la"));
+        assertFalse(Macros.isValidName("n;e"));
+    }
+}
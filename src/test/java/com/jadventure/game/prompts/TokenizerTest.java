@@ -0,0 +1,66 @@
+package com.jadventure.game.prompts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TokenizerTest {
+    private final Tokens tokens = new Tokens();
+
+    @Test
+    public void wordsAreLowercasedAndSpacedOnce() {
+        Tokenizer.DEFAULT.tokenize("  Pick   Wooden\tShield ", tokens);
+        assertEquals(3, tokens.count());
+        assertEquals("pick wooden shield", tokens.toString());
+        assertEquals("wooden", tokens.get(1));
+        assertTrue(tokens.is(2, "shield"));
+        assertFalse(tokens.is(2, "shiel"));
+    }
+
+    @Test
+    public void fillerWordsAreLeftOutButNeverTheCommand() {
+        assertEquals("talk guide", Tokenizer.DEFAULT.tokenize("talk to guide", tokens).toString());
+        assertEquals("a guide", Tokenizer.DEFAULT.tokenize("a guide", tokens).toString());
+        assertEquals("attack troll", Tokenizer.DEFAULT.tokenize("attack a troll", tokens).toString());
+        assertEquals("go", Tokenizer.DEFAULT.tokenize("go to", tokens).toString());
+    }
+
+    @Test
+    public void stopWordsCanBeChosen() {
+        Tokenizer tokenizer = new Tokenizer(Set.of("the"));
+        assertEquals("talk to guide", tokenizer.tokenize("talk to THE guide", tokens).toString());
+    }
+
+    @Test
+    public void tailStartsWhereTheCommandEnds() {
+        Tokenizer.DEFAULT.tokenize("gonorth now", tokens);
+        Tokens argument = new Tokens();
+        assertSame(argument, tokens.tail(2, argument));
+        assertEquals(2, argument.count());
+        assertEquals("north now", argument.toString());
+        assertEquals(0, tokens.tail(tokens.length(), argument).count());
+        assertEquals("", argument.toString());
+    }
+
+    @Test
+    public void theTypedLineIsKept() {
+        Tokenizer.DEFAULT.tokenize("Macro  k Attack a Troll", tokens);
+        assertEquals("k Attack a Troll", tokens.sourceAfter(0));
+        Tokens argument = tokens.tail("macro".length(), new Tokens());
+        assertEquals("Attack a Troll", argument.sourceAfter(0));
+        assertEquals("", argument.sourceAfter(argument.count() - 1));
+    }
+
+    @Test
+    public void tokensAreReused() {
+        Tokenizer.DEFAULT.tokenize("equip wooden shield", tokens);
+        Tokenizer.DEFAULT.tokenize("la", tokens);
+        assertEquals(1, tokens.count());
+        assertEquals("la", tokens.toString());
+    }
+}
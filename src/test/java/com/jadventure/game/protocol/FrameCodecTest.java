@@ -0,0 +1,115 @@
+package com.jadventure.game.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class FrameCodecTest {
+    private FrameCodec codec = new FrameCodec();
+
+    @Test
+    public void streamRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.write(bytes, FrameType.OUTPUT, 0, "You see a goblin, für Dich ⚔");
+        codec.write(bytes, FrameType.PROMPT, 0, "");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Frame output = codec.read(in);
+        assertEquals(FrameType.OUTPUT, output.getType());
+        assertEquals("You see a goblin, für Dich ⚔", output.getPayload());
+        assertEquals(FrameType.PROMPT, codec.read(in).getType());
+        assertNull(codec.read(in));
+    }
+
+    @Test
+    public void payloadsAreNotLimitedTo64K() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 200000) {
+            text.append("A long line of backpack contents. ");
+        }
+        ByteBuffer frame = codec.encode(FrameType.OUTPUT, 0, text);
+        assertEquals(Frame.HEADER_SIZE + text.length(), frame.remaining());
+        assertEquals(text.toString(), FrameCodec.decode(frame).getPayload());
+    }
+
+    @Test
+    public void incompleteFramesAreLeftInTheBuffer() throws IOException {
+        ByteBuffer frame = codec.encode(FrameType.INPUT, 0, "go north");
+        ByteBuffer partial = ByteBuffer.allocate(64);
+        partial.put(frame.array(), 0, 5).flip();
+        assertNull(FrameCodec.decode(partial));
+        assertEquals(0, partial.position());
+        assertEquals(Frame.HEADER_SIZE, FrameCodec.frameSize(partial));
+
+        partial.compact();
+        partial.put(frame.array(), 5, frame.remaining() - 5).flip();
+        assertEquals(frame.remaining(), FrameCodec.frameSize(partial));
+        assertEquals("go north", FrameCodec.decode(partial).getPayload());
+        assertEquals(0, partial.remaining());
+    }
+
+    @Test
+    public void compressedFramesShareOneStream() throws IOException {
+        FrameCodec sender = new FrameCodec();
+        sender.enableCompression();
+        FrameCodec receiver = new FrameCodec();
+        receiver.enableDecompression();
+        String turn = "To the North: \n    A very long dark corridor\nTo the East: \n"
+                + "    You see a pile of bones. Might be some equipment there.\n\nPrompt:";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            sender.write(bytes, FrameType.OUTPUT, 0, turn + i);
+        }
+        sender.write(bytes, FrameType.PROMPT, 0, "");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int i = 0; i < 10; i++) {
+            Frame frame = receiver.read(in);
+            assertEquals(Frame.FLAG_COMPRESSED, frame.getFlags());
+            assertEquals(turn + i, frame.getPayload());
+        }
+        assertEquals(0, receiver.read(in).getFlags());
+        assertTrue(sender.getCompressedBytes() * 3 < sender.getUncompressedBytes());
+        assertEquals(sender.getUncompressedBytes(), receiver.getUncompressedBytes());
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void compressedFramesNeedNegotiation() throws IOException {
+        FrameCodec sender = new FrameCodec();
+        sender.enableCompression();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sender.write(bytes, FrameType.OUTPUT, 0, "Hello");
+        codec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void unknownVersionIsRejected() throws IOException {
+        ByteBuffer frame = codec.encode(FrameType.INPUT, 0, "exit");
+        frame.put(0, (byte) 42);
+        FrameCodec.decode(frame);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void oversizedLengthIsRejected() throws IOException {
+        ByteBuffer frame = codec.encode(FrameType.INPUT, 0, "exit");
+        frame.putInt(3, Integer.MAX_VALUE);
+        FrameCodec.decode(frame);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void clientFramesAreLimitedFromTheirHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Frame.HEADER_SIZE);
+        header.put(Frame.VERSION).put(FrameType.INPUT.getCode()).put((byte) 0)
+                .putInt(Frame.MAX_CLIENT_PAYLOAD + 1).flip();
+        assertEquals(Frame.HEADER_SIZE + Frame.MAX_CLIENT_PAYLOAD + 1, FrameCodec.frameSize(header));
+        FrameCodec.frameSize(header, Frame.MAX_CLIENT_PAYLOAD);
+    }
+}
@@ -2,6 +2,8 @@ package com.jadventure.game.repository;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -131,6 +133,49 @@ public class ItemRepositoryTest {
         assertNotNull(potion);
     }
     
+    @Test
+    public void randomItemsAreOfTheTypeAndMostlyOfTheLevel() {
+        ItemRepository itemRepo = new ItemRepository();
+        itemRepo.addItem(createItem("fegg1", 1));
+        itemRepo.addItem(createItem("fbread", 2));
+        itemRepo.addItem(createItem("fcake", 5));
+        itemRepo.addItem(createMilk());
+
+        int aboveLevel = 0;
+        for (int i = 0; i < 1000; i++) {
+            Item food = itemRepo.getRandomFood(2);
+            assertTrue(food.getId().startsWith("f"));
+            if (food.getLevel() > 2) {
+                aboveLevel++;
+            }
+        }
+        // Only the three in ten drawn from every level can be above it
+        assertTrue(aboveLevel < 200);
+    }
+
+    @Test
+    public void randomItemsAlwaysReturn() {
+        ItemRepository itemRepo = new ItemRepository();
+        itemRepo.addItem(createItem("fcake", 5));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("fcake", itemRepo.getRandomFood(1).getId());
+        }
+        assertNull(itemRepo.getRandomWeapon(1));
+
+        itemRepo.addItem(createItem("wstick", 1));
+        assertEquals("wstick", itemRepo.getRandomWeapon(1).getId());
+    }
+
+    private Item createItem(String id, int level) {
+        Map<String, Integer> properties = new TreeMap<>();
+        properties.put("health", 2);
+        properties.put("weight", 1);
+        properties.put("value", 3);
+
+        return new Item(id, "food", id, "Something to eat", level, properties);
+    }
+
     private Item createMilk() {
         Map<String, Integer> properties = new TreeMap<>();
         properties.put("health", 5);
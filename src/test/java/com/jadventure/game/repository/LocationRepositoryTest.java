@@ -15,7 +15,8 @@ public class LocationRepositoryTest {
 
     @Before
     public void setUp() {
-        locationRepo = new LocationRepository("test");
+        ItemRepository itemRepo = ItemRepository.createRepo();
+        locationRepo = new LocationRepository("test", itemRepo, NpcRepository.createRepo(itemRepo));
     }
 
     @Test
@@ -16,7 +16,7 @@ public class NpcRepositoryTest {
 
     @Before
     public void setUp() {
-        npcRepository = NpcRepository.createRepo();
+        npcRepository = NpcRepository.createRepo(ItemRepository.createRepo());
         assertNotNull(npcRepository);
     }
 
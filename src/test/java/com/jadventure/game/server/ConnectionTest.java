@@ -0,0 +1,146 @@
+package com.jadventure.game.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The connections here belong to an IoLoop that never runs, so their
+ * client never reads anything and the outbound queue only grows.
+ */
+public class ConnectionTest {
+    private static final int LIMIT = 100;
+
+    private ServerSocketChannel listener;
+    private SocketChannel client;
+    private SocketChannel accepted;
+    private FrameCodec codec = new FrameCodec();
+
+    @Before
+    public void setUp() throws IOException {
+        listener = ServerSocketChannel.open();
+        listener.bind(new InetSocketAddress("localhost", 0));
+        client = SocketChannel.open(listener.getLocalAddress());
+        accepted = listener.accept();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        accepted.close();
+        listener.close();
+    }
+
+    @Test
+    public void dropPolicyDiscardsOldOutputButKeepsPrompts() throws IOException {
+        Connection connection = connection(SlowClientPolicy.DROP);
+        assertTrue(connection.send(frame(FrameType.PROMPT)));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(connection.send(frame(FrameType.OUTPUT)));
+        }
+        assertTrue(connection.getQueuedBytes() <= LIMIT);
+        assertTrue(connection.getDroppedFrames() > 0);
+        assertFalse(connection.isClosed());
+    }
+
+    @Test
+    public void dropPolicyDisconnectsWhenOnlyCompressedOutputIsQueued() throws IOException {
+        Connection connection = connection(SlowClientPolicy.DROP);
+        codec.enableCompression();
+        int sent = 0;
+        while (sent < 100 && connection.send(frame(FrameType.OUTPUT))) {
+            sent++;
+        }
+        assertTrue(sent < 100);
+        assertTrue(connection.getQueuedBytes() <= LIMIT);
+        assertEquals(0, connection.getDroppedFrames());
+    }
+
+    @Test
+    public void disconnectPolicyClosesTheConnection() throws IOException {
+        Connection connection = connection(SlowClientPolicy.DISCONNECT);
+        int sent = 0;
+        while (sent < 10 && connection.send(frame(FrameType.OUTPUT))) {
+            sent++;
+        }
+        assertTrue(sent < 10);
+        assertTrue(connection.getQueuedBytes() <= LIMIT);
+        assertEquals(0, connection.getDroppedFrames());
+    }
+
+    @Test
+    public void blockPolicyWaitsUntilTheConnectionCloses() throws Exception {
+        final Connection connection = connection(SlowClientPolicy.BLOCK);
+        while (connection.getQueuedBytes() + 30 <= LIMIT) {
+            assertTrue(connection.send(frame(FrameType.OUTPUT)));
+        }
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> connection.send(frame(FrameType.OUTPUT)));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+        connection.close();
+        assertFalse(blocked.get(5, TimeUnit.SECONDS));
+        assertTrue(connection.getPeakQueuedBytes() <= LIMIT);
+    }
+
+    @Test(timeout = 10000)
+    public void aGameWaitingForASlowClientHoldsNoMonitor() throws Exception {
+        final Connection connection = connection(SlowClientPolicy.BLOCK);
+        ServerConfig config = new ServerConfig();
+        config.setCompression(false);
+        final RemoteSession session = new RemoteSession(connection, config);
+        Thread game = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                session.offer("You hear the goblin breathing.");
+                session.flush();
+            }
+        });
+        game.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (game.getState() != Thread.State.WAITING) {
+            if (System.nanoTime() > deadline) {
+                fail("The game never waited for the client, it is " + game.getState());
+            }
+            Thread.sleep(10);
+        }
+        // a monitor held while waiting would pin the carrier of a virtual thread
+        ThreadInfo info = ManagementFactory.getThreadMXBean().getThreadInfo(new long[] {game.threadId()}, true, false)[0];
+        assertEquals(0, info.getLockedMonitors().length);
+        connection.close();
+        game.join();
+    }
+
+    private Connection connection(SlowClientPolicy policy) throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setOutputLimit(LIMIT);
+        config.setSlowClientPolicy(policy);
+        config.setSlowClientTimeout(0);
+        accepted.configureBlocking(false);
+        return new Connection(accepted, new IoLoop(), config);
+    }
+
+    private ByteBuffer frame(FrameType type) {
+        try {
+            return codec.encode(type, 0, "You hear the goblin breathing.");
+        } catch (IOException ioe) {
+            throw new AssertionError(ioe);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.jadventure.game.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.jadventure.game.protocol.Frame;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+import com.jadventure.game.server.RemoteSession.SaveResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameServerTest {
+    private GameServer server;
+    private FrameCodec codec = new FrameCodec();
+
+    @Before
+    public void setUp() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setIoThreads(1);
+        server = new GameServer(config);
+        server.start();
+        new Thread(new Runnable() {
+            public void run() {
+                server.run();
+            }
+        }).start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void mainMenuIsServedAndExitCloses() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+        List<String> menu = readUntil(in, FrameType.PROMPT);
+        assertTrue(menu.contains("[1] Start - Starts a new Game"));
+
+        codec.write(out, FrameType.INPUT, 0, "exit");
+        List<String> goodbye = readUntil(in, FrameType.EXIT);
+        assertTrue(goodbye.contains("Goodbye!"));
+        assertEquals(-1, in.read());
+        socket.close();
+    }
+
+    @Test
+    public void oversizedInputClosesTheConnection() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        readUntil(in, FrameType.PROMPT);
+
+        // only the header, the server mustn't wait for 16 MB to arrive
+        out.writeByte(Frame.VERSION);
+        out.writeByte(FrameType.INPUT.getCode());
+        out.writeByte(0);
+        out.writeInt(Frame.MAX_PAYLOAD);
+        out.flush();
+        Frame frame;
+        while ((frame = codec.read(in)) != null) {
+            assertTrue(frame.toString(), frame.getType() != FrameType.PROMPT);
+        }
+        socket.close();
+    }
+
+    @Test(timeout = 20000)
+    public void pipelinedInputIsReadAsTheGameTakesIt() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        readUntil(in, FrameType.PROMPT);
+
+        // more lines than a session queues, the rest waits in the read buffer
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (int i = 0; i < 3 * RemoteSession.MAX_INBOUND_LINES; i++) {
+            codec.write(lines, FrameType.INPUT, 0, "nonsense");
+        }
+        codec.write(lines, FrameType.INPUT, 0, "exit");
+        socket.getOutputStream().write(lines.toByteArray());
+        assertTrue(readUntil(in, FrameType.EXIT).contains("Goodbye!"));
+        socket.close();
+    }
+
+    @Test(timeout = 20000)
+    public void inputFloodingAWaitingSessionIsNotQueued() throws Exception {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setMaxSessions(1);
+        final GameServer full = new GameServer(config);
+        full.start();
+        new Thread(new Runnable() {
+            public void run() {
+                full.run();
+            }
+        }).start();
+        Socket playing = new Socket("localhost", full.getPort());
+        final Socket waiting = new Socket("localhost", full.getPort());
+        try {
+            playing.setSoTimeout(5000);
+            waiting.setSoTimeout(5000);
+            readUntil(new DataInputStream(playing.getInputStream()), FrameType.PROMPT);
+            codec.read(new DataInputStream(waiting.getInputStream()));
+            RemoteSession session = full.getRegistry().getPendingSessions().get(0);
+
+            final char[] line = new char[Frame.MAX_CLIENT_PAYLOAD];
+            Arrays.fill(line, 'x');
+            final AtomicBoolean flooded = new AtomicBoolean(false);
+            Thread flood = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        FrameCodec floodCodec = new FrameCodec();
+                        for (int i = 0; i < 64 * 1024; i++) {
+                            floodCodec.write(waiting.getOutputStream(), FrameType.INPUT, 0, new String(line));
+                        }
+                        flooded.set(true);
+                    } catch (IOException ioe) {
+                        // the socket is closed once the test is over
+                    }
+                }
+            });
+            flood.setDaemon(true);
+            flood.start();
+            while (session.getInboundLines() < RemoteSession.MAX_INBOUND_LINES) {
+                Thread.sleep(10);
+            }
+            flood.join(1000);
+            assertFalse("256 MB of input were read for a waiting session", flooded.get());
+            assertEquals(RemoteSession.MAX_INBOUND_LINES, session.getInboundLines());
+        } finally {
+            playing.close();
+            waiting.close();
+            full.stop();
+        }
+    }
+
+    @Test
+    public void concurrentSessionsKeepTheirOwnOutput() throws IOException {
+        Socket first = new Socket("localhost", server.getPort());
+        Socket second = new Socket("localhost", server.getPort());
+        first.setSoTimeout(5000);
+        second.setSoTimeout(5000);
+        DataInputStream firstIn = new DataInputStream(first.getInputStream());
+        DataInputStream secondIn = new DataInputStream(second.getInputStream());
+        readUntil(firstIn, FrameType.PROMPT);
+        readUntil(secondIn, FrameType.PROMPT);
+
+        codec.write(second.getOutputStream(), FrameType.INPUT, 0, "nonsense");
+        codec.write(first.getOutputStream(), FrameType.INPUT, 0, "exit");
+
+        assertTrue(readUntil(firstIn, FrameType.EXIT).contains("Goodbye!"));
+        assertTrue(readUntil(secondIn, FrameType.PROMPT).contains("I don't know what 'nonsense' means."));
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void turnOutputIsSentAsOneFrame() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+
+        Frame menu = codec.read(in);
+        assertEquals(FrameType.OUTPUT, menu.getType());
+        assertTrue(menu.getPayload().contains("[1] Start - Starts a new Game\n[2] Load"));
+        assertEquals(FrameType.PROMPT, codec.read(in).getType());
+        socket.close();
+    }
+
+    @Test
+    public void fullOutputBufferIsFlushedEarly() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setOutputBuffer(16);
+        final GameServer smallBuffers = new GameServer(config);
+        smallBuffers.start();
+        new Thread(new Runnable() {
+            public void run() {
+                smallBuffers.run();
+            }
+        }).start();
+        try {
+            Socket socket = new Socket("localhost", smallBuffers.getPort());
+            socket.setSoTimeout(5000);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            int frames = 0;
+            while (codec.read(in).getType() == FrameType.OUTPUT) {
+                frames++;
+            }
+            assertTrue("Only " + frames + " output frames", frames > 1);
+            socket.close();
+        } finally {
+            smallBuffers.stop();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void shutdownSavesRunningGames() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        for (String command : new String[] {"start", "recruit", "ShutdownTester"}) {
+            codec.write(out, FrameType.INPUT, 0, command);
+        }
+        List<String> lines;
+        do {
+            lines = readUntil(in, FrameType.PROMPT);
+        } while (!lines.contains("Prompt:"));
+        File profile = new File("json/profiles/ShutdownTester/ShutdownTester_profile.json");
+        profile.delete();
+
+        ShutdownReport report = server.shutdown();
+        assertEquals(1, report.count(SaveResult.SAVED));
+        assertTrue(report.isComplete());
+        assertTrue(profile.exists());
+        List<String> goodbye = readUntil(in, FrameType.EXIT);
+        assertTrue(goodbye.contains("The server is shutting down, your game is being saved."));
+        socket.close();
+        deleteProfile(new File("json/profiles/ShutdownTester"));
+    }
+
+    @Test(timeout = 20000)
+    public void lostSessionIsResumedWithTheMissedOutput() throws IOException {
+        Socket first = new Socket("localhost", server.getPort());
+        first.setSoTimeout(5000);
+        DataInputStream firstIn = new DataInputStream(first.getInputStream());
+        codec.write(first.getOutputStream(), FrameType.HELLO, 0, "resume");
+        String token = null;
+        boolean prompted = false;
+        while (!prompted || token == null) {
+            Frame frame = codec.read(firstIn);
+            if (frame.getType() == FrameType.HELLO) {
+                token = frame.getPayload().substring("resume=".length());
+            } else if (frame.getType() == FrameType.PROMPT) {
+                prompted = true;
+            }
+        }
+        codec.write(first.getOutputStream(), FrameType.INPUT, 0, "nonsense");
+        readUntil(firstIn, FrameType.PROMPT);
+        // a reset instead of a FIN, which would end the input
+        first.setSoLinger(true, 0);
+        first.close();
+
+        Socket second = new Socket("localhost", server.getPort());
+        second.setSoTimeout(5000);
+        DataInputStream secondIn = new DataInputStream(second.getInputStream());
+        // pretend the answer to "nonsense" was missed
+        codec.write(second.getOutputStream(), FrameType.RESUME, 0, token + " 1");
+        assertEquals("1", readUntilResume(secondIn));
+        assertTrue(readUntil(secondIn, FrameType.PROMPT).contains("I don't know what 'nonsense' means."));
+
+        codec.write(second.getOutputStream(), FrameType.INPUT, 0, "exit");
+        assertTrue(readUntil(secondIn, FrameType.EXIT).contains("Goodbye!"));
+        second.close();
+    }
+
+    @Test(timeout = 20000)
+    public void lostSessionIsResumedOnAFullServer() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setMaxSessions(1);
+        config.setMaxPending(0);
+        final GameServer full = new GameServer(config);
+        full.start();
+        new Thread(new Runnable() {
+            public void run() {
+                full.run();
+            }
+        }).start();
+        try {
+            Socket first = new Socket("localhost", full.getPort());
+            first.setSoTimeout(5000);
+            DataInputStream firstIn = new DataInputStream(first.getInputStream());
+            codec.write(first.getOutputStream(), FrameType.HELLO, 0, "resume");
+            String token = codec.read(firstIn).getPayload().substring("resume=".length());
+            readUntil(firstIn, FrameType.PROMPT);
+            first.setSoLinger(true, 0);
+            first.close();
+
+            // the lost session still holds the only place
+            Socket second = new Socket("localhost", full.getPort());
+            second.setSoTimeout(5000);
+            DataInputStream secondIn = new DataInputStream(second.getInputStream());
+            codec.write(second.getOutputStream(), FrameType.HELLO, 0, "resume");
+            codec.write(second.getOutputStream(), FrameType.RESUME, 0, token + " 0");
+            assertEquals("0", readUntilResume(secondIn));
+            codec.write(second.getOutputStream(), FrameType.INPUT, 0, "exit");
+            List<String> goodbye = readUntil(secondIn, FrameType.EXIT);
+            assertFalse(goodbye.toString(), goodbye.contains("Server full, please try again later."));
+            assertTrue(goodbye.contains("Goodbye!"));
+            second.close();
+        } finally {
+            full.stop();
+        }
+    }
+
+    @Test
+    public void unknownSessionIsNotResumed() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        codec.write(socket.getOutputStream(), FrameType.RESUME, 0, "0123456789abcdef 0");
+        assertEquals("", readUntilResume(in));
+
+        codec.write(socket.getOutputStream(), FrameType.INPUT, 0, "exit");
+        assertTrue(readUntil(in, FrameType.EXIT).contains("Goodbye!"));
+        socket.close();
+    }
+
+    private String readUntilResume(DataInputStream in) throws IOException {
+        Frame frame;
+        while ((frame = codec.read(in)).getType() != FrameType.RESUME) {
+            continue;
+        }
+        return frame.getPayload();
+    }
+
+    private static void deleteProfile(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Collects the lines of the OUTPUT frames sent before the first frame
+     * of the given type.
+     */
+    private List<String> readUntil(DataInputStream in, FrameType last) throws IOException {
+        List<String> lines = new ArrayList<>();
+        Frame frame;
+        while ((frame = codec.read(in)).getType() != last) {
+            lines.addAll(Arrays.asList(frame.getPayload().split("\n", -1)));
+        }
+        return lines;
+    }
+}
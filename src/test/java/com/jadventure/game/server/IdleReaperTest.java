@@ -0,0 +1,57 @@
+package com.jadventure.game.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import com.jadventure.game.protocol.Frame;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdleReaperTest {
+    private GameServer server;
+    private FrameCodec codec = new FrameCodec();
+
+    @Before
+    public void setUp() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setIoThreads(1);
+        config.setIdleTimeout(3);
+        config.setIdleWarnings(new int[] {2});
+        server = new GameServer(config);
+        server.start();
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void idlePlayerIsWarnedThenDisconnected() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        while (codec.read(in).getType() != FrameType.PROMPT) {
+            // skip the menu
+        }
+
+        Frame warning = codec.read(in);
+        assertTrue(warning.getPayload(), warning.getPayload().startsWith("You have been idle for a while."));
+        Frame expiry = codec.read(in);
+        assertTrue(expiry.getPayload(), expiry.getPayload().startsWith("You have been idle for too long."));
+        assertEquals(FrameType.EXIT, codec.read(in).getType());
+        assertEquals(-1, in.read());
+        socket.close();
+    }
+}
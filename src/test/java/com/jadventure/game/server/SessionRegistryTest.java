@@ -0,0 +1,129 @@
+package com.jadventure.game.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jadventure.game.protocol.Frame;
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SessionRegistryTest {
+    private GameServer server;
+    private List<Socket> sockets = new ArrayList<>();
+    private FrameCodec codec = new FrameCodec();
+
+    @After
+    public void tearDown() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void playersWaitInLineWhenTheServerIsFull() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setMaxSessions(1);
+        config.setMaxPending(1);
+        startServer(config);
+
+        Socket playing = connect();
+        DataInputStream playingIn = new DataInputStream(playing.getInputStream());
+        readUntil(playingIn, FrameType.PROMPT);
+
+        Socket waiting = connect();
+        DataInputStream waitingIn = new DataInputStream(waiting.getInputStream());
+        assertEquals("Server full, you are number 1 in the queue.", codec.read(waitingIn).getPayload());
+
+        Socket rejected = connect();
+        List<String> rejection = readUntil(new DataInputStream(rejected.getInputStream()), FrameType.EXIT);
+        assertTrue(rejection.toString(), rejection.contains("Server full, please try again later."));
+
+        codec.write(playing.getOutputStream(), FrameType.INPUT, 0, "exit");
+        assertTrue(readUntil(waitingIn, FrameType.PROMPT).contains("[1] Start - Starts a new Game"));
+        assertEquals(1, server.getRegistry().getActiveCount());
+        assertEquals(0, server.getRegistry().getPendingCount());
+    }
+
+    @Test
+    public void aFixedPoolRunsNoMoreGamesThanItHasWorkers() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setWorkerThreads(1);
+        startServer(config);
+
+        Socket playing = connect();
+        readUntil(new DataInputStream(playing.getInputStream()), FrameType.PROMPT);
+        DataInputStream waitingIn = new DataInputStream(connect().getInputStream());
+        assertEquals("Server full, you are number 1 in the queue.", codec.read(waitingIn).getPayload());
+
+        codec.write(playing.getOutputStream(), FrameType.INPUT, 0, "exit");
+        assertTrue(readUntil(waitingIn, FrameType.PROMPT).contains("[1] Start - Starts a new Game"));
+    }
+
+    @Test
+    public void connectionsPerAddressAreCapped() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setMaxPerAddress(1);
+        startServer(config);
+
+        readUntil(new DataInputStream(connect().getInputStream()), FrameType.PROMPT);
+        List<String> rejection = readUntil(new DataInputStream(connect().getInputStream()), FrameType.EXIT);
+        assertTrue(rejection.toString(), rejection.contains("Too many connections from your address."));
+    }
+
+    @Test
+    public void turnedAwayConnectionsDontFreeTheirAddress() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setMaxPerAddress(1);
+        startServer(config);
+
+        readUntil(new DataInputStream(connect().getInputStream()), FrameType.PROMPT);
+        for (int i = 0; i < 3; i++) {
+            DataInputStream in = new DataInputStream(connect().getInputStream());
+            List<String> rejection = readUntil(in, FrameType.EXIT);
+            assertTrue(rejection.toString(), rejection.contains("Too many connections from your address."));
+            // the server has closed the connection once the client sees its end
+            assertEquals(-1, in.read());
+        }
+        List<String> rejection = readUntil(new DataInputStream(connect().getInputStream()), FrameType.EXIT);
+        assertTrue(rejection.toString(), rejection.contains("Too many connections from your address."));
+        assertEquals(1, server.getRegistry().getActiveCount());
+    }
+
+    private void startServer(ServerConfig config) throws IOException {
+        config.setPort(0);
+        config.setIoThreads(1);
+        server = new GameServer(config);
+        server.start();
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", server.getPort());
+        socket.setSoTimeout(5000);
+        sockets.add(socket);
+        return socket;
+    }
+
+    private List<String> readUntil(DataInputStream in, FrameType last) throws IOException {
+        List<String> lines = new ArrayList<>();
+        Frame frame;
+        while ((frame = codec.read(in)).getType() != last) {
+            for (String line : frame.getPayload().split("\n")) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
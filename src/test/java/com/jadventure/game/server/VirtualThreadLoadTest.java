@@ -0,0 +1,81 @@
+package com.jadventure.game.server;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jadventure.game.protocol.FrameCodec;
+import com.jadventure.game.protocol.FrameType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Holds an increasing number of idle sessions on virtual threads and checks
+ * that the number of platform threads (carriers included) doesn't follow.
+ */
+public class VirtualThreadLoadTest {
+    private static final int WARM_UP_SESSIONS = 100;
+    private static final int SESSIONS = 1000;
+
+    private GameServer server;
+    private List<Socket> sockets = new ArrayList<>();
+    private FrameCodec codec = new FrameCodec();
+
+    @Before
+    public void setUp() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(0);
+        config.setIoThreads(2);
+        config.setVirtualThreads(true);
+        server = new GameServer(config);
+        server.start();
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void platformThreadsStayFlatAsSessionsScale() throws IOException {
+        openSessions(WARM_UP_SESSIONS);
+        int threadsAtWarmUp = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        openSessions(SESSIONS - WARM_UP_SESSIONS);
+        int threadsAtFullLoad = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        int carriers = Runtime.getRuntime().availableProcessors();
+        assertTrue("Platform threads grew from " + threadsAtWarmUp + " to " + threadsAtFullLoad +
+                " while going from " + WARM_UP_SESSIONS + " to " + SESSIONS + " sessions",
+                threadsAtFullLoad - threadsAtWarmUp <= carriers);
+    }
+
+    /**
+     * Connects the given number of clients and waits until each of them is
+     * parked at the main menu's prompt.
+     */
+    private void openSessions(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Socket socket = new Socket("localhost", server.getPort());
+            socket.setSoTimeout(10000);
+            sockets.add(socket);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            while (codec.read(in).getType() != FrameType.PROMPT) {
+                // skip the menu
+            }
+        }
+    }
+}